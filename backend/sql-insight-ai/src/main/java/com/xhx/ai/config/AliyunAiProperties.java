@@ -11,4 +11,13 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class AliyunAiProperties {
     private String apiKey;
     private String model;
+
+    /** 模型输出维度（text-embedding-v3 默认 1024，可选 768 / 512 / 256 / 128 / 64） */
+    private int dimension = 1024;
+
+    /** 单次请求最多携带的文本数（text-embedding-v3 上限为 10） */
+    private int batchSize = 10;
+
+    /** 批量向量化时的最大并发请求数 */
+    private int maxConcurrentRequests = 4;
 }
\ No newline at end of file
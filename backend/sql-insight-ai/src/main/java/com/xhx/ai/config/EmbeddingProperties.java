@@ -0,0 +1,51 @@
+package com.xhx.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Embedding 模型选择
+ *
+ * @author master
+ */
+@Data
+@ConfigurationProperties(prefix = "sql-insight.embedding")
+public class EmbeddingProperties {
+
+    /**
+     * 生效的提供方：dashscope（远程）/ local（进程内 ONNX 模型）
+     * <p>
+     * 切换后向量维度和语义空间都会变化：Collection 维度不一致时需更换 qdrant.collection-name，
+     * 表内容哈希包含模型标识，下一轮索引任务会重新向量化全部表。
+     */
+    private String provider = "dashscope";
+
+    /**
+     * Matryoshka 截断维度（如 256 / 128），0 表示使用模型完整维度
+     * <p>
+     * 仅对按 Matryoshka 方式训练的模型有效；DashScope 建议直接配置 aliyun.dashscope.dimension 由服务端输出低维向量。
+     * 修改后 Collection 维度随之变化，需更换 qdrant.collection-name。
+     */
+    private int truncateDimension = 0;
+
+    private Local local = new Local();
+
+    @Data
+    public static class Local {
+
+        /** ONNX 模型文件路径（如 bge-small-zh-v1.5 导出的 model.onnx），为空时不加载本地模型 */
+        private String modelPath;
+
+        /** 与模型配套的 tokenizer.json 路径 */
+        private String tokenizerPath;
+
+        /** 池化方式：MEAN / CLS，需与模型训练方式一致（bge 系列为 CLS） */
+        private String poolingMode = "MEAN";
+
+        /** 单次推理最多携带的文本数（批内按 CPU 核数并行） */
+        private int batchSize = 32;
+
+        /** 批量向量化时同时推理的批数，批内已占满 CPU，通常保持 1 */
+        private int maxConcurrentBatches = 1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.xhx.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测模式配置（仅 loadtest profile 生效）
+ *
+ * <p>LLM 与 Embedding 全部替换为本地模拟实现，不消耗任何外部配额，
+ * 通过延迟分布模拟真实接口的耗时特征。
+ *
+ * @author master
+ */
+@Data
+@ConfigurationProperties(prefix = "sql-insight.loadtest")
+public class LoadTestProperties {
+
+    /** 阻塞式 LLM 调用延迟 */
+    private Latency chatLatency = new Latency(Distribution.NORMAL, 1200, 300);
+
+    /** 流式 LLM 首 token 延迟 */
+    private Latency streamingFirstTokenLatency = new Latency(Distribution.NORMAL, 400, 100);
+
+    /** 流式 LLM 相邻 token 间隔（毫秒） */
+    private long streamingTokenIntervalMs = 20;
+
+    /** Embedding 调用延迟 */
+    private Latency embeddingLatency = new Latency(Distribution.UNIFORM, 80, 40);
+
+    /** 模拟向量维度，需与 Qdrant collection 维度一致 */
+    private int embeddingDimension = 1024;
+
+    /**
+     * 预置 SQL：问题包含 key 时直接返回 value，
+     * 未命中时按 systemPrompt 中的表结构规则生成
+     */
+    private Map<String, String> cannedSql = new LinkedHashMap<>();
+
+    public enum Distribution { FIXED, UNIFORM, NORMAL }
+
+    @Data
+    public static class Latency {
+
+        /** 分布类型 */
+        private Distribution distribution = Distribution.FIXED;
+
+        /** 均值（毫秒） */
+        private long meanMs;
+
+        /** UNIFORM 为半区间宽度，NORMAL 为标准差（毫秒） */
+        private long jitterMs;
+
+        public Latency() {
+        }
+
+        public Latency(Distribution distribution, long meanMs, long jitterMs) {
+            this.distribution = distribution;
+            this.meanMs = meanMs;
+            this.jitterMs = jitterMs;
+        }
+    }
+}
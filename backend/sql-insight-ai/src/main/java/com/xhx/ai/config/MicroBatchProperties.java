@@ -0,0 +1,32 @@
+package com.xhx.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 跨请求微批配置（问题向量化、Qdrant 检索）
+ *
+ * @author master
+ */
+@Data
+@ConfigurationProperties(prefix = "sql-insight.micro-batch")
+public class MicroBatchProperties {
+
+    /** 是否启用，关闭后每个请求单独调用 Embedding 模型 / Qdrant */
+    private boolean enabled = true;
+
+    /** 一批最长等待时间（毫秒） */
+    private long maxDelayMs = 5;
+
+    /** 问题向量化单批最大条数（不超过所选 Embedding 模型的单次上限） */
+    private int embeddingBatchSize = 10;
+
+    /** 问题向量化的专用线程数，从 Embedding 模型并发上限中预留，批量索引只用剩余部分 */
+    private int embeddingThreads = 2;
+
+    /** Qdrant 检索单批最大条数 */
+    private int searchBatchSize = 32;
+
+    /** Qdrant 批量检索的执行线程数 */
+    private int searchThreads = 4;
+}
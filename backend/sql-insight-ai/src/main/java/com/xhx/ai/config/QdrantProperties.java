@@ -12,4 +12,81 @@ public class QdrantProperties {
     private String host;
     private int port;
     private String collectionName;
-}
\ No newline at end of file
+
+    /**
+     * 每个数据源单独一个 Collection（{collectionName}_ds_{id}）
+     * <p>
+     * 默认所有数据源共用一个 Collection、按 data_source_id 过滤；
+     * 单个数据源表数很多或需要整体删除 / 迁移时可切换，切换后需重建索引。
+     */
+    private boolean collectionPerDataSource = false;
+
+    /** 向量存磁盘（mmap），内存只保留量化向量和 HNSW 图 */
+    private boolean onDiskVectors = false;
+
+    private Hnsw hnsw = new Hnsw();
+
+    private Quantization quantization = new Quantization();
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Data
+    public static class Hnsw {
+        /**
+         * 全局 HNSW 图每个节点的边数
+         * <p>
+         * 检索总是带 data_source_id 过滤，可设为 0 只构建按数据源分组的子图（配合 payload-m），
+         * 数据源很多时显著降低建图开销和内存
+         */
+        private int m = 16;
+
+        /** 按 payload 索引字段分组构建子图时每个节点的边数，0 表示不构建 */
+        private int payloadM = 0;
+
+        private int efConstruct = 100;
+
+        /** 检索时的 ef，0 表示使用 Qdrant 默认值 */
+        private int searchEf = 0;
+    }
+
+    @Data
+    public static class Quantization {
+        /** 启用 int8 标量量化（内存约为 float32 的 1/4） */
+        private boolean enabled = false;
+
+        /** 量化区间分位数，截断极端值 */
+        private float quantile = 0.99f;
+
+        /** 量化向量常驻内存（原始向量可在磁盘） */
+        private boolean alwaysRam = true;
+
+        /** 检索时用原始向量对量化结果重新打分 */
+        private boolean rescore = true;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+
+        /** 滑动窗口大小（最近 N 次调用） */
+        private int windowSize = 20;
+
+        /** 窗口内至少有这么多次调用才计算失败率 */
+        private int minimumCalls = 10;
+
+        /** 失败率阈值（百分比） */
+        private float failureRateThreshold = 50;
+
+        /** 超过该耗时视为慢调用（毫秒） */
+        private long slowCallMillis = 1000;
+
+        /** 慢调用率阈值（百分比） */
+        private float slowCallRateThreshold = 80;
+
+        /** 熔断持续时间，之后进入半开探测 */
+        private long openSeconds = 30;
+
+        /** 半开状态放行的探测次数 */
+        private int halfOpenCalls = 3;
+    }
+}
@@ -0,0 +1,20 @@
+package com.xhx.ai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 进程内向量索引配置
+ *
+ * @author master
+ */
+@Data
+@ConfigurationProperties(prefix = "sql-insight.vector-index")
+public class VectorIndexProperties {
+
+    /** 是否启用进程内检索，关闭后每次检索都走 Qdrant */
+    private boolean localEnabled = true;
+
+    /** 快照目录，为空时不落盘（重启后从 Qdrant 加载） */
+    private String snapshotDir = "data/vector-index";
+}
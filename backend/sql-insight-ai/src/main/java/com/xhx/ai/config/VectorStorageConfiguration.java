@@ -10,7 +10,8 @@ import org.springframework.context.annotation.Configuration;
  * @author master
  */
 @Configuration
-@EnableConfigurationProperties({QdrantProperties.class, AliyunAiProperties.class})
+@EnableConfigurationProperties({QdrantProperties.class, AliyunAiProperties.class, VectorIndexProperties.class,
+        MicroBatchProperties.class, EmbeddingProperties.class})
 public class VectorStorageConfiguration {
 
     @Bean(destroyMethod = "close")
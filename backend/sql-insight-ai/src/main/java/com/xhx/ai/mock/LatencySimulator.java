@@ -0,0 +1,45 @@
+package com.xhx.ai.mock;
+
+import com.xhx.ai.config.LoadTestProperties.Latency;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按配置的延迟分布休眠，模拟外部接口耗时
+ *
+ * @author master
+ */
+final class LatencySimulator {
+
+    private LatencySimulator() {
+    }
+
+    static void sleep(Latency latency) {
+        sleep(sample(latency));
+    }
+
+    static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static long sample(Latency latency) {
+        if (latency == null) {
+            return 0;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long jitter = Math.max(0, latency.getJitterMs());
+        long value = switch (latency.getDistribution()) {
+            case FIXED -> latency.getMeanMs();
+            case UNIFORM -> latency.getMeanMs() + (jitter == 0 ? 0 : random.nextLong(-jitter, jitter + 1));
+            case NORMAL -> Math.round(latency.getMeanMs() + random.nextGaussian() * jitter);
+        };
+        return Math.max(0, value);
+    }
+}
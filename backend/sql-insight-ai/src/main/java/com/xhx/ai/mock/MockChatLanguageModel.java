@@ -0,0 +1,42 @@
+package com.xhx.ai.mock;
+
+import com.xhx.ai.config.LoadTestProperties;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.List;
+
+/**
+ * 压测用阻塞式 LLM：按配置延迟休眠后返回规则生成的应答
+ *
+ * @author master
+ */
+public class MockChatLanguageModel implements ChatLanguageModel {
+
+    private final LoadTestProperties properties;
+    private final MockResponder responder;
+
+    public MockChatLanguageModel(LoadTestProperties properties) {
+        this.properties = properties;
+        this.responder = new MockResponder(properties);
+    }
+
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        String reply = responder.reply(messages);
+        LatencySimulator.sleep(properties.getChatLatency());
+        return Response.from(AiMessage.from(reply), usage(messages, reply), FinishReason.STOP);
+    }
+
+    /**
+     * 粗略按字符数估算 token 用量，便于压测报表统计
+     */
+    static TokenUsage usage(List<ChatMessage> messages, String reply) {
+        int input = messages.stream().mapToInt(m -> m.text() == null ? 0 : m.text().length()).sum();
+        return new TokenUsage(input, reply.length());
+    }
+}
@@ -0,0 +1,97 @@
+package com.xhx.ai.mock;
+
+import com.xhx.ai.config.LoadTestProperties;
+import com.xhx.ai.service.EmbeddingProvider;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压测用 Embedding：基于特征哈希生成确定性向量
+ * <p>
+ * 文本按字符 bigram 切分，每个 bigram 哈希到一个维度并按哈希符号位 ±1 累加，
+ * 最后做 L2 归一化。字面相近的文本余弦相似度也较高，
+ * 足以让向量检索链路返回有意义的结果，而不依赖任何外部服务。
+ * <p>
+ * 只替换单次模型调用，缓存、批量切块、并发控制仍走 EmbeddingService。
+ *
+ * @author master
+ */
+@RequiredArgsConstructor
+public class MockEmbeddingProvider implements EmbeddingProvider {
+
+    public static final String NAME = "mock";
+
+    private final LoadTestProperties loadTestProperties;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String modelId() {
+        return "mock-hash-" + loadTestProperties.getEmbeddingDimension();
+    }
+
+    @Override
+    public int dimension() {
+        return loadTestProperties.getEmbeddingDimension();
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return 10;
+    }
+
+    @Override
+    public int maxConcurrency() {
+        return 4;
+    }
+
+    @Override
+    public List<List<Float>> embed(List<String> texts) {
+        LatencySimulator.sleep(loadTestProperties.getEmbeddingLatency());
+        List<List<Float>> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(hashEmbed(text, loadTestProperties.getEmbeddingDimension()));
+        }
+        return vectors;
+    }
+
+    static List<Float> hashEmbed(String text, int dimension) {
+        float[] vector = new float[dimension];
+        String normalized = text == null ? "" : text.toLowerCase();
+        if (normalized.length() < 2) {
+            normalized = normalized + " ";
+        }
+        for (int i = 0; i + 1 < normalized.length(); i++) {
+            long hash = fnv1a(normalized.substring(i, i + 2));
+            int index = (int) Long.remainderUnsigned(hash, dimension);
+            vector[index] += (hash >>> 63) == 0 ? 1f : -1f;
+        }
+
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float scale = norm == 0 ? 0f : (float) (1.0 / Math.sqrt(norm));
+
+        List<Float> result = new ArrayList<>(dimension);
+        for (float v : vector) {
+            result.add(v * scale);
+        }
+        return result;
+    }
+
+    private static long fnv1a(String token) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : token.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
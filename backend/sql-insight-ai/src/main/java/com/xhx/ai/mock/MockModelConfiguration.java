@@ -0,0 +1,48 @@
+package com.xhx.ai.mock;
+
+import com.xhx.ai.config.LoadTestProperties;
+import com.xhx.ai.service.EmbeddingProvider;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * 压测模式：用本地模拟实现替换 LLM 和 Embedding
+ * <p>
+ * 启动参数加 {@code --spring.profiles.active=loadtest} 即可，
+ * 即使同时激活了配置真实 API Key 的 profile，模拟 Bean 也会以 @Primary 胜出。
+ * Embedding 以名为 mock 的提供方注册，由 application-loadtest.yml 中的
+ * {@code sql-insight.embedding.provider: mock} 选中。
+ *
+ * @author master
+ */
+@Slf4j
+@Configuration
+@Profile("loadtest")
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class MockModelConfiguration {
+
+    @Bean
+    @Primary
+    public ChatLanguageModel mockChatLanguageModel(LoadTestProperties properties) {
+        log.warn("压测模式已启用：ChatLanguageModel 使用本地模拟实现");
+        return new MockChatLanguageModel(properties);
+    }
+
+    @Bean
+    @Primary
+    public StreamingChatLanguageModel mockStreamingChatLanguageModel(LoadTestProperties properties) {
+        return new MockStreamingChatLanguageModel(properties);
+    }
+
+    @Bean
+    public EmbeddingProvider mockEmbeddingProvider(LoadTestProperties properties) {
+        log.warn("压测模式已启用：Embedding 使用本地哈希向量，维度 {}", properties.getEmbeddingDimension());
+        return new MockEmbeddingProvider(properties);
+    }
+}
@@ -0,0 +1,100 @@
+package com.xhx.ai.mock;
+
+import com.xhx.ai.config.LoadTestProperties;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 模拟 LLM 的应答规则（同步、流式模型共用）
+ * <p>
+ * 按 systemPrompt 区分三类调用：
+ *   - SQL 生成：优先匹配预置 SQL，否则从 Prompt 中的表结构挑一张表生成查询
+ *   - 摘要 + 图表：返回 nl_feedback_prompt 约定的 JSON
+ *   - 纯摘要：返回一句话文本
+ * <p>
+ * 相同输入必然得到相同输出，便于压测结果复现。
+ *
+ * @author master
+ */
+class MockResponder {
+
+    private static final Pattern TABLE_LINE = Pattern.compile("^表名: (\\S+)(?: \\((.*)\\))?(?: \\[约 [^\\]]+ 行\\])?$", Pattern.MULTILINE);
+    private static final Pattern ROW_COUNT = Pattern.compile("查询结果（共 (\\d+) 条");
+    private static final String[] COUNT_KEYWORDS = {"多少", "数量", "总数", "统计", "count"};
+
+    private final LoadTestProperties properties;
+
+    MockResponder(LoadTestProperties properties) {
+        this.properties = properties;
+    }
+
+    String reply(List<ChatMessage> messages) {
+        String systemPrompt = "";
+        String question = "";
+        for (ChatMessage message : messages) {
+            if (message instanceof SystemMessage system) {
+                systemPrompt = system.text();
+            } else if (message instanceof UserMessage user) {
+                question = user.singleText();
+            }
+        }
+
+        if (question.startsWith("用户问题：")) {
+            String summary = summarize(question);
+            return systemPrompt.contains("\"summary\"")
+                    ? "{\"summary\": \"" + summary + "\", \"chart\": null}"
+                    : summary;
+        }
+        return generateSql(systemPrompt, question);
+    }
+
+    private String generateSql(String systemPrompt, String question) {
+        for (Map.Entry<String, String> canned : properties.getCannedSql().entrySet()) {
+            if (question.contains(canned.getKey())) {
+                return canned.getValue();
+            }
+        }
+
+        List<String[]> tables = new ArrayList<>();
+        Matcher matcher = TABLE_LINE.matcher(systemPrompt);
+        while (matcher.find()) {
+            tables.add(new String[]{matcher.group(1), matcher.group(2)});
+        }
+        if (tables.isEmpty()) {
+            return "[EXPLAIN] 当前 Schema 中没有可查询的表。";
+        }
+
+        String lowerQuestion = question.toLowerCase();
+        String target = tables.get(0)[0];
+        for (String[] table : tables) {
+            boolean nameHit = lowerQuestion.contains(table[0].toLowerCase());
+            boolean commentHit = table[1] != null && !table[1].isBlank() && question.contains(table[1]);
+            if (nameHit || commentHit) {
+                target = table[0];
+                break;
+            }
+        }
+
+        for (String keyword : COUNT_KEYWORDS) {
+            if (lowerQuestion.contains(keyword)) {
+                return "SELECT COUNT(*) AS total FROM " + target;
+            }
+        }
+        return "SELECT * FROM " + target + " LIMIT 100";
+    }
+
+    private String summarize(String userContent) {
+        Matcher matcher = ROW_COUNT.matcher(userContent);
+        if (!matcher.find() || "0".equals(matcher.group(1))) {
+            return "未找到符合条件的数据";
+        }
+        return "共查询到 " + matcher.group(1) + " 条数据";
+    }
+}
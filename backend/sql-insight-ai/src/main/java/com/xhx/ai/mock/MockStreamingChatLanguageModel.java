@@ -0,0 +1,47 @@
+package com.xhx.ai.mock;
+
+import com.xhx.ai.config.LoadTestProperties;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.Response;
+
+import java.util.List;
+
+/**
+ * 压测用流式 LLM：首 token 延迟后逐字符推送，相邻 token 间隔固定
+ * <p>
+ * 与真实 SDK 一致，在调用线程内同步回调 handler。
+ *
+ * @author master
+ */
+public class MockStreamingChatLanguageModel implements StreamingChatLanguageModel {
+
+    private final LoadTestProperties properties;
+    private final MockResponder responder;
+
+    public MockStreamingChatLanguageModel(LoadTestProperties properties) {
+        this.properties = properties;
+        this.responder = new MockResponder(properties);
+    }
+
+    @Override
+    public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        try {
+            String reply = responder.reply(messages);
+            LatencySimulator.sleep(properties.getStreamingFirstTokenLatency());
+            for (int i = 0; i < reply.length(); i++) {
+                if (i > 0) {
+                    LatencySimulator.sleep(properties.getStreamingTokenIntervalMs());
+                }
+                handler.onNext(String.valueOf(reply.charAt(i)));
+            }
+            handler.onComplete(Response.from(AiMessage.from(reply),
+                    MockChatLanguageModel.usage(messages, reply), FinishReason.STOP));
+        } catch (Exception e) {
+            handler.onError(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.xhx.ai.model;
+
+import java.time.Instant;
+
+/**
+ * 熔断器状态与统计（进程内）
+ *
+ * @param state            当前状态：CLOSED / OPEN / HALF_OPEN
+ * @param failureRate      滑动窗口内失败率
+ * @param slowCallRate     滑动窗口内慢调用率
+ * @param bufferedCalls    滑动窗口内已记录的调用数
+ * @param notPermittedCalls 熔断期间被拒绝的调用总数
+ * @param transitions      状态切换总次数
+ * @param lastTransitionAt 最近一次状态切换时间
+ * @author master
+ */
+public record CircuitBreakerStats(String state, double failureRate, double slowCallRate, int bufferedCalls,
+                                  long notPermittedCalls, long transitions, Instant lastTransitionAt) {
+}
@@ -0,0 +1,48 @@
+package com.xhx.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 查询结果列画像
+ *
+ * @author master
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColumnProfile {
+
+    /** 列名 */
+    private String name;
+
+    /** 列类型（混合类型按分类处理，全空列为 EMPTY） */
+    private Kind kind;
+
+    /** 空值个数 */
+    private long nullCount;
+
+    /** 最小值（数值按数值比较，其余按文本比较），全空时为 null */
+    private String min;
+
+    /** 最大值 */
+    private String max;
+
+    /** 合计，仅数值列有值 */
+    private Double sum;
+
+    /** 不同值个数估算（HyperLogLog） */
+    private long distinctEstimate;
+
+    /** 高频值（近似，按出现次数倒序） */
+    private List<ValueCount> topValues;
+
+    public enum Kind { EMPTY, NUMERIC, TEMPORAL, CATEGORICAL }
+
+    public record ValueCount(String value, long count) {}
+}
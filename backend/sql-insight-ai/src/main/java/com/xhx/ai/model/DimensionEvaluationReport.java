@@ -0,0 +1,28 @@
+package com.xhx.ai.model;
+
+import java.util.List;
+
+/**
+ * 向量维度与召回率评测结果
+ *
+ * @param modelId       被评测的模型标识
+ * @param fullDimension 模型原始输出维度
+ * @param topK          召回评估的 K
+ * @param tables        参与评测的表数
+ * @param questions     有效问题数（标注表至少一张在评测范围内）
+ * @param results       各降维方式、维度下的召回
+ * @author master
+ */
+public record DimensionEvaluationReport(String modelId, int fullDimension, int topK, int tables, int questions,
+                                        List<Row> results) {
+
+    /**
+     * @param method         full（原始维度）/ truncate（Matryoshka 截断）/ pca（按数据源表向量拟合的 PCA 投影）
+     * @param dimension      实际维度（PCA 不超过表数 - 1）
+     * @param recallAtK      Top-K 命中的标注表占全部标注表的平均比例
+     * @param hitRateAtK     Top-K 至少命中一张标注表的问题比例
+     * @param bytesPerVector 单个 float32 向量占用字节数
+     */
+    public record Row(String method, int dimension, double recallAtK, double hitRateAtK, int bytesPerVector) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.xhx.ai.model;
+
+import java.util.List;
+
+/**
+ * Embedding 提供方对比评测结果
+ *
+ * @param baseline  作为召回基准的提供方（优先 dashscope）
+ * @param topK      召回评估的 K
+ * @param tables    参与评测的表数
+ * @param questions 参与评测的问题数
+ * @param providers 各提供方结果
+ * @author master
+ */
+public record EmbeddingBenchmarkReport(String baseline, int topK, int tables, int questions,
+                                       List<ProviderResult> providers) {
+
+    /**
+     * 单个提供方的评测结果
+     *
+     * @param name           提供方名称
+     * @param modelId        模型标识
+     * @param dimension      向量维度
+     * @param indexMillis    全部表按批向量化的总耗时（毫秒）
+     * @param avgQueryMillis 单条问题向量化平均耗时（毫秒）
+     * @param p50QueryMillis 单条问题向量化 P50 耗时（毫秒）
+     * @param p95QueryMillis 单条问题向量化 P95 耗时（毫秒）
+     * @param recallAtK      Top-K 表与基准 Top-K 的平均重合率，基准失败时为 null
+     * @param error          评测失败原因，成功时为 null
+     */
+    public record ProviderResult(String name, String modelId, int dimension, long indexMillis,
+                                 double avgQueryMillis, double p50QueryMillis, double p95QueryMillis,
+                                 Double recallAtK, String error) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.xhx.ai.model;
+
+/**
+ * 增量索引同步结果
+ *
+ * @param added     新增的表数
+ * @param changed   语义文本变化、重新向量化的表数
+ * @param removed   已从目标库删除、清理向量的表数
+ * @param unchanged 内容哈希一致、跳过向量化的表数
+ * @param failed    新增或变化但向量化 / 写入失败的表数
+ * @author master
+ */
+public record IndexSyncResult(int added, int changed, int removed, int unchanged, int failed) {
+
+    public static IndexSyncResult empty() {
+        return new IndexSyncResult(0, 0, 0, 0, 0);
+    }
+}
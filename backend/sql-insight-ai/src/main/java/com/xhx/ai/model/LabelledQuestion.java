@@ -0,0 +1,13 @@
+package com.xhx.ai.model;
+
+import java.util.List;
+
+/**
+ * 带标注的评测问题
+ *
+ * @param question 自然语言问题
+ * @param tables   回答该问题应召回的表名
+ * @author master
+ */
+public record LabelledQuestion(String question, List<String> tables) {
+}
@@ -0,0 +1,20 @@
+package com.xhx.ai.model;
+
+/**
+ * LLM 响应缓存命中统计（进程内累计）
+ *
+ * @param localHits 本地缓存命中次数
+ * @param redisHits Redis 命中次数
+ * @param misses    未命中次数
+ * @param hitRate   命中率（两级合计）
+ * @param localSize 本地缓存当前条目数
+ * @author master
+ */
+public record LlmCacheStats(long localHits, long redisHits, long misses, double hitRate, long localSize) {
+
+    public static LlmCacheStats of(long localHits, long redisHits, long misses, long localSize) {
+        long lookups = localHits + redisHits + misses;
+        double hitRate = lookups == 0 ? 0 : (double) (localHits + redisHits) / lookups;
+        return new LlmCacheStats(localHits, redisHits, misses, hitRate, localSize);
+    }
+}
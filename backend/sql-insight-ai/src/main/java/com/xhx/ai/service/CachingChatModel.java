@@ -0,0 +1,104 @@
+package com.xhx.ai.service;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 带精确匹配缓存的 ChatLanguageModel 调用入口
+ * <p>
+ * 两个模型均为 temperature 0，字节级相同的消息列表必然得到相同的输出，
+ * 因此以「模型名 + 完整消息列表」的 SHA-256 作为缓存 key，命中时直接返回，
+ * 重跑、重试等重复请求不再消耗模型调用。
+ * <p>
+ * 调用方通过 cacheable 决定哪些响应可以缓存（如 EXPLAIN 不缓存），
+ * 通过 tagger 为响应打上反查标签，以便后续按内容失效。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CachingChatModel {
+
+    private final ChatLanguageModel chatLanguageModel;
+    private final LlmResponseCache  responseCache;
+
+    @Value("${langchain4j.open-ai.chat-model.model-name:default}")
+    private String modelName;
+
+    /**
+     * 读穿缓存：命中直接返回，未命中调用模型并回填
+     */
+    public String generate(List<ChatMessage> messages) {
+        return generate(messages, response -> true, response -> null);
+    }
+
+    /**
+     * 读穿缓存
+     *
+     * @param messages  完整消息列表
+     * @param cacheable 响应是否允许写入缓存
+     * @param tagger    响应的反查标签，返回 null 表示不建立反查
+     * @return 模型响应文本
+     */
+    public String generate(List<ChatMessage> messages,
+                           Predicate<String> cacheable,
+                           Function<String, String> tagger) {
+        String key = cacheKey(messages);
+        String cached = responseCache.get(key);
+        if (cached != null) {
+            log.debug("LLM 响应缓存命中，key: {}", key);
+            return cached;
+        }
+
+        String response = chatLanguageModel.generate(messages).content().text();
+        if (response != null && cacheable.test(response)) {
+            responseCache.put(key, response, tagger.apply(response));
+        }
+        return response;
+    }
+
+    /**
+     * 绕过缓存直接调用模型（如纠错：上一次输出已被证明有误，重放没有意义）
+     */
+    public String generateUncached(List<ChatMessage> messages) {
+        return chatLanguageModel.generate(messages).content().text();
+    }
+
+    /**
+     * 按反查标签失效缓存
+     */
+    public void evict(String tag) {
+        if (tag != null) {
+            responseCache.evictByTag(tag);
+        }
+    }
+
+    private String cacheKey(List<ChatMessage> messages) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(modelName.getBytes(StandardCharsets.UTF_8));
+            for (ChatMessage message : messages) {
+                md.update((byte) 0);
+                md.update(message.type().name().getBytes(StandardCharsets.UTF_8));
+                md.update((byte) 0);
+                md.update(String.valueOf(message.text()).getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
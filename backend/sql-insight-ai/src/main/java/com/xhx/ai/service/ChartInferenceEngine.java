@@ -0,0 +1,118 @@
+package com.xhx.ai.service;
+
+import com.xhx.ai.model.ChartConfigDTO;
+import com.xhx.ai.model.ColumnProfile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 规则图表推断引擎
+ * <p>
+ * 基于 {@link ResultProfiler} 的列画像（类型 + 基数），形状明确时直接确定图表配置，无需调用 LLM：
+ * <ul>
+ *   <li>行数 ≤ 3 或单个标量            → 表格 (table)</li>
+ *   <li>一个时间字段 + 数值字段         → 折线图 (line)</li>
+ *   <li>一个分类字段 + 数值字段         → 柱状图 (bar)，问题带占比语义且类别较少时 → 饼图 (pie)</li>
+ * </ul>
+ * 其余形状（多个分类字段、纯数值字段等）视为不明确，返回 null，交由 LLM 推荐。
+ * <p>
+ * 规则与 nl_feedback_prompt.txt 中的图表选择原则保持一致。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+public class ChartInferenceEngine {
+
+    /** 行数不超过此值时直接用表格展示 */
+    private static final int TABLE_MAX_ROWS = 3;
+
+    /** 饼图最多容纳的类别数，超过后扇区过碎，改用柱状图 */
+    private static final int PIE_MAX_CATEGORIES = 8;
+
+    /** 图表标题最大长度 */
+    private static final int TITLE_MAX_LENGTH = 30;
+
+    private static final List<String> SHARE_KEYWORDS =
+            List.of("占比", "比例", "比重", "构成", "分布", "份额");
+
+    /**
+     * 推断图表配置
+     *
+     * @param question 用户原始问题，用于判断占比语义和生成标题
+     * @param rowCount 结果集行数
+     * @param profiles 结果集列画像
+     * @return 形状明确时返回图表配置，否则返回 null
+     */
+    public ChartConfigDTO infer(String question, int rowCount, List<ColumnProfile> profiles) {
+        if (rowCount == 0 || profiles == null || profiles.isEmpty()) {
+            return null;
+        }
+
+        if (rowCount <= TABLE_MAX_ROWS) {
+            List<String> names = profiles.stream().map(ColumnProfile::getName).toList();
+            return chart("table", names.get(0), names.subList(1, names.size()), question);
+        }
+
+        List<String> temporal = new ArrayList<>();
+        List<String> numeric = new ArrayList<>();
+        List<ColumnProfile> categorical = new ArrayList<>();
+        for (ColumnProfile profile : profiles) {
+            switch (profile.getKind()) {
+                case TEMPORAL -> temporal.add(profile.getName());
+                case NUMERIC -> numeric.add(profile.getName());
+                case CATEGORICAL -> categorical.add(profile);
+                default -> { /* 全空列不参与判断 */ }
+            }
+        }
+
+        if (numeric.isEmpty()) {
+            return null;
+        }
+
+        // 时间 + 度量 → 折线图
+        if (temporal.size() == 1 && categorical.isEmpty()) {
+            return chart("line", temporal.get(0), numeric, question);
+        }
+
+        // 分类 + 度量 → 柱状图 / 饼图
+        if (categorical.size() == 1 && temporal.isEmpty()) {
+            ColumnProfile category = categorical.get(0);
+            boolean pie = numeric.size() == 1
+                    && hasShareSemantics(question)
+                    && category.getDistinctEstimate() <= PIE_MAX_CATEGORIES;
+            return chart(pie ? "pie" : "bar", category.getName(), numeric, question);
+        }
+
+        log.debug("[ChartInference] 结果形状不明确（时间 {} / 数值 {} / 分类 {}），交由 LLM 推荐",
+                temporal.size(), numeric.size(), categorical.size());
+        return null;
+    }
+
+    private boolean hasShareSemantics(String question) {
+        return question != null && SHARE_KEYWORDS.stream().anyMatch(question::contains);
+    }
+
+    private ChartConfigDTO chart(String type, String xAxis, List<String> yAxis, String question) {
+        return ChartConfigDTO.builder()
+                .type(type)
+                .xAxis(xAxis)
+                .yAxis(yAxis)
+                .title(title(question))
+                .build();
+    }
+
+    /**
+     * 标题取用户问题本身，去掉句末标点并截断
+     */
+    private String title(String question) {
+        if (question == null || question.isBlank()) {
+            return "查询结果";
+        }
+        String title = question.trim().replaceAll("[？?。.！!]+$", "");
+        return title.length() > TITLE_MAX_LENGTH ? title.substring(0, TITLE_MAX_LENGTH) : title;
+    }
+}
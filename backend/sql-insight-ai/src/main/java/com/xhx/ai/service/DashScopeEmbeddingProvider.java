@@ -0,0 +1,104 @@
+package com.xhx.ai.service;
+
+import com.alibaba.dashscope.embeddings.TextEmbedding;
+import com.alibaba.dashscope.embeddings.TextEmbeddingParam;
+import com.alibaba.dashscope.embeddings.TextEmbeddingResult;
+import com.alibaba.dashscope.embeddings.TextEmbeddingResultItem;
+import com.xhx.ai.config.AliyunAiProperties;
+import com.xhx.common.exception.ErrorCode;
+import com.xhx.common.exception.ServiceException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 阿里云 DashScope Embedding（远程调用，默认实现）
+ *
+ * <p>所有调用共用一个 TextEmbedding 客户端。
+ * {@code aliyun.dashscope.dimension} 不是默认的 1024 时随请求携带 dimension 参数，
+ * 由服务端直接输出低维向量（text-embedding-v3 支持 1024 / 768 / 512 / 256 / 128 / 64）。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DashScopeEmbeddingProvider implements EmbeddingProvider {
+
+    public static final String NAME = "dashscope";
+
+    private static final int DEFAULT_DIMENSION = 1024;
+
+    private final AliyunAiProperties properties;
+
+    private final TextEmbedding textEmbedding = new TextEmbedding();
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * 非默认维度时带上维度（如 text-embedding-v3-512）：同一模型不同维度的向量不能混用缓存和索引
+     */
+    @Override
+    public String modelId() {
+        return properties.getDimension() != DEFAULT_DIMENSION
+                ? properties.getModel() + "-" + properties.getDimension()
+                : properties.getModel();
+    }
+
+    @Override
+    public int dimension() {
+        return properties.getDimension();
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return properties.getBatchSize();
+    }
+
+    @Override
+    public int maxConcurrency() {
+        return properties.getMaxConcurrentRequests();
+    }
+
+    @Override
+    public List<List<Float>> embed(List<String> texts) {
+        try {
+            TextEmbeddingParam.TextEmbeddingParamBuilder<?, ?> builder = TextEmbeddingParam.builder()
+                    .apiKey(properties.getApiKey())
+                    .model(properties.getModel())
+                    .texts(texts);
+            if (properties.getDimension() != DEFAULT_DIMENSION) {
+                builder.parameter("dimension", properties.getDimension());
+            }
+            TextEmbeddingParam param = builder.build();
+
+            TextEmbeddingResult result = textEmbedding.call(param);
+
+            if (result.getOutput() == null || result.getOutput().getEmbeddings() == null
+                    || result.getOutput().getEmbeddings().size() != texts.size()) {
+                throw new ServiceException("AI Embedding 返回结果为空或数量不符");
+            }
+
+            List<List<Float>> vectors = new ArrayList<>(Collections.nCopies(texts.size(), null));
+            for (TextEmbeddingResultItem item : result.getOutput().getEmbeddings()) {
+                vectors.set(item.getTextIndex(), item.getEmbedding()
+                        .stream()
+                        .map(Double::floatValue)
+                        .collect(Collectors.toList()));
+            }
+            return vectors;
+
+        } catch (Exception e) {
+            log.error("调用阿里云 Embedding 接口失败: {}", e.getMessage());
+            throw ErrorCode.EMBEDDING_FAILED.toException(e.getMessage());
+        }
+    }
+}
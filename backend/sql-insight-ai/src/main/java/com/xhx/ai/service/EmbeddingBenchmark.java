@@ -0,0 +1,161 @@
+package com.xhx.ai.service;
+
+import com.xhx.ai.model.EmbeddingBenchmarkReport;
+import com.xhx.common.model.TableMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Embedding 提供方对比评测
+ *
+ * <p>对同一批表和问题，依次用每个已注册的 {@link EmbeddingProvider} 向量化，统计：
+ * <ul>
+ *   <li>表向量化总耗时（按各自的单次上限分批，模拟重建索引）</li>
+ *   <li>单条问题向量化的平均 / P50 / P95 耗时（模拟在线检索）</li>
+ *   <li>召回：每个问题按余弦相似度取 Top-K 表，与基准提供方（优先 dashscope）的 Top-K 求重合率</li>
+ * </ul>
+ * 无需人工标注，衡量的是「换成该模型后检索结果与现状的一致程度」。
+ *
+ * <p>直接调用提供方，不经过 Embedding 缓存，每次评测都会真实消耗模型配额。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmbeddingBenchmark {
+
+    private final List<EmbeddingProvider> providers;
+
+    /**
+     * 单个提供方的原始测量值
+     */
+    private record Run(EmbeddingProvider provider, long indexMillis, long[] queryNanos,
+                       List<List<Integer>> rankings, String error) {}
+
+    public EmbeddingBenchmarkReport run(List<TableMetadata> tables, List<String> questions, int topK) {
+        List<String> tableTexts = tables.stream()
+                .map(t -> EmbeddingService.normalize(SchemaTexts.semanticText(t)))
+                .toList();
+        List<String> questionTexts = questions.stream().map(EmbeddingService::normalize).toList();
+        int k = Math.max(1, Math.min(topK, tables.size()));
+
+        List<Run> runs = providers.stream()
+                .map(p -> measure(p, tableTexts, questionTexts, k))
+                .toList();
+        Run baseline = runs.stream()
+                .filter(r -> DashScopeEmbeddingProvider.NAME.equals(r.provider().name()))
+                .findFirst()
+                .orElse(runs.get(0));
+
+        List<EmbeddingBenchmarkReport.ProviderResult> results = new ArrayList<>(runs.size());
+        for (Run run : runs) {
+            results.add(toResult(run, baseline, k));
+        }
+        return new EmbeddingBenchmarkReport(baseline.provider().name(), k, tables.size(),
+                questions.size(), results);
+    }
+
+    // ==================== 私有方法 ====================
+
+    private Run measure(EmbeddingProvider provider, List<String> tableTexts, List<String> questions, int k) {
+        try {
+            long start = System.nanoTime();
+            List<float[]> tableVectors = new ArrayList<>(tableTexts.size());
+            int batchSize = Math.max(1, provider.maxBatchSize());
+            for (int from = 0; from < tableTexts.size(); from += batchSize) {
+                for (List<Float> v : provider.embed(
+                        tableTexts.subList(from, Math.min(from + batchSize, tableTexts.size())))) {
+                    tableVectors.add(unit(v));
+                }
+            }
+            long indexMillis = (System.nanoTime() - start) / 1_000_000;
+
+            long[] queryNanos = new long[questions.size()];
+            List<List<Integer>> rankings = new ArrayList<>(questions.size());
+            for (int i = 0; i < questions.size(); i++) {
+                long queryStart = System.nanoTime();
+                float[] query = unit(provider.embed(List.of(questions.get(i))).get(0));
+                queryNanos[i] = System.nanoTime() - queryStart;
+                rankings.add(topK(query, tableVectors, k));
+            }
+            log.info("[EmbeddingBenchmark] {} 完成：{} 张表 {} ms，{} 个问题",
+                    provider.name(), tableTexts.size(), indexMillis, questions.size());
+            return new Run(provider, indexMillis, queryNanos, rankings, null);
+        } catch (Exception e) {
+            log.warn("[EmbeddingBenchmark] {} 评测失败: {}", provider.name(), e.getMessage());
+            return new Run(provider, 0, new long[0], null, e.getMessage());
+        }
+    }
+
+    private EmbeddingBenchmarkReport.ProviderResult toResult(Run run, Run baseline, int k) {
+        EmbeddingProvider provider = run.provider();
+        if (run.error() != null) {
+            return new EmbeddingBenchmarkReport.ProviderResult(provider.name(), provider.modelId(),
+                    provider.dimension(), 0, 0, 0, 0, null, run.error());
+        }
+
+        Double recall = null;
+        if (baseline.rankings() != null && !run.rankings().isEmpty()) {
+            double sum = 0;
+            for (int i = 0; i < run.rankings().size(); i++) {
+                Set<Integer> expected = new HashSet<>(baseline.rankings().get(i));
+                sum += run.rankings().get(i).stream().filter(expected::contains).count() / (double) k;
+            }
+            recall = sum / run.rankings().size();
+        }
+
+        long[] sorted = run.queryNanos().clone();
+        Arrays.sort(sorted);
+        return new EmbeddingBenchmarkReport.ProviderResult(provider.name(), provider.modelId(),
+                provider.dimension(), run.indexMillis(),
+                Arrays.stream(sorted).average().orElse(0) / 1_000_000,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), recall, null);
+    }
+
+    private static List<Integer> topK(float[] query, List<float[]> tableVectors, int k) {
+        Integer[] order = new Integer[tableVectors.size()];
+        double[] scores = new double[tableVectors.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            scores[i] = dot(query, tableVectors.get(i));
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        return Arrays.asList(order).subList(0, Math.min(k, order.length));
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float[] unit(List<Float> vector) {
+        float[] v = new float[vector.size()];
+        double norm = 0;
+        for (int i = 0; i < v.length; i++) {
+            v[i] = vector.get(i);
+            norm += v[i] * v[i];
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < v.length; i++) {
+                v[i] *= scale;
+            }
+        }
+        return v;
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+    }
+}
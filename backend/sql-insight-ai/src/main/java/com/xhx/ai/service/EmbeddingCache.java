@@ -0,0 +1,38 @@
+package com.xhx.ai.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Embedding 向量缓存接口（内容寻址，key = 模型名 + 规范化文本的 SHA-256）
+ * 定义在 ai 模块，实现在 core 模块（本地 LRU + Redis 两级）
+ * {@link EmbeddingService} 通过此接口读写缓存，不感知具体存储实现
+ *
+ * @author master
+ */
+public interface EmbeddingCache {
+
+    /**
+     * @return 缓存的向量，未命中返回 null
+     */
+    List<Float> get(String key);
+
+    void put(String key, List<Float> vector);
+
+    /**
+     * 批量查询，默认逐个 get，实现类可覆盖为一次往返
+     *
+     * @return 命中的 key → 向量，未命中的 key 不出现在结果中
+     */
+    default Map<String, List<Float>> getAll(List<String> keys) {
+        Map<String, List<Float>> result = new HashMap<>();
+        for (String key : keys) {
+            List<Float> vector = get(key);
+            if (vector != null) {
+                result.put(key, vector);
+            }
+        }
+        return result;
+    }
+}
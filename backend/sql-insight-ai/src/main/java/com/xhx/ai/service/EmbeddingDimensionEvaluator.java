@@ -0,0 +1,139 @@
+package com.xhx.ai.service;
+
+import com.xhx.ai.model.DimensionEvaluationReport;
+import com.xhx.ai.model.LabelledQuestion;
+import com.xhx.common.model.TableMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * 向量维度 - 召回率评测
+ *
+ * <p>用当前 Embedding 模型对数据源的表和一组带标注的问题各向量化一次（原始维度），
+ * 再对每个候选维度分别做 Matryoshka 截断和 PCA 投影（按本数据源表向量拟合），
+ * 统计 Top-K 召回，用数据决定 {@code truncate-dimension} 取多少。
+ *
+ * <p>直接调用提供方，不经过缓存与截断；原始维度即模型输出维度。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmbeddingDimensionEvaluator {
+
+    private final EmbeddingService embeddingService;
+
+    public DimensionEvaluationReport evaluate(List<TableMetadata> tables, List<LabelledQuestion> questions,
+                                              List<Integer> dimensions, int topK) {
+        EmbeddingProvider provider = embeddingService.provider();
+        List<String> names = tables.stream().map(TableMetadata::getTableName).toList();
+        List<LabelledQuestion> valid = questions.stream()
+                .filter(q -> q.tables() != null && q.tables().stream().anyMatch(names::contains))
+                .toList();
+        int k = Math.max(1, Math.min(topK, tables.size()));
+
+        float[][] tableVectors = embed(provider, tables.stream()
+                .map(t -> EmbeddingService.normalize(SchemaTexts.semanticText(t)))
+                .toList());
+        float[][] questionVectors = embed(provider, valid.stream()
+                .map(q -> EmbeddingService.normalize(q.question()))
+                .toList());
+        int full = tableVectors[0].length;
+
+        List<DimensionEvaluationReport.Row> rows = new ArrayList<>();
+        rows.add(score("full", full, tableVectors, questionVectors, UnaryOperator.identity(), names, valid, k));
+        for (int dimension : new TreeSet<>(dimensions).descendingSet()) {
+            if (dimension <= 0 || dimension >= full) {
+                continue;
+            }
+            rows.add(score("truncate", dimension, tableVectors, questionVectors,
+                    v -> Arrays.copyOf(v, dimension), names, valid, k));
+            if (tables.size() > 2) {
+                PcaProjection pca = PcaProjection.fit(tableVectors, dimension);
+                rows.add(score("pca", pca.dimension(), tableVectors, questionVectors,
+                        pca::project, names, valid, k));
+            }
+        }
+        log.info("[DimensionEval] 模型 {}：{} 张表，{} 个有效问题，{} 组结果",
+                provider.modelId(), tables.size(), valid.size(), rows.size());
+        return new DimensionEvaluationReport(provider.modelId(), full, k, tables.size(), valid.size(), rows);
+    }
+
+    // ==================== 私有方法 ====================
+
+    private float[][] embed(EmbeddingProvider provider, List<String> texts) {
+        float[][] vectors = new float[texts.size()][];
+        int batchSize = Math.max(1, provider.maxBatchSize());
+        for (int from = 0; from < texts.size(); from += batchSize) {
+            List<List<Float>> batch = provider.embed(
+                    texts.subList(from, Math.min(from + batchSize, texts.size())));
+            for (int j = 0; j < batch.size(); j++) {
+                List<Float> v = batch.get(j);
+                float[] array = new float[v.size()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = v.get(i);
+                }
+                vectors[from + j] = array;
+            }
+        }
+        return vectors;
+    }
+
+    private DimensionEvaluationReport.Row score(String method, int dimension, float[][] tableVectors,
+                                                float[][] questionVectors, UnaryOperator<float[]> transform,
+                                                List<String> names, List<LabelledQuestion> questions, int k) {
+        float[][] tables = new float[tableVectors.length][];
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = unit(transform.apply(tableVectors[i]));
+        }
+
+        double recallSum = 0;
+        int hits = 0;
+        for (int i = 0; i < questions.size(); i++) {
+            float[] query = unit(transform.apply(questionVectors[i]));
+            Set<String> expected = new HashSet<>(questions.get(i).tables());
+            expected.retainAll(names);
+            long found = topK(query, tables, k).stream().map(names::get).filter(expected::contains).count();
+            recallSum += (double) found / expected.size();
+            hits += found > 0 ? 1 : 0;
+        }
+        int n = Math.max(1, questions.size());
+        return new DimensionEvaluationReport.Row(method, dimension, recallSum / n, (double) hits / n,
+                dimension * Float.BYTES);
+    }
+
+    private static List<Integer> topK(float[] query, float[][] tables, int k) {
+        Integer[] order = new Integer[tables.length];
+        double[] scores = new double[tables.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            double sum = 0;
+            for (int j = 0; j < query.length; j++) {
+                sum += query[j] * tables[i][j];
+            }
+            scores[i] = sum;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        return Arrays.asList(order).subList(0, Math.min(k, order.length));
+    }
+
+    private static float[] unit(float[] v) {
+        double norm = 0;
+        for (float x : v) {
+            norm += x * x;
+        }
+        float[] result = v.clone();
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < result.length; i++) {
+                result[i] *= scale;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,48 @@
+package com.xhx.ai.service;
+
+import java.util.List;
+
+/**
+ * Embedding 模型提供方
+ *
+ * <p>只负责「一批文本 → 一批向量」这一次模型调用；
+ * 缓存、切块、并发控制、跨请求微批统一由 {@link EmbeddingService} 处理。
+ * 通过 {@code sql-insight.embedding.provider} 按 {@link #name()} 选择生效的实现。
+ *
+ * @author master
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * 配置中引用的名称
+     */
+    String name();
+
+    /**
+     * 模型标识，参与 Embedding 缓存 key 与表内容哈希：换模型后旧缓存自然失效，全部表重新向量化
+     */
+    String modelId();
+
+    /**
+     * 输出向量维度，决定 Qdrant Collection 的向量长度
+     */
+    int dimension();
+
+    /**
+     * 单次调用最多携带的文本数
+     */
+    int maxBatchSize();
+
+    /**
+     * 批量向量化时的最大并发调用数
+     */
+    int maxConcurrency();
+
+    /**
+     * 调用模型生成向量
+     *
+     * @param texts 已规范化的文本，数量不超过 {@link #maxBatchSize()}
+     * @return 与 texts 一一对应的向量
+     */
+    List<List<Float>> embed(List<String> texts);
+}
@@ -0,0 +1,282 @@
+package com.xhx.ai.service;
+
+import com.xhx.ai.config.EmbeddingProperties;
+import com.xhx.ai.config.MicroBatchProperties;
+import com.xhx.common.exception.ErrorCode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedding 调用入口
+ *
+ * <p>模型调用委托给 {@code sql-insight.embedding.provider} 选中的 {@link EmbeddingProvider}
+ * （DashScope 远程 / 本地 ONNX），本类负责与模型无关的部分。
+ *
+ * <p>所有调用先查 {@link EmbeddingCache}：key 为「模型标识 + 规范化文本的 SHA-256」，
+ * 相同文本（重复提问、未变化的表）不再调用模型。
+ * 规范化只做 NFKC、去首尾空白、合并连续空白，不改变大小写等影响语义的内容。
+ *
+ * <p><b>批量：</b>{@link #getVectors} 将未命中缓存的文本按模型单次上限切块，
+ * 各块在 {@link EmbeddingProvider#maxConcurrency()} 个线程内并发调用。
+ * 整块失败时逐条重试，只有真正失败的文本返回 null，不连累同块其他文本。
+ *
+ * <p><b>跨请求微批：</b>{@link #getVector} 未命中缓存的文本交给 {@link MicroBatcher}，
+ * 并发到达的问题在几毫秒内攒成一批，合并为一次模型调用。
+ * 微批在独立线程池中执行，线程数从模型并发上限中预留，索引任务的批量向量化再多也不会让用户问题排队。
+ *
+ * <p><b>降维：</b>{@code sql-insight.embedding.truncate-dimension} 大于 0 时，
+ * 模型输出截取前 N 维并重新归一化（Matryoshka 截断，仅适用于按此方式训练的模型，
+ * 如 text-embedding-v3、bge-m3）。截断发生在缓存和索引之前，Qdrant 与进程内索引存的都是降维后的向量。
+ *
+ * @author master
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmbeddingService {
+
+    private final EmbeddingProperties     properties;
+    private final List<EmbeddingProvider> providers;
+    private final EmbeddingCache          embeddingCache;
+    private final MicroBatchProperties    microBatchProperties;
+
+    private EmbeddingProvider provider;
+
+    /** 生效的截断维度，0 表示不截断 */
+    private int truncateDimension;
+
+    /** 批量向量化（索引任务） */
+    private ExecutorService embeddingExecutor;
+
+    /** 问题向量化微批，与批量向量化隔离 */
+    private ExecutorService questionExecutor;
+
+    private MicroBatcher<String, List<Float>> questionBatcher;
+
+    @PostConstruct
+    public void init() {
+        provider = providers.stream()
+                .filter(p -> p.name().equalsIgnoreCase(properties.getProvider()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("未找到 Embedding 提供方 [" + properties.getProvider()
+                        + "]，可选: " + providers.stream().map(EmbeddingProvider::name).toList()));
+        int truncate = properties.getTruncateDimension();
+        if (truncate > 0 && truncate < provider.dimension()) {
+            truncateDimension = truncate;
+        } else if (truncate > 0) {
+            log.warn("[Embedding] 截断维度 {} 不小于模型维度 {}，不做截断", truncate, provider.dimension());
+        }
+        log.info("[Embedding] 使用 {}，模型 {}，维度 {}", provider.name(), provider.modelId(), dimension());
+
+        int reserved = microBatchProperties.isEnabled() ? Math.max(1, microBatchProperties.getEmbeddingThreads()) : 0;
+        embeddingExecutor = newExecutor("embedding-worker-", Math.max(1, provider.maxConcurrency() - reserved));
+        if (microBatchProperties.isEnabled()) {
+            questionExecutor = newExecutor("embedding-question-", reserved);
+            questionBatcher = new MicroBatcher<>("embedding",
+                    Math.min(microBatchProperties.getEmbeddingBatchSize(), provider.maxBatchSize()),
+                    microBatchProperties.getMaxDelayMs(), this::embedChunk, questionExecutor);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (questionBatcher != null) {
+            questionBatcher.close();
+            questionExecutor.shutdown();
+        }
+        embeddingExecutor.shutdown();
+    }
+
+    /**
+     * 当前模型标识（参与表内容哈希，换模型后全部表重新向量化）
+     */
+    public String modelId() {
+        return truncateDimension > 0 ? provider.modelId() + "@" + truncateDimension : provider.modelId();
+    }
+
+    /**
+     * 当前输出维度（截断后）
+     */
+    public int dimension() {
+        return truncateDimension > 0 ? truncateDimension : provider.dimension();
+    }
+
+    /**
+     * 当前生效的提供方（评测工具用其取原始维度向量）
+     */
+    public EmbeddingProvider provider() {
+        return provider;
+    }
+
+    /**
+     * 将文本转化为向量
+     * @param text 用户问题或表描述
+     * @return {@link #dimension()} 维的 Float 向量列表
+     */
+    public List<Float> getVector(String text) {
+        String normalized = normalize(text);
+        String key = cacheKey(normalized);
+        List<Float> cached = embeddingCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<Float> vector = questionBatcher != null
+                ? awaitBatched(normalized)
+                : embedModel(List.of(normalized)).get(0);
+        embeddingCache.put(key, vector);
+        return vector;
+    }
+
+    /**
+     * 批量向量化
+     *
+     * @param texts 待向量化文本
+     * @return 与 texts 一一对应的向量列表，单条失败的位置为 null
+     */
+    public List<List<Float>> getVectors(List<String> texts) {
+        List<List<Float>> result = new ArrayList<>(Collections.nCopies(texts.size(), null));
+        List<String> keys = new ArrayList<>(texts.size());
+        List<String> normalizedTexts = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            String normalized = normalize(text);
+            normalizedTexts.add(normalized);
+            keys.add(cacheKey(normalized));
+        }
+
+        // 缓存命中直接填充，未命中的按文本去重后再请求
+        Map<String, List<Float>> cached = embeddingCache.getAll(keys);
+        Map<String, List<Integer>> pending = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            List<Float> hit = cached.get(keys.get(i));
+            if (hit != null) {
+                result.set(i, hit);
+            } else {
+                pending.computeIfAbsent(normalizedTexts.get(i), k -> new ArrayList<>()).add(i);
+            }
+        }
+        if (pending.isEmpty()) {
+            return result;
+        }
+
+        List<String> misses = new ArrayList<>(pending.keySet());
+        int batchSize = Math.max(1, provider.maxBatchSize());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int from = 0; from < misses.size(); from += batchSize) {
+            List<String> chunk = misses.subList(from, Math.min(from + batchSize, misses.size()));
+            futures.add(CompletableFuture.runAsync(() -> {
+                List<List<Float>> vectors = embedChunk(chunk);
+                for (int j = 0; j < chunk.size(); j++) {
+                    List<Float> vector = vectors.get(j);
+                    if (vector == null) {
+                        continue;
+                    }
+                    String text = chunk.get(j);
+                    embeddingCache.put(cacheKey(text), vector);
+                    for (int index : pending.get(text)) {
+                        result.set(index, vector);
+                    }
+                }
+            }, embeddingExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        return result;
+    }
+
+    private List<Float> awaitBatched(String normalized) {
+        try {
+            return questionBatcher.submit(normalized).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("调用 Embedding 模型失败: {}", cause.getMessage());
+            throw ErrorCode.EMBEDDING_FAILED.toException(cause.getMessage());
+        }
+    }
+
+    private static ExecutorService newExecutor(String prefix, int threads) {
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r);
+            t.setName(prefix + t.getId());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 整块请求失败时逐条重试，把失败定位到具体文本
+     */
+    private List<List<Float>> embedChunk(List<String> chunk) {
+        try {
+            return embedModel(chunk);
+        } catch (Exception e) {
+            if (chunk.size() == 1) {
+                return Collections.singletonList(null);
+            }
+            log.warn("Embedding 批量请求失败，逐条重试 {} 条: {}", chunk.size(), e.getMessage());
+            List<List<Float>> vectors = new ArrayList<>(chunk.size());
+            for (String text : chunk) {
+                try {
+                    vectors.add(embedModel(List.of(text)).get(0));
+                } catch (Exception single) {
+                    vectors.add(null);
+                }
+            }
+            return vectors;
+        }
+    }
+
+    private List<List<Float>> embedModel(List<String> texts) {
+        List<List<Float>> vectors = provider.embed(texts);
+        if (truncateDimension == 0) {
+            return vectors;
+        }
+        List<List<Float>> truncated = new ArrayList<>(vectors.size());
+        for (List<Float> vector : vectors) {
+            truncated.add(vector == null ? null : truncate(vector, truncateDimension));
+        }
+        return truncated;
+    }
+
+    /**
+     * 截取前 dimension 维并重新归一化（余弦相似度要求单位向量）
+     */
+    static List<Float> truncate(List<Float> vector, int dimension) {
+        List<Float> head = vector.subList(0, Math.min(dimension, vector.size()));
+        double norm = 0;
+        for (float v : head) {
+            norm += v * v;
+        }
+        float scale = norm == 0 ? 0f : (float) (1.0 / Math.sqrt(norm));
+        List<Float> result = new ArrayList<>(head.size());
+        for (float v : head) {
+            result.add(v * scale);
+        }
+        return result;
+    }
+
+    static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).trim().replaceAll("\\s+", " ");
+    }
+
+    private String cacheKey(String normalized) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return modelId() + ":" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
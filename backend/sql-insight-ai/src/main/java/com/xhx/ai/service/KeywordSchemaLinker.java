@@ -1,12 +1,13 @@
 package com.xhx.ai.service;
 
-import com.xhx.common.model.ColumnMetadata;
+import com.xhx.ai.service.SchemaTokenIndex.Posting;
 import com.xhx.common.model.TableMetadata;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 /**
@@ -18,11 +19,15 @@ import java.util.stream.Collectors;
  * <p><b>评分规则</b>（累加）：
  * <ul>
  *   <li>表名完整出现在问题中         → +10</li>
- *   <li>表注释关键词命中问题         → +8</li>
+ *   <li>表注释关键词命中问题         → +8（仅汉字二元组命中 → +4）</li>
  *   <li>字段名命中问题               → +5（累加，上限 15）</li>
- *   <li>字段注释关键词命中问题       → +3（累加，上限 9）</li>
+ *   <li>字段注释关键词命中问题       → +3（仅汉字二元组命中 → +1；累加，上限 9）</li>
  * </ul>
  *
+ * <p><b>倒排索引</b>：每个数据源一份 {@link SchemaTokenIndex}，首次检索时构建，
+ * 候选表出现未收录的新表时重建，数据源同步时由 core 层调用 {@link #invalidate} 失效。
+ * 评分只遍历问题子串命中的位置，耗时与问题长度相关，与表数量无关。
+ *
  * <p><b>结果兜底层次</b>：
  * <ol>
  *   <li>有表达到阈值 → 取 TOP_N 张（最优路径）</li>
@@ -43,15 +48,20 @@ public class KeywordSchemaLinker implements SchemaLinker {
     private static final int SCORE_THRESHOLD = 5;
 
     // 各维度评分权重
-    private static final int W_TABLE_NAME     = 10;
-    private static final int W_TABLE_COMMENT  = 8;
-    private static final int W_COL_NAME       = 5;
-    private static final int W_COL_COMMENT    = 3;
+    private static final int W_TABLE_NAME           = 10;
+    private static final int W_TABLE_COMMENT        = 8;
+    private static final int W_TABLE_COMMENT_NGRAM  = 4;
+    private static final int W_COL_NAME             = 5;
+    private static final int W_COL_COMMENT          = 3;
+    private static final int W_COL_COMMENT_NGRAM    = 1;
 
     // 字段级累加上限（防止字段多的大表分数虚高）
     private static final int CAP_COL_NAME    = 15;
     private static final int CAP_COL_COMMENT = 9;
 
+    /** dataSourceId → 倒排索引 */
+    private final ConcurrentMap<Long, SchemaTokenIndex> indexes = new ConcurrentHashMap<>();
+
     @Override
     public List<TableMetadata> link(String question, Long dataSourceId,
                                     List<TableMetadata> candidates) {
@@ -60,13 +70,17 @@ public class KeywordSchemaLinker implements SchemaLinker {
         }
 
         String lq = question.toLowerCase();
-
-        // 计算所有表的得分，过滤掉 0 分表，按分数倒序
-        List<ScoredTable> ranked = candidates.stream()
-                .map(t -> new ScoredTable(t, score(lq, t)))
-                .filter(st -> st.score > 0)
-                .sorted(Comparator.comparingInt(ScoredTable::score).reversed())
-                .toList();
+        Map<String, Integer> scores = score(lq, indexFor(dataSourceId, candidates));
+
+        // 只保留候选表（索引可能收录了其他用户可见的表），按分数倒序，同分保持候选顺序
+        List<ScoredTable> ranked = new ArrayList<>();
+        for (TableMetadata candidate : candidates) {
+            Integer score = scores.get(candidate.getTableName());
+            if (score != null && score > 0) {
+                ranked.add(new ScoredTable(candidate, score));
+            }
+        }
+        ranked.sort(Comparator.comparingInt(ScoredTable::score).reversed());
 
         // 兜底层次 3：全部为零分，返回全量候选
         if (ranked.isEmpty()) {
@@ -91,64 +105,76 @@ public class KeywordSchemaLinker implements SchemaLinker {
         return result;
     }
 
-    // ==================== 评分逻辑 ====================
+    /**
+     * 失效指定数据源的倒排索引（数据源同步 / 删除时调用）
+     */
+    public void invalidate(Long dataSourceId) {
+        if (indexes.remove(dataSourceId) != null) {
+            log.debug("[KeywordLinker] 数据源 {} 倒排索引已失效", dataSourceId);
+        }
+    }
 
-    private int score(String lq, TableMetadata table) {
-        int total = 0;
+    // ==================== 索引 ====================
 
-        // 表名：完整命中
-        if (lq.contains(table.getTableName().toLowerCase())) {
-            total += W_TABLE_NAME;
+    private SchemaTokenIndex indexFor(Long dataSourceId, List<TableMetadata> candidates) {
+        if (dataSourceId == null) {
+            return SchemaTokenIndex.build(candidates);
         }
+        return indexes.compute(dataSourceId, (id, existing) -> {
+            if (existing != null && existing.covers(candidates)) {
+                return existing;
+            }
+            // 合并已收录的表与新候选，不同权限的用户逐步补全同一份索引
+            List<TableMetadata> union = new ArrayList<>(candidates);
+            if (existing != null) {
+                union.addAll(existing.tables());
+            }
+            SchemaTokenIndex rebuilt = SchemaTokenIndex.build(union);
+            log.debug("[KeywordLinker] 数据源 {} 倒排索引已构建，共 {} 张表", id, rebuilt.tables().size());
+            return rebuilt;
+        });
+    }
 
-        // 表注释：任意关键词命中
-        if (hasText(table.getTableComment())) {
-            total += keywordHit(lq, table.getTableComment(), W_TABLE_COMMENT);
-        }
+    // ==================== 评分逻辑 ====================
 
-        // 字段级（带上限）
-        if (table.getColumns() != null) {
-            int colNameAcc    = 0;
-            int colCommentAcc = 0;
-
-            for (ColumnMetadata col : table.getColumns()) {
-                if (colNameAcc < CAP_COL_NAME) {
-                    String cn = col.getName().toLowerCase();
-                    // 字段名 ≤ 2 字符容易误匹配（如 id、no），跳过
-                    if (cn.length() > 2 && lq.contains(cn)) {
-                        colNameAcc = Math.min(colNameAcc + W_COL_NAME, CAP_COL_NAME);
-                    }
-                }
-                if (colCommentAcc < CAP_COL_COMMENT
-                        && hasText(col.getComment())
-                        && !"(未命名注释)".equals(col.getComment())) {
-                    colCommentAcc = Math.min(
-                            colCommentAcc + keywordHit(lq, col.getComment(), W_COL_COMMENT),
-                            CAP_COL_COMMENT);
-                }
-            }
-            total += colNameAcc + colCommentAcc;
+    private Map<String, Integer> score(String lq, SchemaTokenIndex index) {
+        Map<String, TableHits> hitsByTable = new HashMap<>();
+        for (Posting posting : index.match(lq)) {
+            hitsByTable.computeIfAbsent(posting.table(), t -> new TableHits()).add(posting);
         }
-
-        return total;
+        Map<String, Integer> scores = new HashMap<>(hitsByTable.size() * 2);
+        hitsByTable.forEach((table, hits) -> scores.put(table, hits.total()));
+        return scores;
     }
 
     /**
-     * 将 text 按标点/空格切词，任意词命中 lq 则返回 hitScore，否则返回 0
+     * 单表命中汇总：表级维度各记一次，字段级按字段去重后带上限累加
      */
-    private int keywordHit(String lq, String text, int hitScore) {
-        String[] words = text.toLowerCase().split("[\\s，。、：；！？,.!?_\\-]+");
-        for (String word : words) {
-            if (word.length() > 1 && lq.contains(word)) {
-                return hitScore;
+    private static final class TableHits {
+        private boolean tableName;
+        private int tableComment;
+        private final Set<Integer> columnNames = new HashSet<>();
+        private final Map<Integer, Integer> columnComments = new HashMap<>();
+
+        void add(Posting posting) {
+            switch (posting.field()) {
+                case TABLE_NAME -> tableName = true;
+                case TABLE_COMMENT -> tableComment = W_TABLE_COMMENT;
+                case TABLE_COMMENT_NGRAM -> tableComment = Math.max(tableComment, W_TABLE_COMMENT_NGRAM);
+                case COLUMN_NAME -> columnNames.add(posting.column());
+                case COLUMN_COMMENT -> columnComments.merge(posting.column(), W_COL_COMMENT, Math::max);
+                case COLUMN_COMMENT_NGRAM -> columnComments.merge(posting.column(), W_COL_COMMENT_NGRAM, Math::max);
             }
         }
-        return 0;
-    }
 
-    private boolean hasText(String s) {
-        return s != null && !s.isBlank();
+        int total() {
+            int colComment = columnComments.values().stream().mapToInt(Integer::intValue).sum();
+            return (tableName ? W_TABLE_NAME : 0)
+                    + tableComment
+                    + Math.min(columnNames.size() * W_COL_NAME, CAP_COL_NAME)
+                    + Math.min(colComment, CAP_COL_COMMENT);
+        }
     }
 
     private record ScoredTable(TableMetadata table, int score) {}
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.xhx.ai.service;
+
+import com.xhx.ai.model.LlmCacheStats;
+
+/**
+ * LLM 响应缓存接口
+ * 定义在 ai 模块，实现在 core 模块（本地 + Redis 两级）
+ * {@link CachingChatModel} 通过此接口读写缓存，不感知具体存储实现
+ *
+ * @author master
+ */
+public interface LlmResponseCache {
+
+    /**
+     * @param key 消息列表 + 模型名的摘要
+     * @return 缓存的响应文本，未命中返回 null
+     */
+    String get(String key);
+
+    /**
+     * @param key      消息列表 + 模型名的摘要
+     * @param response 响应文本
+     * @param tag      可选的反查标签（如清洗后的 SQL），用于按内容失效，可为 null
+     */
+    void put(String key, String response, String tag);
+
+    /**
+     * 按反查标签失效缓存（如某条 SQL 执行失败后，不应再被重放）
+     */
+    void evictByTag(String tag);
+
+    LlmCacheStats stats();
+}
@@ -0,0 +1,102 @@
+package com.xhx.ai.service;
+
+import com.xhx.ai.config.EmbeddingProperties;
+import com.xhx.common.exception.ErrorCode;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.onnx.OnnxEmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.PoolingMode;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 进程内 Embedding：ONNX Runtime 加载本地句向量模型
+ *
+ * <p>不依赖外部网络，单条问题向量化在毫秒级，适合无外网部署或对检索延迟敏感的场景。
+ * 模型与 tokenizer 由 {@code sql-insight.embedding.local.*} 指定，未配置 model-path 时不创建该 Bean。
+ *
+ * <p>一批文本交给 {@link OnnxEmbeddingModel#embedAll}，由其按 CPU 核数并行推理；
+ * 维度在启动时试算一条文本得到，无需手工配置。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "sql-insight.embedding.local", name = "model-path")
+public class LocalEmbeddingProvider implements EmbeddingProvider {
+
+    public static final String NAME = "local";
+
+    private final EmbeddingProperties properties;
+
+    private OnnxEmbeddingModel model;
+    private String modelId;
+    private int dimension;
+
+    @PostConstruct
+    public void init() {
+        EmbeddingProperties.Local local = properties.getLocal();
+        long start = System.currentTimeMillis();
+        model = new OnnxEmbeddingModel(local.getModelPath(), local.getTokenizerPath(),
+                PoolingMode.valueOf(local.getPoolingMode().toUpperCase()));
+        dimension = model.embed("维度探测").content().dimension();
+        modelId = "local-" + fileName(local.getModelPath()) + "-" + dimension;
+        log.info("[LocalEmbedding] 本地模型加载完成: {}，维度 {}，耗时 {} ms",
+                local.getModelPath(), dimension, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public String modelId() {
+        return modelId;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return properties.getLocal().getBatchSize();
+    }
+
+    @Override
+    public int maxConcurrency() {
+        return properties.getLocal().getMaxConcurrentBatches();
+    }
+
+    @Override
+    public List<List<Float>> embed(List<String> texts) {
+        try {
+            List<TextSegment> segments = texts.stream().map(TextSegment::from).toList();
+            List<Embedding> embeddings = model.embedAll(segments).content();
+            List<List<Float>> vectors = new ArrayList<>(embeddings.size());
+            for (Embedding embedding : embeddings) {
+                vectors.add(embedding.vectorAsList());
+            }
+            return vectors;
+        } catch (Exception e) {
+            log.error("本地 Embedding 推理失败: {}", e.getMessage());
+            throw ErrorCode.EMBEDDING_FAILED.toException(e.getMessage());
+        }
+    }
+
+    private static String fileName(String path) {
+        String normalized = path.replace('\\', '/');
+        String parent = normalized.substring(0, Math.max(0, normalized.lastIndexOf('/')));
+        // model.onnx 通常放在以模型名命名的目录下，取目录名更有辨识度
+        return parent.isEmpty() ? normalized : parent.substring(parent.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,489 @@
+package com.xhx.ai.service;
+
+import com.xhx.ai.config.VectorIndexProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 进程内 Schema 向量索引
+ *
+ * <p><b>为什么不每次都查 Qdrant：</b><br>
+ * 每个数据源只有「表数 × 1024 维」个向量，万张表也不过 40MB，
+ * 暴力内积扫描在微秒到亚毫秒级完成，远快于一次 gRPC 往返。
+ * Qdrant 退化为持久化存储，只在进程内索引未加载时兜底检索。
+ *
+ * <p><b>存储：</b><br>
+ * 每个数据源一个不可变 {@link Segment}，向量 L2 归一化后平铺在堆外 FloatBuffer 中，
+ * 内积即余弦相似度（与 Qdrant Cosine 距离的打分一致）。
+ * 写操作以 copy-on-write 方式整体替换 Segment，读操作无锁。
+ *
+ * <p><b>增量写入：</b><br>
+ * {@link #upsert} 只把归一化后的向量暂存到数据源的待合并区，不复制 Segment；
+ * 由调用方在一轮索引任务结束时调用 {@link #flush}，一次性合并为新 Segment 并写快照。
+ * 一轮任务中每张表只复制一次，flush 之前检索仍使用旧 Segment（未加载的数据源走 Qdrant）。
+ *
+ * <p><b>快照：</b><br>
+ * flush 时写入 {@code {snapshotDir}/ds-{id}.vec}；同一数据源的快照写入串行执行，总是写入当时最新的 Segment。
+ * 启动时以只读方式内存映射加载，映射区直接作为向量存储，不再拷贝到堆内。快照缺失时由调用方从 Qdrant 加载。
+ *
+ * <p><b>多实例：</b><br>
+ * 快照只反映本实例写入过的向量。其他实例重建索引后由调用方通过 {@link #reload} 从 Qdrant 重新加载，
+ * 本实例未加载的数据源只删除快照，下次加载时从 Qdrant 读取。
+ *
+ * <p>文件格式（小端）：magic(int) version(int) dim(int) count(int) modelLength(short) modelBytes
+ * [nameLength(short) nameBytes]×count，按 4 字节对齐后接 float[count × dim]。
+ * 模型标识或维度与当前 {@link EmbeddingService} 不一致的快照（切换模型 / 维度后）视为过期，删除后从 Qdrant 加载。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocalVectorIndex {
+
+    private static final int MAGIC   = 0x53495658; // "SIVX"
+    private static final int VERSION = 2;
+
+    private final VectorIndexProperties properties;
+    private final EmbeddingService      embeddingService;
+
+    private final ConcurrentMap<Long, Segment> segments = new ConcurrentHashMap<>();
+
+    /** 数据源 → 待 flush 合并的向量（已归一化，同名后写覆盖），只在 ConcurrentMap 的原子操作内读写 */
+    private final ConcurrentMap<Long, Map<String, float[]>> staged = new ConcurrentHashMap<>();
+
+    /** 有未落盘删除的数据源 */
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    /** 数据源 → 快照写锁，同一数据源的快照读写删串行执行 */
+    private final ConcurrentMap<Long, Object> snapshotLocks = new ConcurrentHashMap<>();
+
+    /**
+     * 检索命中
+     *
+     * @param tableName 表名
+     * @param score     余弦相似度
+     */
+    public record Hit(String tableName, float score) {}
+
+    // ==================== 查询 ====================
+
+    public boolean isLoaded(Long dataSourceId) {
+        return properties.isLocalEnabled() && segments.containsKey(dataSourceId);
+    }
+
+    /**
+     * 暴力检索 Top-K
+     *
+     * @return 按分数倒序的命中列表；数据源未加载时返回 null，由调用方改走 Qdrant
+     */
+    public List<Hit> search(Long dataSourceId, List<Float> query, int limit, float threshold) {
+        if (!properties.isLocalEnabled()) {
+            return null;
+        }
+        Segment segment = segments.get(dataSourceId);
+        if (segment == null) {
+            return null;
+        }
+        if (segment.dim != query.size()) {
+            log.warn("[LocalIndex] 查询向量维度 {} 与索引维度 {} 不一致，dsId: {}",
+                    query.size(), segment.dim, dataSourceId);
+            return null;
+        }
+        return segment.search(normalize(query), limit, threshold);
+    }
+
+    // ==================== 写入 ====================
+
+    /**
+     * 暂存一批表向量（同名覆盖），{@link #flush} 时并入 Segment 并写快照
+     */
+    public void upsert(Long dataSourceId, Map<String, List<Float>> vectors) {
+        if (!properties.isLocalEnabled() || vectors.isEmpty()) {
+            return;
+        }
+        Map<String, float[]> normalized = new HashMap<>(vectors.size() * 2);
+        vectors.forEach((name, vector) -> normalized.put(name, normalize(vector)));
+        staged.merge(dataSourceId, normalized, (pending, batch) -> {
+            pending.putAll(batch);
+            return pending;
+        });
+    }
+
+    /**
+     * 以一份完整向量集替换数据源索引（从 Qdrant 全量加载时使用）
+     */
+    public void replace(Long dataSourceId, Map<String, List<Float>> vectors) {
+        if (!properties.isLocalEnabled()) {
+            return;
+        }
+        if (vectors.isEmpty()) {
+            remove(dataSourceId);
+            return;
+        }
+        Map<String, float[]> normalized = new LinkedHashMap<>(vectors.size() * 2);
+        vectors.forEach((name, vector) -> normalized.put(name, normalize(vector)));
+        // 暂存区（本实例进行中的任务）保留，flush 时并入新 Segment
+        segments.put(dataSourceId, merge(null, normalized));
+        dirty.remove(dataSourceId);
+        writeSnapshot(dataSourceId);
+    }
+
+    /**
+     * 从数据源索引中移除指定表，快照待 {@link #flush} 时写入
+     */
+    public void removeTables(Long dataSourceId, Collection<String> tableNames) {
+        if (!properties.isLocalEnabled() || tableNames.isEmpty()) {
+            return;
+        }
+        Set<String> dropped = new HashSet<>(tableNames);
+        staged.computeIfPresent(dataSourceId, (id, pending) -> {
+            pending.keySet().removeAll(dropped);
+            return pending.isEmpty() ? null : pending;
+        });
+        if (segments.computeIfPresent(dataSourceId, (id, old) -> without(old, dropped)) != null) {
+            dirty.add(dataSourceId);
+        }
+    }
+
+    /**
+     * 将暂存的向量一次性并入 Segment，并把自上次落盘以来的变更写入快照（一轮索引任务结束时调用一次）
+     */
+    public void flush(Long dataSourceId) {
+        Map<String, float[]> pending = staged.remove(dataSourceId);
+        if (pending != null) {
+            segments.compute(dataSourceId, (id, old) -> merge(old, pending));
+        }
+        if (dirty.remove(dataSourceId) || pending != null) {
+            writeSnapshot(dataSourceId);
+        }
+    }
+
+    public void remove(Long dataSourceId) {
+        segments.remove(dataSourceId);
+        staged.remove(dataSourceId);
+        dirty.remove(dataSourceId);
+        deleteSnapshot(dataSourceId);
+    }
+
+    /**
+     * 其他实例更新了数据源向量后重新加载：已加载时从 remoteLoader 读取全量替换（读取期间旧 Segment 照常检索），
+     * 未加载时只删除可能过期的快照
+     *
+     * @param remoteLoader 返回 表名 → 向量，失败时可抛异常
+     */
+    public void reload(Long dataSourceId, Supplier<Map<String, List<Float>>> remoteLoader) {
+        if (!properties.isLocalEnabled()) {
+            return;
+        }
+        if (!segments.containsKey(dataSourceId)) {
+            deleteSnapshot(dataSourceId);
+            return;
+        }
+        Map<String, List<Float>> vectors = remoteLoader.get();
+        replace(dataSourceId, vectors);
+        log.info("[LocalIndex] 数据源 {} 已按其他实例的变更从 Qdrant 重新加载 {} 个向量", dataSourceId, vectors.size());
+    }
+
+    /**
+     * 加载数据源索引：优先内存映射快照，快照不存在时调用 remoteLoader（通常为 Qdrant 全量读取）
+     *
+     * @param remoteLoader 返回 表名 → 向量，失败时可抛异常
+     */
+    public void load(Long dataSourceId, Supplier<Map<String, List<Float>>> remoteLoader) {
+        if (!properties.isLocalEnabled() || segments.containsKey(dataSourceId)) {
+            return;
+        }
+        Segment fromSnapshot = readSnapshot(dataSourceId);
+        if (fromSnapshot != null) {
+            segments.putIfAbsent(dataSourceId, fromSnapshot);
+            log.info("[LocalIndex] 数据源 {} 从快照加载 {} 个向量", dataSourceId, fromSnapshot.names.length);
+            return;
+        }
+        Map<String, List<Float>> vectors = remoteLoader.get();
+        if (!vectors.isEmpty()) {
+            replace(dataSourceId, vectors);
+            log.info("[LocalIndex] 数据源 {} 从 Qdrant 加载 {} 个向量", dataSourceId, vectors.size());
+        }
+    }
+
+    // ==================== Segment ====================
+
+    private static final class Segment {
+
+        private final String[] names;
+        private final int dim;
+        /** 堆外或内存映射，只做绝对位置读取，多线程并发安全 */
+        private final FloatBuffer vectors;
+
+        private Segment(String[] names, int dim, FloatBuffer vectors) {
+            this.names = names;
+            this.dim = dim;
+            this.vectors = vectors;
+        }
+
+        List<Hit> search(float[] query, int limit, float threshold) {
+            PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+            for (int i = 0; i < names.length; i++) {
+                int base = i * dim;
+                float dot = 0f;
+                for (int j = 0; j < dim; j++) {
+                    dot += query[j] * vectors.get(base + j);
+                }
+                if (dot < threshold) {
+                    continue;
+                }
+                if (top.size() < limit) {
+                    top.add(new Hit(names[i], dot));
+                } else if (dot > top.peek().score()) {
+                    top.poll();
+                    top.add(new Hit(names[i], dot));
+                }
+            }
+            List<Hit> result = new ArrayList<>(top);
+            result.sort(Comparator.comparingDouble(Hit::score).reversed());
+            return result;
+        }
+
+        float[] vector(int index) {
+            float[] v = new float[dim];
+            vectors.get(index * dim, v);
+            return v;
+        }
+    }
+
+    /**
+     * 以旧 Segment 为底合并已归一化的新向量：旧向量直接从旧缓冲区按块复制，只分配一次新缓冲区；
+     * 维度变化时丢弃旧数据
+     */
+    private Segment merge(Segment old, Map<String, float[]> updates) {
+        int dim = updates.values().iterator().next().length;
+        List<String> names = new ArrayList<>();
+        List<Integer> keptOld = new ArrayList<>();
+        if (old != null && old.dim == dim) {
+            for (int i = 0; i < old.names.length; i++) {
+                if (!updates.containsKey(old.names[i])) {
+                    names.add(old.names[i]);
+                    keptOld.add(i);
+                }
+            }
+        }
+        List<float[]> added = new ArrayList<>(updates.size());
+        updates.forEach((name, vector) -> {
+            if (vector.length == dim) {
+                names.add(name);
+                added.add(vector);
+            }
+        });
+
+        FloatBuffer buffer = ByteBuffer.allocateDirect(names.size() * dim * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer();
+        for (int i : keptOld) {
+            buffer.put(old.vectors.slice(i * dim, dim));
+        }
+        for (float[] v : added) {
+            buffer.put(v);
+        }
+        return new Segment(names.toArray(new String[0]), dim, buffer);
+    }
+
+    private Segment without(Segment old, Set<String> dropped) {
+        List<Integer> kept = new ArrayList<>(old.names.length);
+        for (int i = 0; i < old.names.length; i++) {
+            if (!dropped.contains(old.names[i])) {
+                kept.add(i);
+            }
+        }
+        if (kept.size() == old.names.length) {
+            return old;
+        }
+        String[] names = new String[kept.size()];
+        FloatBuffer buffer = ByteBuffer.allocateDirect(kept.size() * old.dim * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer();
+        for (int i = 0; i < kept.size(); i++) {
+            names[i] = old.names[kept.get(i)];
+            buffer.put(old.vector(kept.get(i)));
+        }
+        return new Segment(names, old.dim, buffer);
+    }
+
+    private static float[] normalize(List<Float> vector) {
+        float[] v = new float[vector.size()];
+        double norm = 0;
+        for (int i = 0; i < v.length; i++) {
+            v[i] = vector.get(i);
+            norm += v[i] * v[i];
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < v.length; i++) {
+                v[i] *= scale;
+            }
+        }
+        return v;
+    }
+
+    // ==================== 快照 ====================
+
+    private Path snapshotFile(Long dataSourceId) {
+        String dir = properties.getSnapshotDir();
+        if (dir == null || dir.isBlank()) {
+            return null;
+        }
+        return Paths.get(dir, "ds-" + dataSourceId + ".vec");
+    }
+
+    private Object snapshotLock(Long dataSourceId) {
+        return snapshotLocks.computeIfAbsent(dataSourceId, k -> new Object());
+    }
+
+    /**
+     * 写入数据源当前的 Segment；持锁后才读取 Segment，保证后写入的快照不会比先写入的旧
+     */
+    private void writeSnapshot(Long dataSourceId) {
+        Path file = snapshotFile(dataSourceId);
+        if (file == null) {
+            return;
+        }
+        synchronized (snapshotLock(dataSourceId)) {
+            Segment segment = segments.get(dataSourceId);
+            if (segment != null) {
+                writeSnapshot(dataSourceId, file, segment);
+            }
+        }
+    }
+
+    private void writeSnapshot(Long dataSourceId, Path file, Segment segment) {
+        Path tmp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            byte[] model = embeddingService.modelId().getBytes(StandardCharsets.UTF_8);
+            byte[][] nameBytes = new byte[segment.names.length][];
+            int headerSize = 4 * Integer.BYTES + Short.BYTES + model.length;
+            for (int i = 0; i < nameBytes.length; i++) {
+                nameBytes[i] = segment.names[i].getBytes(StandardCharsets.UTF_8);
+                headerSize += Short.BYTES + nameBytes[i].length;
+            }
+            int dataOffset = align4(headerSize);
+            int total = dataOffset + segment.names.length * segment.dim * Float.BYTES;
+
+            ByteBuffer out = ByteBuffer.allocate(total).order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(MAGIC).putInt(VERSION).putInt(segment.dim).putInt(segment.names.length);
+            out.putShort((short) model.length).put(model);
+            for (byte[] name : nameBytes) {
+                out.putShort((short) name.length).put(name);
+            }
+            out.position(dataOffset);
+            FloatBuffer vectors = segment.vectors.duplicate();
+            vectors.clear().limit(segment.names.length * segment.dim);
+            out.asFloatBuffer().put(vectors);
+            out.position(total).flip();
+
+            // 临时文件名唯一，多个进程共用快照目录时也不会写到同一个临时文件
+            tmp = Files.createTempFile(file.getParent(), file.getFileName() + ".", ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+        } catch (IOException e) {
+            log.warn("[LocalIndex] 写入快照失败，dsId: {}: {}", dataSourceId, e.getMessage());
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // 残留的临时文件不影响快照读取
+                }
+            }
+        }
+    }
+
+    private void deleteSnapshot(Long dataSourceId) {
+        Path file = snapshotFile(dataSourceId);
+        if (file == null) {
+            return;
+        }
+        synchronized (snapshotLock(dataSourceId)) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("[LocalIndex] 删除快照失败，dsId: {}: {}", dataSourceId, e.getMessage());
+            }
+        }
+    }
+
+    private Segment readSnapshot(Long dataSourceId) {
+        Path file = snapshotFile(dataSourceId);
+        if (file == null || !Files.exists(file)) {
+            return null;
+        }
+        boolean stale = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION) {
+                log.warn("[LocalIndex] 快照格式不兼容，忽略: {}", file);
+                stale = true;
+                return null;
+            }
+            int dim = mapped.getInt();
+            int count = mapped.getInt();
+            byte[] modelBytes = new byte[mapped.getShort()];
+            mapped.get(modelBytes);
+            String model = new String(modelBytes, StandardCharsets.UTF_8);
+            if (!model.equals(embeddingService.modelId()) || dim != embeddingService.dimension()) {
+                log.warn("[LocalIndex] 快照模型 {}（{} 维）与当前模型 {}（{} 维）不一致，忽略: {}",
+                        model, dim, embeddingService.modelId(), embeddingService.dimension(), file);
+                stale = true;
+                return null;
+            }
+            String[] names = new String[count];
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[mapped.getShort()];
+                mapped.get(name);
+                names[i] = new String(name, StandardCharsets.UTF_8);
+            }
+            mapped.position(align4(mapped.position()));
+            FloatBuffer vectors = mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            if (vectors.remaining() < count * dim) {
+                log.warn("[LocalIndex] 快照文件不完整，忽略: {}", file);
+                return null;
+            }
+            return new Segment(names, dim, vectors);
+        } catch (Exception e) {
+            log.warn("[LocalIndex] 读取快照失败，dsId: {}: {}", dataSourceId, e.getMessage());
+            return null;
+        } finally {
+            if (stale) {
+                deleteSnapshot(dataSourceId);
+            }
+        }
+    }
+
+    private static int align4(int offset) {
+        return (offset + 3) & ~3;
+    }
+}
@@ -0,0 +1,190 @@
+package com.xhx.ai.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 跨请求微批处理器
+ *
+ * <p>把并发到达的单条请求攒成一批，交给 handler 一次处理，再把结果分发回各调用方的 Future。
+ * 满足任一条件即发出一批：
+ * <ul>
+ *   <li>攒够 {@code maxBatchSize} 条</li>
+ *   <li>距本批第一条到达已过 {@code maxDelay}</li>
+ * </ul>
+ * 低负载时每条请求最多多等 {@code maxDelay}（毫秒级，相对外部调用可忽略），
+ * 高负载时外部调用次数按批大小成倍下降。
+ *
+ * <p>handler 返回与输入一一对应的结果列表；某位置为 null 时该调用方以异常结束，
+ * handler 抛异常时整批调用方都以该异常结束。
+ * 一批内部还要再拆分调用时（如按 Collection 分组）用 {@link #ofAsync}：
+ * handler 为每条返回一个 Future，各调用方按自己那条的结果结束，一组失败不影响其他组。
+ *
+ * @param <I> 单条请求
+ * @param <O> 单条结果
+ * @author master
+ */
+@Slf4j
+public final class MicroBatcher<I, O> implements AutoCloseable {
+
+    private record Pending<I, O>(I item, CompletableFuture<O> future) {}
+
+    private final String name;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Function<List<I>, List<CompletableFuture<O>>> handler;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+
+    private List<Pending<I, O>> buffer = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong items   = new AtomicLong();
+
+    /**
+     * @param name         名称（日志与线程名）
+     * @param maxBatchSize 单批最大条数
+     * @param maxDelayMs   单批最长等待时间（毫秒）
+     * @param handler      批处理函数，在 executor 中执行
+     * @param executor     批处理执行线程池
+     */
+    public MicroBatcher(String name, int maxBatchSize, long maxDelayMs,
+                        Function<List<I>, List<O>> handler, Executor executor) {
+        this(name, maxBatchSize, maxDelayMs, executor, items -> {
+            List<O> results = handler.apply(items);
+            return results == null ? null : results.stream().map(CompletableFuture::completedFuture).toList();
+        });
+    }
+
+    /**
+     * @param handler 批处理函数，在 executor 中执行，为每条请求返回一个 Future（应尽快返回，不阻塞等待结果）
+     * @see #MicroBatcher(String, int, long, Function, Executor)
+     */
+    public static <I, O> MicroBatcher<I, O> ofAsync(String name, int maxBatchSize, long maxDelayMs,
+                                                    Function<List<I>, List<CompletableFuture<O>>> handler,
+                                                    Executor executor) {
+        return new MicroBatcher<>(name, maxBatchSize, maxDelayMs, executor, handler);
+    }
+
+    private MicroBatcher(String name, int maxBatchSize, long maxDelayMs, Executor executor,
+                         Function<List<I>, List<CompletableFuture<O>>> handler) {
+        this.name = name;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMs));
+        this.handler = handler;
+        this.executor = executor;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r);
+            t.setName("micro-batch-" + name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public CompletableFuture<O> submit(I item) {
+        Pending<I, O> pending = new Pending<>(item, new CompletableFuture<>());
+        List<Pending<I, O>> full = null;
+        synchronized (this) {
+            buffer.add(pending);
+            if (buffer.size() >= maxBatchSize) {
+                full = drain();
+            } else if (buffer.size() == 1) {
+                scheduledFlush = timer.schedule(this::flushDue, maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return pending.future();
+    }
+
+    /**
+     * 平均批大小（进程内累计）
+     */
+    public double averageBatchSize() {
+        long b = batches.get();
+        return b == 0 ? 0 : (double) items.get() / b;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        List<Pending<I, O>> rest;
+        synchronized (this) {
+            rest = drain();
+        }
+        rest.forEach(p -> p.future().completeExceptionally(
+                new CancellationException(name + " 微批处理器已关闭")));
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void flushDue() {
+        List<Pending<I, O>> due;
+        synchronized (this) {
+            due = buffer.isEmpty() ? null : drain();
+        }
+        if (due != null) {
+            dispatch(due);
+        }
+    }
+
+    private List<Pending<I, O>> drain() {
+        List<Pending<I, O>> drained = buffer;
+        buffer = new ArrayList<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return drained;
+    }
+
+    private void dispatch(List<Pending<I, O>> batch) {
+        batches.incrementAndGet();
+        items.addAndGet(batch.size());
+        try {
+            executor.execute(() -> handle(batch));
+        } catch (RejectedExecutionException e) {
+            batch.forEach(p -> p.future().completeExceptionally(e));
+        }
+    }
+
+    private void handle(List<Pending<I, O>> batch) {
+        List<CompletableFuture<O>> results;
+        try {
+            results = handler.apply(batch.stream().map(Pending::item).toList());
+        } catch (Throwable t) {
+            batch.forEach(p -> p.future().completeExceptionally(t));
+            return;
+        }
+        log.debug("[MicroBatch] {} 处理一批 {} 条", name, batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<O> caller = batch.get(i).future();
+            CompletableFuture<O> result = results != null && i < results.size() ? results.get(i) : null;
+            if (result == null) {
+                caller.completeExceptionally(missing());
+                continue;
+            }
+            result.whenComplete((value, error) -> {
+                if (error != null) {
+                    caller.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                } else if (value == null) {
+                    caller.completeExceptionally(missing());
+                } else {
+                    caller.complete(value);
+                }
+            });
+        }
+    }
+
+    private IllegalStateException missing() {
+        return new IllegalStateException(name + " 批处理未返回该条结果");
+    }
+}
@@ -2,13 +2,12 @@ package com.xhx.ai.service;
 
 import com.alibaba.fastjson2.JSON;
 import com.xhx.ai.listener.ChatStreamListener;
+import com.xhx.ai.model.ChartConfigDTO;
+import com.xhx.ai.model.ColumnProfile;
 import com.xhx.ai.model.FeedbackResponse;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.data.message.AiMessage;
-import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.chat.StreamingChatLanguageModel;
-import dev.langchain4j.model.output.Response;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ClassPathResource;
@@ -26,8 +25,10 @@ import java.util.Map;
  * <p>
  * 设计原则：
  *   - 使用独立的一次性对话，不写入 ChatMemory，不影响对话历史
- *   - 只传摘要信息（行数 + 前 MAX_SAMPLE_ROWS 行），避免大结果集超 token 限制
+ *   - 只传摘要信息（行数 + 前 MAX_SAMPLE_ROWS 行 CSV 样本 + 列统计），避免大结果集超 token 限制
  *   - 失败时静默降级，不影响主流程
+ *   - 经 {@link CachingChatModel} 调用，重跑同一查询时直接命中缓存
+ *   - 结果形状明确时由 {@link ChartInferenceEngine} 本地确定图表，LLM 只生成摘要
  *
  * @author master
  */
@@ -36,20 +37,28 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class NlFeedbackGenerator {
 
-    private final ChatLanguageModel chatLanguageModel;
+    private final CachingChatModel     chatModel;
+    private final ChartInferenceEngine chartInferenceEngine;
+    private final ResultProfiler       resultProfiler;
 
     /** 传给 AI 的最大样本行数，避免结果集过大导致 token 超限 */
     private static final int MAX_SAMPLE_ROWS = 5;
 
-    private static final String SYSTEM_PROMPT = loadPromptFromFile();
+    /** 样本单元格最大字符数，超长文本截断 */
+    private static final int MAX_CELL_LENGTH = 50;
 
-    private static String loadPromptFromFile() {
+    private static final String SYSTEM_PROMPT = loadPromptFromFile("prompts/nl_feedback_prompt.txt");
+
+    /** 图表已由本地规则确定时使用的纯摘要提示词 */
+    private static final String SUMMARY_PROMPT = loadPromptFromFile("prompts/nl_summary_prompt.txt");
+
+    private static String loadPromptFromFile(String path) {
         try {
-            ClassPathResource resource = new ClassPathResource("prompts/nl_feedback_prompt.txt");
+            ClassPathResource resource = new ClassPathResource(path);
             return resource.getContentAsString(StandardCharsets.UTF_8);
         } catch (IOException e) {
-            log.error("无法加载提示词文件：{}", "prompts/nl_feedback_prompt.txt", e);
-            throw new IllegalStateException("Failed to load prompt file: " + "prompts/nl_feedback_prompt.txt", e);
+            log.error("无法加载提示词文件：{}", path, e);
+            throw new IllegalStateException("Failed to load prompt file: " + path, e);
         }
     }
 
@@ -62,21 +71,15 @@ public class NlFeedbackGenerator {
      * @return FeedbackResponse 包含摘要和图表配置，失败时返回 null
      */
     public FeedbackResponse generateWithChart(String question, String sql, List<Map<String, Object>> data) {
-        String userContent = buildUserContent(question, sql, data);
-
-        try {
-            Response<AiMessage> response = chatLanguageModel.generate(
-                    List.of(
-                            SystemMessage.from(SYSTEM_PROMPT),
-                            UserMessage.from(userContent)
-                    )
-            );
-            String rawText = response.content().text();
-            return parseFeedbackResponse(rawText);
-        } catch (Exception e) {
-            log.warn("阻塞式摘要和图表生成异常：{}", e.getMessage());
-            return null;
+        List<ColumnProfile> profiles = resultProfiler.profile(data);
+        ChartConfigDTO inferred = chartInferenceEngine.infer(question, data.size(), profiles);
+        if (inferred != null) {
+            return FeedbackResponse.builder()
+                    .summary(generateSummary(question, sql, data, profiles))
+                    .chart(inferred)
+                    .build();
         }
+        return generateWithLlmChart(question, sql, data, profiles);
     }
 
     /**
@@ -108,18 +111,21 @@ public class NlFeedbackGenerator {
     public void generateStream(String question, String sql,
                                List<Map<String, Object>> data, ChatStreamListener listener) {
         try {
-            FeedbackResponse feedbackResponse = generateWithChart(question, sql, data);
-            if (feedbackResponse != null) {
-                String summary = feedbackResponse.getSummary();
-                if (summary != null && !summary.isBlank()) {
-                    // 逐字推送 summary，保持流式体验
-                    for (int i = 0; i < summary.length(); i++) {
-                        listener.onSummaryToken(String.valueOf(summary.charAt(i)));
+            List<ColumnProfile> profiles = resultProfiler.profile(data);
+
+            // 图表可由本地规则确定时先行推送，不必等待 LLM
+            ChartConfigDTO inferred = chartInferenceEngine.infer(question, data.size(), profiles);
+            if (inferred != null) {
+                listener.onChartConfig(inferred);
+                pushSummary(generateSummary(question, sql, data, profiles), listener);
+            } else {
+                FeedbackResponse feedbackResponse = generateWithLlmChart(question, sql, data, profiles);
+                if (feedbackResponse != null) {
+                    pushSummary(feedbackResponse.getSummary(), listener);
+                    if (feedbackResponse.getChart() != null) {
+                        listener.onChartConfig(feedbackResponse.getChart());
                     }
                 }
-                if (feedbackResponse.getChart() != null) {
-                    listener.onChartConfig(feedbackResponse.getChart());
-                }
             }
         } catch (Exception e) {
             log.warn("摘要和图表生成失败，静默降级：{}", e.getMessage());
@@ -129,6 +135,59 @@ public class NlFeedbackGenerator {
 
     // ==================== 私有工具方法 ====================
 
+    /**
+     * 摘要和图表配置均由 LLM 生成，失败时返回 null
+     */
+    private FeedbackResponse generateWithLlmChart(String question, String sql,
+                                                  List<Map<String, Object>> data,
+                                                  List<ColumnProfile> profiles) {
+        String userContent = buildUserContent(question, sql, data, profiles);
+
+        try {
+            String rawText = chatModel.generate(
+                    List.of(
+                            SystemMessage.from(SYSTEM_PROMPT),
+                            UserMessage.from(userContent)
+                    )
+            );
+            return parseFeedbackResponse(rawText);
+        } catch (Exception e) {
+            log.warn("阻塞式摘要和图表生成异常：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 只生成摘要（图表已由本地规则确定），失败时返回空串
+     */
+    private String generateSummary(String question, String sql, List<Map<String, Object>> data,
+                                   List<ColumnProfile> profiles) {
+        try {
+            String summary = chatModel.generate(
+                    List.of(
+                            SystemMessage.from(SUMMARY_PROMPT),
+                            UserMessage.from(buildUserContent(question, sql, data, profiles))
+                    )
+            );
+            return summary.trim();
+        } catch (Exception e) {
+            log.warn("摘要生成异常：{}", e.getMessage());
+            return "";
+        }
+    }
+
+    /**
+     * 逐字推送 summary，保持流式体验
+     */
+    private void pushSummary(String summary, ChatStreamListener listener) {
+        if (summary == null || summary.isBlank()) {
+            return;
+        }
+        for (int i = 0; i < summary.length(); i++) {
+            listener.onSummaryToken(String.valueOf(summary.charAt(i)));
+        }
+    }
+
     private FeedbackResponse parseFeedbackResponse(String rawText) {
         try {
             // 尝试提取 JSON（可能包含前后的废话）
@@ -152,9 +211,15 @@ public class NlFeedbackGenerator {
         return text;
     }
 
-    private String buildUserContent(String question, String sql, List<Map<String, Object>> data) {
+    /**
+     * 构造 LLM 输入：问题 + SQL + CSV 样本 + 列统计
+     * <p>
+     * CSV 只写一次表头，比逐行 Map.toString() 省去重复的键名；
+     * 列统计覆盖全量结果，弥补样本只有前几行的不足。
+     */
+    private String buildUserContent(String question, String sql, List<Map<String, Object>> data,
+                                    List<ColumnProfile> profiles) {
         int totalRows = data.size();
-        List<Map<String, Object>> sample = data.stream().limit(MAX_SAMPLE_ROWS).toList();
 
         StringBuilder sb = new StringBuilder();
         sb.append("用户问题：").append(question).append("\n\n");
@@ -163,15 +228,69 @@ public class NlFeedbackGenerator {
         if (totalRows > MAX_SAMPLE_ROWS) {
             sb.append("，以下仅展示前 ").append(MAX_SAMPLE_ROWS).append(" 条样本");
         }
-        sb.append("）：\n");
+        sb.append("，CSV 格式）：\n");
 
         if (data.isEmpty()) {
             sb.append("（无数据）");
-        } else {
-            for (Map<String, Object> row : sample) {
-                sb.append(row).append("\n");
+            return sb.toString();
+        }
+
+        List<String> columns = profiles.stream().map(ColumnProfile::getName).toList();
+        sb.append(String.join(",", columns.stream().map(this::csvCell).toList())).append("\n");
+        for (Map<String, Object> row : data.subList(0, Math.min(MAX_SAMPLE_ROWS, totalRows))) {
+            sb.append(String.join(",", columns.stream()
+                    .map(c -> csvCell(row.get(c)))
+                    .toList())).append("\n");
+        }
+
+        sb.append("\n列统计（基于全部 ").append(totalRows).append(" 条）：\n");
+        for (ColumnProfile profile : profiles) {
+            sb.append("- ").append(describe(profile)).append("\n");
+        }
+        return sb.toString();
+    }
+
+    private String describe(ColumnProfile p) {
+        StringBuilder sb = new StringBuilder(p.getName());
+        switch (p.getKind()) {
+            case NUMERIC -> sb.append(" [数值]");
+            case TEMPORAL -> sb.append(" [时间]");
+            case CATEGORICAL -> sb.append(" [文本]");
+            default -> {
+                return sb.append(" [全空]").toString();
             }
         }
+        if (p.getNullCount() > 0) {
+            sb.append(" 空值 ").append(p.getNullCount());
+        }
+        sb.append(" 范围 ").append(truncate(p.getMin())).append(" ~ ").append(truncate(p.getMax()));
+        if (p.getSum() != null) {
+            sb.append(" 合计 ").append(ResultProfiler.formatNumber(p.getSum()));
+        }
+        sb.append(" 约 ").append(p.getDistinctEstimate()).append(" 个不同值");
+        if (p.getKind() != ColumnProfile.Kind.NUMERIC && !p.getTopValues().isEmpty()) {
+            sb.append(" 高频：").append(String.join("、", p.getTopValues().stream()
+                    .map(v -> truncate(v.value()) + "(" + v.count() + ")")
+                    .toList()));
+        }
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    private String csvCell(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = truncate(String.valueOf(value));
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    private String truncate(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.length() > MAX_CELL_LENGTH ? text.substring(0, MAX_CELL_LENGTH) + "…" : text;
+    }
+}
@@ -0,0 +1,221 @@
+package com.xhx.ai.service;
+
+import com.xhx.ai.config.QdrantProperties;
+import com.xhx.ai.model.CircuitBreakerStats;
+import com.xhx.common.exception.ErrorCode;
+import com.xhx.common.exception.ServiceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Qdrant 调用熔断器
+ *
+ * <p><b>为什么需要：</b><br>
+ * Qdrant 宕机时每次检索都要等满超时才降级关键词匹配，故障期间每个问题都平白多出数秒。
+ * 熔断后直接走降级路径，不再等待。
+ *
+ * <p><b>状态机</b>（基于最近 {@code window-size} 次调用的计数滑动窗口）：
+ * <ul>
+ *   <li>CLOSED：正常放行；窗口内调用数达到 {@code minimum-calls} 后，
+ *       失败率或慢调用率超过阈值即转 OPEN</li>
+ *   <li>OPEN：拒绝所有调用，{@code open-seconds} 后转 HALF_OPEN</li>
+ *   <li>HALF_OPEN：放行 {@code half-open-calls} 次探测，全部成功转 CLOSED，任一失败或过慢转回 OPEN</li>
+ * </ul>
+ * 状态切换记录日志并计数，统计通过 {@link #stats()} 暴露。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+public class QdrantCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * 一次 Qdrant 调用（通常为 {@code future.get(timeout)}）
+     */
+    @FunctionalInterface
+    public interface QdrantCall<T> {
+        T call() throws InterruptedException, ExecutionException, TimeoutException;
+    }
+
+    /**
+     * 熔断期间拒绝调用
+     */
+    public static class CallNotPermittedException extends ServiceException {
+        public CallNotPermittedException() {
+            super(ErrorCode.AI_SERVICE_UNAVAILABLE.getCode(), "Qdrant 熔断中，暂停调用");
+        }
+    }
+
+    private final QdrantProperties.CircuitBreaker config;
+
+    private State   state = State.CLOSED;
+    private long    openedAtNanos;
+    private Instant lastTransitionAt;
+    private int     halfOpenPermits;
+    private int     halfOpenSuccesses;
+
+    /** 滑动窗口：每格记录一次调用结果 */
+    private final boolean[] failedRing;
+    private final boolean[] slowRing;
+    private int ringIndex;
+    private int buffered;
+    private int failedCount;
+    private int slowCount;
+
+    private final AtomicLong notPermittedCalls = new AtomicLong();
+    private final AtomicLong transitions       = new AtomicLong();
+
+    public QdrantCircuitBreaker(QdrantProperties properties) {
+        this.config = properties.getCircuitBreaker();
+        int size = Math.max(1, config.getWindowSize());
+        this.failedRing = new boolean[size];
+        this.slowRing = new boolean[size];
+    }
+
+    /**
+     * 在熔断器保护下执行调用
+     *
+     * @throws CallNotPermittedException 熔断中（或半开探测名额已用完）
+     */
+    public <T> T execute(QdrantCall<T> call)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (!config.isEnabled()) {
+            return call.call();
+        }
+        if (!tryAcquire()) {
+            notPermittedCalls.incrementAndGet();
+            throw new CallNotPermittedException();
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            record(System.nanoTime() - start, false);
+            return result;
+        } catch (InterruptedException e) {
+            // 本地线程被中断，与 Qdrant 健康无关，不计入统计
+            release();
+            throw e;
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            record(System.nanoTime() - start, true);
+            throw e;
+        }
+    }
+
+    /**
+     * 当前是否处于熔断期（不占用半开探测名额，供调用方提前走降级路径）
+     */
+    public synchronized boolean isOpen() {
+        return config.isEnabled() && state == State.OPEN && !openElapsed();
+    }
+
+    public synchronized CircuitBreakerStats stats() {
+        return new CircuitBreakerStats(
+                state.name(),
+                buffered == 0 ? 0 : (double) failedCount / buffered,
+                buffered == 0 ? 0 : (double) slowCount / buffered,
+                buffered,
+                notPermittedCalls.get(),
+                transitions.get(),
+                lastTransitionAt);
+    }
+
+    // ==================== 状态机 ====================
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (!openElapsed()) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits <= 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    private synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    private synchronized void record(long elapsedNanos, boolean failed) {
+        boolean slow = elapsedNanos >= config.getSlowCallMillis() * 1_000_000L;
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failed || slow) {
+                    transitionTo(State.OPEN);
+                } else if (++halfOpenSuccesses >= config.getHalfOpenCalls()) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+            case CLOSED -> {
+                push(failed, slow);
+                if (buffered >= config.getMinimumCalls()
+                        && (failedCount * 100.0 / buffered >= config.getFailureRateThreshold()
+                            || slowCount * 100.0 / buffered >= config.getSlowCallRateThreshold())) {
+                    log.warn("[CircuitBreaker] Qdrant 最近 {} 次调用失败率 {}%，慢调用率 {}%",
+                            buffered, failedCount * 100 / buffered, slowCount * 100 / buffered);
+                    transitionTo(State.OPEN);
+                }
+            }
+            // 熔断前已放行的调用在熔断后返回，结果不再计入
+            case OPEN -> { }
+        }
+    }
+
+    private void push(boolean failed, boolean slow) {
+        if (buffered == failedRing.length) {
+            failedCount -= failedRing[ringIndex] ? 1 : 0;
+            slowCount -= slowRing[ringIndex] ? 1 : 0;
+        } else {
+            buffered++;
+        }
+        failedRing[ringIndex] = failed;
+        slowRing[ringIndex] = slow;
+        failedCount += failed ? 1 : 0;
+        slowCount += slow ? 1 : 0;
+        ringIndex = (ringIndex + 1) % failedRing.length;
+    }
+
+    private void transitionTo(State target) {
+        State from = state;
+        state = target;
+        lastTransitionAt = Instant.now();
+        transitions.incrementAndGet();
+        switch (target) {
+            case OPEN -> openedAtNanos = System.nanoTime();
+            case HALF_OPEN -> {
+                halfOpenPermits = Math.max(1, config.getHalfOpenCalls());
+                halfOpenSuccesses = 0;
+            }
+            case CLOSED -> {
+                buffered = 0;
+                ringIndex = 0;
+                failedCount = 0;
+                slowCount = 0;
+            }
+        }
+        if (target == State.OPEN) {
+            log.warn("[CircuitBreaker] Qdrant 熔断器 {} → OPEN，{} 秒内检索直接降级关键词匹配",
+                    from, config.getOpenSeconds());
+        } else {
+            log.info("[CircuitBreaker] Qdrant 熔断器 {} → {}", from, target);
+        }
+    }
+
+    private boolean openElapsed() {
+        return System.nanoTime() - openedAtNanos >= config.getOpenSeconds() * 1_000_000_000L;
+    }
+}
@@ -0,0 +1,253 @@
+package com.xhx.ai.service;
+
+import com.xhx.ai.config.QdrantProperties;
+import com.xhx.common.exception.ErrorCode;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.Points;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Qdrant Collection 布局与参数
+ *
+ * <p><b>布局：</b><br>
+ * 默认所有数据源共用 {@code collectionName}，检索时按 data_source_id 过滤；
+ * {@code collection-per-data-source} 开启时每个数据源一个 Collection，写入时按需创建。
+ *
+ * <p><b>参数：</b>
+ * <ul>
+ *   <li>data_source_id 建整数 payload 索引（只开精确匹配），过滤不再全量扫描 payload</li>
+ *   <li>HNSW m / payload_m / ef_construct 可配置</li>
+ *   <li>可选 int8 标量量化、向量存磁盘</li>
+ * </ul>
+ * 已存在的 Collection 启动时同步 HNSW 与量化参数（参数未变时 Qdrant 不做任何事），
+ * payload 索引重复创建是幂等的。
+ * 已存在 Collection 的向量维度与当前 Embedding 模型不一致时拒绝使用（切换模型后需更换 collection-name）。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QdrantCollectionManager {
+
+    static final String DATA_SOURCE_ID_FIELD = "data_source_id";
+
+    private static final long TIMEOUT_SECONDS = 10L;
+
+    private final QdrantClient     qdrantClient;
+    private final QdrantProperties properties;
+
+    /** 本实例已确认存在的 Collection */
+    private final Set<String> ensured = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 数据源所在的 Collection
+     */
+    public String collectionFor(Long dataSourceId) {
+        return properties.isCollectionPerDataSource()
+                ? properties.getCollectionName() + "_ds_" + dataSourceId
+                : properties.getCollectionName();
+    }
+
+    /**
+     * 确保共享 Collection 存在（独立 Collection 模式下按数据源在写入时创建，这里不做任何事）
+     */
+    public void ensureSharedCollection(int vectorSize) {
+        if (!properties.isCollectionPerDataSource()) {
+            ensure(properties.getCollectionName(), vectorSize);
+        }
+    }
+
+    /**
+     * 确保数据源所在的 Collection 存在
+     */
+    public void ensureFor(Long dataSourceId, int vectorSize) {
+        String name = collectionFor(dataSourceId);
+        if (!ensured.contains(name)) {
+            ensure(name, vectorSize);
+        }
+    }
+
+    /**
+     * 数据源所在的 Collection 是否存在（共享模式恒为 true；独立模式下尚未写入过的数据源为 false）
+     */
+    public boolean existsFor(Long dataSourceId) {
+        String name = collectionFor(dataSourceId);
+        if (!properties.isCollectionPerDataSource() || ensured.contains(name)) {
+            return true;
+        }
+        try {
+            return qdrantClient.collectionExistsAsync(name).get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ErrorCode.AI_SERVICE_UNAVAILABLE.toException("查询 Collection 被中断");
+        } catch (TimeoutException e) {
+            throw ErrorCode.AI_TIMEOUT.toException("Qdrant 连接超时，请检查服务是否可达");
+        } catch (ExecutionException e) {
+            throw ErrorCode.SCHEMA_LINKING_FAILED.toException(
+                    e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+    }
+
+    /**
+     * 独立 Collection 模式下删除数据源的 Collection
+     *
+     * @return 是否已整体删除（共享模式返回 false，由调用方按过滤条件删除点）
+     */
+    public boolean dropFor(Long dataSourceId) throws ExecutionException, InterruptedException, TimeoutException {
+        if (!properties.isCollectionPerDataSource()) {
+            return false;
+        }
+        String name = collectionFor(dataSourceId);
+        ensured.remove(name);
+        qdrantClient.deleteCollectionAsync(name).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        return true;
+    }
+
+    /**
+     * 检索参数：hnsw_ef 与量化重打分
+     */
+    public Points.SearchParams searchParams() {
+        Points.SearchParams.Builder params = Points.SearchParams.newBuilder();
+        if (properties.getHnsw().getSearchEf() > 0) {
+            params.setHnswEf(properties.getHnsw().getSearchEf());
+        }
+        if (properties.getQuantization().isEnabled()) {
+            params.setQuantization(Points.QuantizationSearchParams.newBuilder()
+                    .setRescore(properties.getQuantization().isRescore())
+                    .build());
+        }
+        return params.build();
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void ensure(String name, int vectorSize) {
+        try {
+            boolean exists = qdrantClient.collectionExistsAsync(name).get(5, TimeUnit.SECONDS);
+            if (exists) {
+                checkVectorSize(name, vectorSize);
+                qdrantClient.updateCollectionAsync(updateRequest(name))
+                        .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                log.info("[Qdrant] Collection [{}] 已存在，已同步 HNSW / 量化参数", name);
+            } else {
+                qdrantClient.createCollectionAsync(createRequest(name, vectorSize))
+                        .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                log.info("[Qdrant] Collection [{}] 创建成功，向量维度: {}，HNSW m={} payload_m={}，量化: {}",
+                        name, vectorSize, properties.getHnsw().getM(), properties.getHnsw().getPayloadM(),
+                        properties.getQuantization().isEnabled() ? "int8" : "无");
+            }
+            createDataSourceIndex(name);
+            ensured.add(name);
+        } catch (TimeoutException e) {
+            throw ErrorCode.AI_TIMEOUT.toException("Qdrant 连接超时，请检查服务是否可达");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ErrorCode.AI_SERVICE_UNAVAILABLE.toException("创建 Collection 被中断");
+        } catch (ExecutionException e) {
+            throw ErrorCode.SCHEMA_LINKING_FAILED.toException(
+                    e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+    }
+
+    /**
+     * 向量维度建库后不可修改，与当前模型不一致时所有写入都会失败，提前报错
+     */
+    private void checkVectorSize(String name, int vectorSize)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        Collections.VectorsConfig config = qdrantClient.getCollectionInfoAsync(name)
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .getConfig().getParams().getVectorsConfig();
+        if (config.hasParams() && config.getParams().getSize() != vectorSize) {
+            throw ErrorCode.SCHEMA_LINKING_FAILED.toException(String.format(
+                    "Collection [%s] 向量维度 %d 与当前 Embedding 模型维度 %d 不一致，请更换 qdrant.collection-name 或删除后重建",
+                    name, config.getParams().getSize(), vectorSize));
+        }
+    }
+
+    private Collections.CreateCollection createRequest(String name, int vectorSize) {
+        Collections.CreateCollection.Builder request = Collections.CreateCollection.newBuilder()
+                .setCollectionName(name)
+                .setVectorsConfig(Collections.VectorsConfig.newBuilder()
+                        .setParams(Collections.VectorParams.newBuilder()
+                                .setSize(vectorSize)
+                                .setDistance(Collections.Distance.Cosine)
+                                .setOnDisk(properties.isOnDiskVectors())
+                                .build())
+                        .build())
+                .setHnswConfig(hnswConfig());
+        if (properties.getQuantization().isEnabled()) {
+            request.setQuantizationConfig(quantizationConfig());
+        }
+        return request.build();
+    }
+
+    private Collections.UpdateCollection updateRequest(String name) {
+        Collections.UpdateCollection.Builder request = Collections.UpdateCollection.newBuilder()
+                .setCollectionName(name)
+                .setHnswConfig(hnswConfig());
+        request.setQuantizationConfig(properties.getQuantization().isEnabled()
+                ? Collections.QuantizationConfigDiff.newBuilder()
+                        .setScalar(scalarQuantization())
+                        .build()
+                : Collections.QuantizationConfigDiff.newBuilder()
+                        .setDisabled(Collections.Disabled.getDefaultInstance())
+                        .build());
+        return request.build();
+    }
+
+    private Collections.HnswConfigDiff hnswConfig() {
+        QdrantProperties.Hnsw hnsw = properties.getHnsw();
+        Collections.HnswConfigDiff.Builder config = Collections.HnswConfigDiff.newBuilder()
+                .setM(hnsw.getM())
+                .setEfConstruct(hnsw.getEfConstruct());
+        if (hnsw.getPayloadM() > 0) {
+            config.setPayloadM(hnsw.getPayloadM());
+        }
+        return config.build();
+    }
+
+    private Collections.QuantizationConfig quantizationConfig() {
+        return Collections.QuantizationConfig.newBuilder()
+                .setScalar(scalarQuantization())
+                .build();
+    }
+
+    private Collections.ScalarQuantization scalarQuantization() {
+        return Collections.ScalarQuantization.newBuilder()
+                .setType(Collections.QuantizationType.Int8)
+                .setQuantile(properties.getQuantization().getQuantile())
+                .setAlwaysRam(properties.getQuantization().isAlwaysRam())
+                .build();
+    }
+
+    /**
+     * data_source_id 整数索引：只需精确匹配，关闭 range 减少索引内存
+     */
+    private void createDataSourceIndex(String name)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        qdrantClient.createPayloadIndexAsync(
+                name,
+                DATA_SOURCE_ID_FIELD,
+                Collections.PayloadSchemaType.Integer,
+                Collections.PayloadIndexParams.newBuilder()
+                        .setIntegerIndexParams(Collections.IntegerIndexParams.newBuilder()
+                                .setLookup(true)
+                                .setRange(false)
+                                .build())
+                        .build(),
+                true,
+                null,
+                null
+        ).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,178 @@
+package com.xhx.ai.service;
+
+import com.xhx.ai.model.ColumnProfile;
+import com.xhx.ai.model.ColumnProfile.Kind;
+import com.xhx.ai.model.ColumnProfile.ValueCount;
+import com.xhx.common.util.HyperLogLog;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 查询结果列画像器
+ * <p>
+ * 一次遍历结果集，为每列统计：类型、空值数、最小/最大值、合计、
+ * 不同值个数（HyperLogLog 估算）、高频值（Space-Saving 近似 Top-K）。
+ * 内存占用与行数无关，只与列数相关。
+ * <p>
+ * 供 {@link NlFeedbackGenerator} 构造紧凑 Prompt、{@link ChartInferenceEngine} 推断图表共用。
+ *
+ * @author master
+ */
+@Component
+public class ResultProfiler {
+
+    /** HyperLogLog 精度，1024 个寄存器，标准误差约 3% */
+    private static final int HLL_PRECISION = 10;
+
+    /** Space-Saving 计数器个数，远大于 TOP_K 以保证高频值准确 */
+    private static final int TOP_K_CAPACITY = 32;
+
+    /** 对外输出的高频值个数 */
+    private static final int TOP_K = 5;
+
+    private static final Pattern DATE_TEXT = Pattern.compile(
+            "^\\d{4}([-/]\\d{1,2}){1,2}([ T]\\d{1,2}:\\d{2}(:\\d{2})?(\\.\\d+)?)?$");
+
+    /**
+     * 计算结果集列画像，列顺序与首行一致
+     *
+     * @param data 查询结果集
+     * @return 列画像列表，结果集为空时返回空列表
+     */
+    public List<ColumnProfile> profile(List<Map<String, Object>> data) {
+        if (data == null || data.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> columns = new ArrayList<>(data.get(0).keySet());
+        List<Accumulator> accumulators = columns.stream().map(c -> new Accumulator()).toList();
+
+        for (Map<String, Object> row : data) {
+            for (int i = 0; i < columns.size(); i++) {
+                accumulators.get(i).add(row.get(columns.get(i)));
+            }
+        }
+
+        List<ColumnProfile> profiles = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            profiles.add(accumulators.get(i).toProfile(columns.get(i)));
+        }
+        return profiles;
+    }
+
+    static Kind kindOf(Object value) {
+        if (value instanceof Number) {
+            return Kind.NUMERIC;
+        }
+        if (value instanceof java.util.Date || value instanceof TemporalAccessor) {
+            return Kind.TEMPORAL;
+        }
+        if (value instanceof CharSequence text && DATE_TEXT.matcher(text).matches()) {
+            return Kind.TEMPORAL;
+        }
+        return Kind.CATEGORICAL;
+    }
+
+    /**
+     * 数值格式化：整数不带小数点，小数去掉末尾多余的 0
+     */
+    static String formatNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    // ==================== 单列累加器 ====================
+
+    private static final class Accumulator {
+
+        private Kind kind = Kind.EMPTY;
+        private long nullCount;
+        private double numMin = Double.POSITIVE_INFINITY;
+        private double numMax = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private String textMin;
+        private String textMax;
+        private final HyperLogLog distinct = new HyperLogLog(HLL_PRECISION);
+        private final Map<String, long[]> counters = new HashMap<>();
+
+        void add(Object value) {
+            if (value == null) {
+                nullCount++;
+                return;
+            }
+            Kind current = kindOf(value);
+            if (kind == Kind.EMPTY) {
+                kind = current;
+            } else if (kind != current) {
+                kind = Kind.CATEGORICAL;
+            }
+
+            String text = String.valueOf(value);
+            if (value instanceof Number number) {
+                double d = number.doubleValue();
+                numMin = Math.min(numMin, d);
+                numMax = Math.max(numMax, d);
+                sum += d;
+            }
+            if (textMin == null || text.compareTo(textMin) < 0) {
+                textMin = text;
+            }
+            if (textMax == null || text.compareTo(textMax) > 0) {
+                textMax = text;
+            }
+            distinct.add(text);
+            offer(text);
+        }
+
+        /**
+         * Space-Saving：命中则计数 +1；计数器满时替换最小计数项，新项继承其计数
+         */
+        private void offer(String text) {
+            long[] counter = counters.get(text);
+            if (counter != null) {
+                counter[0]++;
+                return;
+            }
+            if (counters.size() < TOP_K_CAPACITY) {
+                counters.put(text, new long[]{1});
+                return;
+            }
+            String minKey = null;
+            long minCount = Long.MAX_VALUE;
+            for (Map.Entry<String, long[]> e : counters.entrySet()) {
+                if (e.getValue()[0] < minCount) {
+                    minCount = e.getValue()[0];
+                    minKey = e.getKey();
+                }
+            }
+            counters.remove(minKey);
+            counters.put(text, new long[]{minCount + 1});
+        }
+
+        ColumnProfile toProfile(String name) {
+            boolean numeric = kind == Kind.NUMERIC;
+            List<ValueCount> top = counters.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                    .limit(TOP_K)
+                    .map(e -> new ValueCount(e.getKey(), e.getValue()[0]))
+                    .toList();
+
+            return ColumnProfile.builder()
+                    .name(name)
+                    .kind(kind)
+                    .nullCount(nullCount)
+                    .min(numeric ? formatNumber(numMin) : textMin)
+                    .max(numeric ? formatNumber(numMax) : textMax)
+                    .sum(numeric ? sum : null)
+                    .distinctEstimate(kind == Kind.EMPTY ? 0 : distinct.estimate())
+                    .topValues(top)
+                    .build();
+        }
+    }
+}
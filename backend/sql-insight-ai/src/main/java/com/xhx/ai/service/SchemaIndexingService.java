@@ -1,7 +1,9 @@
 package com.xhx.ai.service;
 
+import com.xhx.ai.model.IndexSyncResult;
 import com.xhx.common.model.TableMetadata;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -19,7 +21,9 @@ import java.util.List;
 public interface SchemaIndexingService {
 
     /**
-     * 确保 Qdrant Collection 存在（幂等，应用启动时调用一次即可）
+     * 确保 Qdrant Collection 存在并同步 HNSW / 量化参数（幂等，应用启动时调用一次即可）
+     *
+     * <p>每数据源独立 Collection 模式下不做任何事，Collection 在首次写入时创建。
      *
      * @param vectorSize 向量维度，须与 Embedding 模型保持一致（text-embedding-v3 = 1024）
      * @throws RuntimeException Qdrant 不可达或建库失败时抛出，调用方决定是否继续
@@ -37,6 +41,38 @@ public interface SchemaIndexingService {
      */
     void upsertTables(Long dataSourceId, List<TableMetadata> tables);
 
+    /**
+     * 以当前元数据为准增量同步数据源的向量索引
+     *
+     * <p>每个点的 payload 中记录语义文本的内容哈希，同步时与已索引的点逐表比对：
+     * 新增和哈希变化的表重新向量化，哈希一致的表跳过，目标库中已不存在的表删除对应的点。
+     *
+     * @param dataSourceId 数据源 ID
+     * @param tables       当前完整的表元数据（须为全集，缺失的表会被视为已删除）
+     * @return 各类变更的表数
+     */
+    IndexSyncResult syncTables(Long dataSourceId, List<TableMetadata> tables);
+
+    /**
+     * 只同步给定的一部分表：按点 ID 读取其内容哈希，向量化新增和变化的表，不做删除
+     *
+     * <p>供分块执行的索引任务使用，配合 {@link #removeMissingTables} 等价于一次 {@link #syncTables}。
+     *
+     * @param dataSourceId 数据源 ID
+     * @param tables       本块表元数据
+     * @return 本块各类变更的表数（removed 恒为 0）
+     */
+    IndexSyncResult indexChangedTables(Long dataSourceId, List<TableMetadata> tables);
+
+    /**
+     * 删除已不在目标库中的表的向量
+     *
+     * @param dataSourceId      数据源 ID
+     * @param currentTableNames 目标库当前的全部表名
+     * @return 删除的表数
+     */
+    int removeMissingTables(Long dataSourceId, Collection<String> currentTableNames);
+
     /**
      * 删除指定数据源的所有向量索引（数据源删除时调用）
      *
@@ -45,4 +81,33 @@ public interface SchemaIndexingService {
      * @param dataSourceId 数据源 ID
      */
     void deleteByDataSource(Long dataSourceId);
-}
\ No newline at end of file
+
+    /**
+     * 加载进程内向量索引（应用启动时调用）
+     *
+     * <p>优先读取本地内存映射快照，快照缺失时从 Qdrant 全量读取。
+     * 单个数据源失败只记录日志，该数据源的检索继续走 Qdrant。
+     *
+     * @param dataSourceIds 数据源 ID 列表
+     */
+    void warmUpLocalIndex(List<Long> dataSourceIds);
+
+    /**
+     * 将本实例暂存的向量并入进程内索引，并把变更写入快照
+     *
+     * <p>{@link #indexChangedTables} 只暂存向量，{@link #removeMissingTables} 只更新内存，
+     * 分块执行的索引任务结束时调用一次，避免每批都复制整个索引、重写整个快照。
+     *
+     * @param dataSourceId 数据源 ID
+     */
+    void flushLocalIndex(Long dataSourceId);
+
+    /**
+     * 其他实例更新了数据源的向量后，从 Qdrant 重新加载本实例的进程内索引
+     *
+     * <p>失败只记录日志，本实例继续使用旧索引。
+     *
+     * @param dataSourceId 数据源 ID
+     */
+    void reloadLocalIndex(Long dataSourceId);
+}
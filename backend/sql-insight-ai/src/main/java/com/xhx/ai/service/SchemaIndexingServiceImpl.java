@@ -1,11 +1,10 @@
 package com.xhx.ai.service;
 
-import com.xhx.ai.config.QdrantProperties;
+import com.xhx.ai.model.IndexSyncResult;
 import com.xhx.common.exception.ErrorCode;
-import com.xhx.common.model.ColumnMetadata;
 import com.xhx.common.model.TableMetadata;
 import io.qdrant.client.QdrantClient;
-import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.JsonWithInt;
 import io.qdrant.client.grpc.Points;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
@@ -13,11 +12,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static io.qdrant.client.PointIdFactory.id;
 import static io.qdrant.client.ValueFactory.value;
@@ -34,9 +35,22 @@ import static io.qdrant.client.VectorsFactory.vectors;
  * {@code UUID.nameUUIDFromBytes("dataSourceId:tableName")} 生成确定性 UUID。<br>
  * 同一张表无论重建多少次，ID 始终相同，配合 upsert 保证幂等无重复数据。
  *
+ * <p><b>Collection：</b><br>
+ * 布局（共享 / 每数据源独立）与 HNSW、量化参数由 {@link QdrantCollectionManager} 统一管理。
+ * 读写调用均经过 {@link QdrantCircuitBreaker}，熔断期间索引任务快速失败，不逐批等待超时。
+ *
+ * <p><b>增量同步：</b><br>
+ * payload 中的 {@code content_hash} 为「模型标识 + 语义文本」的 SHA-256，
+ * {@link #syncTables} 只重新向量化哈希变化的表，并删除已不存在的表。
+ *
  * <p><b>批处理：</b><br>
  * 每批 {@code BATCH_SIZE} 张表，单张向量化失败时跳过并记录，不影响整批其他表。
  *
+ * <p><b>进程内索引同步：</b><br>
+ * 向量化结果先暂存到 {@link LocalVectorIndex}，再 upsert 到 Qdrant；
+ * 整轮同步结束时一次性并入进程内索引并写快照（分块任务由调用方调用 {@link #flushLocalIndex}），
+ * 即使 Qdrant 暂时不可用，本实例的检索也能用上新向量。
+ *
  * @author master
  */
 @Slf4j
@@ -45,12 +59,16 @@ import static io.qdrant.client.VectorsFactory.vectors;
 public class SchemaIndexingServiceImpl implements SchemaIndexingService {
 
     private final QdrantClient           qdrantClient;
-    private final AliyunEmbeddingService embeddingService;
-    private final QdrantProperties       properties;
+    private final EmbeddingService       embeddingService;
+    private final LocalVectorIndex       localVectorIndex;
+    private final QdrantCollectionManager collections;
+    private final QdrantCircuitBreaker   circuitBreaker;
 
     private static final int  BATCH_SIZE             = 20;
     private static final long QDRANT_TIMEOUT_SECONDS = 10L;
-    private static final String PLACEHOLDER_COMMENT  = "(未命名注释)";
+    private static final int  SCROLL_PAGE_SIZE       = 256;
+    private static final String TABLE_NAME_FIELD     = "table_name";
+    private static final String CONTENT_HASH_FIELD   = "content_hash";
 
     private final ExecutorService indexExecutor = Executors.newFixedThreadPool(4, r -> {
         Thread t = new Thread(r);
@@ -61,51 +79,157 @@ public class SchemaIndexingServiceImpl implements SchemaIndexingService {
 
     @Override
     public void ensureCollection(int vectorSize) {
+        collections.ensureSharedCollection(vectorSize);
+    }
+
+    @Override
+    public void upsertTables(Long dataSourceId, List<TableMetadata> tables) {
+        if (tables == null || tables.isEmpty()) {
+            log.warn("[SchemaIndex] 数据源 {} 无可索引的表，跳过", dataSourceId);
+            return;
+        }
+
+        log.info("[SchemaIndex] 开始并行索引数据源 {}，共 {} 张表", dataSourceId, tables.size());
+        int success = indexTables(dataSourceId, tables);
+        localVectorIndex.flush(dataSourceId);
+        log.info("[SchemaIndex] 数据源 {} 索引任务结束：{}/{} 张表成功",
+                dataSourceId, success, tables.size());
+    }
+
+    @Override
+    public IndexSyncResult syncTables(Long dataSourceId, List<TableMetadata> tables) {
+        Map<String, String> indexed = scrollContentHashes(dataSourceId);
+        Set<String> current = tables.stream().map(TableMetadata::getTableName).collect(Collectors.toSet());
+        int removed = deleteMissing(dataSourceId, indexed.keySet(), current);
+
+        IndexSyncResult result = diffAndIndex(dataSourceId, tables, indexed, removed);
+        localVectorIndex.flush(dataSourceId);
+        log.info("[SchemaIndex] 数据源 {} 增量同步完成：新增 {}，变化 {}，删除 {}，未变 {}，失败 {}",
+                dataSourceId, result.added(), result.changed(), result.removed(),
+                result.unchanged(), result.failed());
+        return result;
+    }
+
+    @Override
+    public IndexSyncResult indexChangedTables(Long dataSourceId, List<TableMetadata> tables) {
+        if (tables.isEmpty()) {
+            return IndexSyncResult.empty();
+        }
+        return diffAndIndex(dataSourceId, tables, retrieveContentHashes(dataSourceId, tables), 0);
+    }
+
+    @Override
+    public int removeMissingTables(Long dataSourceId, Collection<String> currentTableNames) {
+        return deleteMissing(dataSourceId, scrollContentHashes(dataSourceId).keySet(),
+                new HashSet<>(currentTableNames));
+    }
+
+    @Override
+    public void deleteByDataSource(Long dataSourceId) {
+        localVectorIndex.remove(dataSourceId);
         try {
-            boolean exists = qdrantClient
-                    .collectionExistsAsync(properties.getCollectionName())
-                    .get(5, TimeUnit.SECONDS);
-
-            if (exists) {
-                log.info("[SchemaIndex] Collection [{}] 已存在，跳过创建",
-                        properties.getCollectionName());
-                return;
+            if (!circuitBreaker.execute(() -> collections.dropFor(dataSourceId))) {
+                circuitBreaker.execute(() -> qdrantClient.deleteAsync(
+                        collections.collectionFor(dataSourceId),
+                        buildDataSourceFilter(dataSourceId)
+                ).get(QDRANT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
             }
 
-            qdrantClient.createCollectionAsync(
-                    Collections.CreateCollection.newBuilder()
-                            .setCollectionName(properties.getCollectionName())
-                            .setVectorsConfig(Collections.VectorsConfig.newBuilder()
-                                    .setParams(Collections.VectorParams.newBuilder()
-                                            .setSize(vectorSize)
-                                            .setDistance(Collections.Distance.Cosine)
-                                            .build())
-                                    .build())
-                            .build()
-            ).get(QDRANT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-
-            log.info("[SchemaIndex] Collection [{}] 创建成功，向量维度: {}",
-                    properties.getCollectionName(), vectorSize);
+            log.info("[SchemaIndex] 数据源 {} 的向量索引已全部删除", dataSourceId);
 
         } catch (TimeoutException e) {
-            throw ErrorCode.AI_TIMEOUT.toException("Qdrant 连接超时，请检查服务是否可达");
+            log.error("[SchemaIndex] 删除数据源 {} 向量索引超时，" +
+                      "残留数据将被相似度阈值过滤", dataSourceId);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            throw ErrorCode.AI_SERVICE_UNAVAILABLE.toException("创建 Collection 被中断");
+            log.error("[SchemaIndex] 删除向量索引被中断，dataSourceId: {}", dataSourceId);
         } catch (ExecutionException e) {
-            throw ErrorCode.SCHEMA_LINKING_FAILED.toException(cause(e));
+            log.error("[SchemaIndex] 删除数据源 {} 向量索引失败: {}",
+                    dataSourceId, cause(e));
+        } catch (QdrantCircuitBreaker.CallNotPermittedException e) {
+            log.error("[SchemaIndex] Qdrant 熔断中，数据源 {} 向量索引未删除，" +
+                      "残留数据将被相似度阈值过滤", dataSourceId);
         }
     }
 
     @Override
-    public void upsertTables(Long dataSourceId, List<TableMetadata> tables) {
-        if (tables == null || tables.isEmpty()) {
-            log.warn("[SchemaIndex] 数据源 {} 无可索引的表，跳过", dataSourceId);
-            return;
+    public void warmUpLocalIndex(List<Long> dataSourceIds) {
+        for (Long dsId : dataSourceIds) {
+            try {
+                localVectorIndex.load(dsId, () -> scrollVectors(dsId));
+            } catch (Exception e) {
+                log.warn("[SchemaIndex] 数据源 {} 进程内索引加载失败，检索将走 Qdrant: {}",
+                        dsId, e.getMessage());
+            }
         }
+    }
 
-        log.info("[SchemaIndex] 开始并行索引数据源 {}，共 {} 张表", dataSourceId, tables.size());
+    @Override
+    public void flushLocalIndex(Long dataSourceId) {
+        localVectorIndex.flush(dataSourceId);
+    }
+
+    @Override
+    public void reloadLocalIndex(Long dataSourceId) {
+        try {
+            localVectorIndex.reload(dataSourceId, () -> scrollVectors(dataSourceId));
+        } catch (Exception e) {
+            log.warn("[SchemaIndex] 数据源 {} 进程内索引重新加载失败，继续使用旧索引: {}",
+                    dataSourceId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("[SchemaIndex] 正在关闭索引线程池...");
+        indexExecutor.shutdown();
+    }
+    // ==================== 私有方法 ====================
+
+    /**
+     * 与已索引的内容哈希比对，只向量化新增和变化的表
+     *
+     * @param indexed 表名 → 已索引的内容哈希
+     */
+    private IndexSyncResult diffAndIndex(Long dataSourceId, List<TableMetadata> tables,
+                                         Map<String, String> indexed, int removed) {
+        List<TableMetadata> toIndex = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int added = 0, changed = 0, unchanged = 0;
+        for (TableMetadata table : tables) {
+            String name = table.getTableName();
+            if (!seen.add(name)) {
+                continue;
+            }
+            String previous = indexed.get(name);
+            if (previous == null) {
+                added++;
+                toIndex.add(table);
+            } else if (!previous.equals(contentHash(SchemaTexts.semanticText(table)))) {
+                changed++;
+                toIndex.add(table);
+            } else {
+                unchanged++;
+            }
+        }
+        int failed = toIndex.isEmpty() ? 0 : toIndex.size() - indexTables(dataSourceId, toIndex);
+        return new IndexSyncResult(added, changed, removed, unchanged, failed);
+    }
 
+    private int deleteMissing(Long dataSourceId, Set<String> indexedNames, Set<String> currentNames) {
+        List<String> removed = indexedNames.stream()
+                .filter(name -> !currentNames.contains(name))
+                .toList();
+        deleteTables(dataSourceId, removed);
+        return removed.size();
+    }
+
+    /**
+     * 分批并行向量化，写入进程内索引和 Qdrant
+     *
+     * @return 成功写入的表数
+     */
+    private int indexTables(Long dataSourceId, List<TableMetadata> tables) {
         List<List<TableMetadata>> batches = partition(tables);
         AtomicInteger successCount = new AtomicInteger(0);
 
@@ -114,8 +238,12 @@ public class SchemaIndexingServiceImpl implements SchemaIndexingService {
                     try {
                         List<Points.PointStruct> points = vectorizeBatch(dataSourceId, batch);
                         if (!points.isEmpty()) {
-                            qdrantClient.upsertAsync(properties.getCollectionName(), points)
-                                    .get(QDRANT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                            localVectorIndex.upsert(dataSourceId, toVectorMap(points));
+                            collections.ensureFor(dataSourceId,
+                                    points.get(0).getVectors().getVector().getDataCount());
+                            circuitBreaker.execute(() -> qdrantClient
+                                    .upsertAsync(collections.collectionFor(dataSourceId), points)
+                                    .get(QDRANT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
                             successCount.addAndGet(points.size());
                         }
                     } catch (Exception e) {
@@ -131,104 +259,199 @@ public class SchemaIndexingServiceImpl implements SchemaIndexingService {
             log.error("[SchemaIndex] 索引任务等待超时或中断", e);
         }
 
-        log.info("[SchemaIndex] 数据源 {} 索引任务结束：{}/{} 张表成功",
-                dataSourceId, successCount.get(), tables.size());
+        return successCount.get();
     }
 
-    @Override
-    public void deleteByDataSource(Long dataSourceId) {
+    /**
+     * 删除指定表的向量点（确定性 ID 直接定位，无需按 payload 过滤）
+     * <p>
+     * 失败只记录日志，残留的点在下次同步时仍会被识别为已删除并重试。
+     */
+    private void deleteTables(Long dataSourceId, List<String> tableNames) {
+        if (tableNames.isEmpty()) {
+            return;
+        }
+        localVectorIndex.removeTables(dataSourceId, tableNames);
+        List<Points.PointId> ids = tableNames.stream()
+                .map(name -> id(deterministicUuid(dataSourceId, name)))
+                .toList();
         try {
-            qdrantClient.deleteAsync(
-                    properties.getCollectionName(),
-                    buildDataSourceFilter(dataSourceId)
-            ).get(QDRANT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-
-            log.info("[SchemaIndex] 数据源 {} 的向量索引已全部删除", dataSourceId);
-
+            circuitBreaker.execute(() -> qdrantClient
+                    .deleteAsync(collections.collectionFor(dataSourceId), ids)
+                    .get(QDRANT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            log.info("[SchemaIndex] 数据源 {} 已删除 {} 张表的向量: {}",
+                    dataSourceId, tableNames.size(), tableNames);
         } catch (TimeoutException e) {
-            log.error("[SchemaIndex] 删除数据源 {} 向量索引超时，" +
-                      "残留数据将被相似度阈值过滤", dataSourceId);
+            log.error("[SchemaIndex] 删除数据源 {} 表向量超时", dataSourceId);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            log.error("[SchemaIndex] 删除向量索引被中断，dataSourceId: {}", dataSourceId);
+            log.error("[SchemaIndex] 删除表向量被中断，dataSourceId: {}", dataSourceId);
         } catch (ExecutionException e) {
-            log.error("[SchemaIndex] 删除数据源 {} 向量索引失败: {}",
-                    dataSourceId, cause(e));
+            log.error("[SchemaIndex] 删除数据源 {} 表向量失败: {}", dataSourceId, cause(e));
+        } catch (QdrantCircuitBreaker.CallNotPermittedException e) {
+            log.error("[SchemaIndex] Qdrant 熔断中，数据源 {} 表向量未删除，下次同步重试", dataSourceId);
         }
     }
 
-    @PreDestroy
-    public void shutdown() {
-        log.info("[SchemaIndex] 正在关闭索引线程池...");
-        indexExecutor.shutdown();
-    }
-    // ==================== 私有方法 ====================
-
     /**
      * 将一批表元数据向量化，单张失败跳过，不影响整批
+     * <p>
+     * 整批文本一次交给 {@link EmbeddingService#getVectors}，
+     * 由其负责按模型上限切块、并发请求，并把失败定位到具体的表。
      */
     private List<Points.PointStruct> vectorizeBatch(Long dataSourceId,
                                                      List<TableMetadata> batch) {
-        List<Points.PointStruct> points = new ArrayList<>(batch.size());
-
-        for (TableMetadata table : batch) {
-            try {
-                String text   = buildSemanticText(table);
-                List<Float> v = embeddingService.getVector(text);
+        List<String> texts = batch.stream().map(SchemaTexts::semanticText).toList();
+        List<List<Float>> vectors = embeddingService.getVectors(texts);
 
-                points.add(Points.PointStruct.newBuilder()
-                        .setId(id(deterministicUuid(dataSourceId, table.getTableName())))
-                        .setVectors(vectors(v))
-                        .putPayload("table_name",    value(table.getTableName()))
-                        .putPayload("data_source_id", value(dataSourceId))
-                        .putPayload("table_comment",
-                                value(table.getTableComment() != null
-                                        ? table.getTableComment() : ""))
-                        .build());
-
-                log.debug("[SchemaIndex] 表 [{}] 向量化完成", table.getTableName());
-
-            } catch (Exception e) {
-                log.error("[SchemaIndex] 表 [{}] 向量化失败，已跳过: {}",
-                        table.getTableName(), e.getMessage());
+        List<Points.PointStruct> points = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            TableMetadata table = batch.get(i);
+            List<Float> v = vectors.get(i);
+            if (v == null) {
+                log.error("[SchemaIndex] 表 [{}] 向量化失败，已跳过", table.getTableName());
+                continue;
             }
+
+            points.add(Points.PointStruct.newBuilder()
+                    .setId(id(deterministicUuid(dataSourceId, table.getTableName())))
+                    .setVectors(vectors(v))
+                    .putPayload(TABLE_NAME_FIELD, value(table.getTableName()))
+                    .putPayload(CONTENT_HASH_FIELD, value(contentHash(texts.get(i))))
+                    .putPayload(QdrantCollectionManager.DATA_SOURCE_ID_FIELD, value(dataSourceId))
+                    .putPayload("table_comment",
+                            value(table.getTableComment() != null
+                                    ? table.getTableComment() : ""))
+                    .build());
         }
+        log.debug("[SchemaIndex] 批次向量化完成：{}/{} 张表", points.size(), batch.size());
         return points;
     }
 
     /**
-     * 构建表的语义描述文本。
-     *
-     * <p>格式：「表名 [表注释] 字段名 [字段注释] …」
-     * 空白注释和占位注释不进入文本，减少向量空间噪音。
+     * 从 Qdrant 分页读取数据源的全部向量（进程内索引无快照时使用）
      */
-    private String buildSemanticText(TableMetadata table) {
-        StringBuilder sb = new StringBuilder(table.getTableName());
+    private Map<String, List<Float>> scrollVectors(Long dataSourceId) {
+        Map<String, List<Float>> vectors = new LinkedHashMap<>();
+        scroll(dataSourceId, List.of(TABLE_NAME_FIELD), true,
+                point -> vectors.put(point.getPayloadMap().get(TABLE_NAME_FIELD).getStringValue(),
+                        point.getVectors().getVector().getDataList()));
+        return vectors;
+    }
 
-        if (meaningful(table.getTableComment())) {
-            sb.append(' ').append(table.getTableComment());
+    /**
+     * 读取数据源已索引的 表名 → 内容哈希（不读向量；旧版本写入的点无哈希，记为空串，视为已变化）
+     */
+    private Map<String, String> scrollContentHashes(Long dataSourceId) {
+        Map<String, String> hashes = new HashMap<>();
+        scroll(dataSourceId, List.of(TABLE_NAME_FIELD, CONTENT_HASH_FIELD), false,
+                point -> collectHash(point, hashes));
+        return hashes;
+    }
+
+    /**
+     * 按确定性点 ID 读取指定表的内容哈希（不存在的点不出现在结果中）
+     */
+    private Map<String, String> retrieveContentHashes(Long dataSourceId, List<TableMetadata> tables) {
+        List<Points.PointId> ids = tables.stream()
+                .map(t -> id(deterministicUuid(dataSourceId, t.getTableName())))
+                .toList();
+        Map<String, String> hashes = new HashMap<>();
+        if (!collections.existsFor(dataSourceId)) {
+            return hashes;
+        }
+        try {
+            List<Points.RetrievedPoint> points = circuitBreaker.execute(() -> qdrantClient
+                    .retrieveAsync(collections.collectionFor(dataSourceId), ids, true, false, null)
+                    .get(QDRANT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            for (Points.RetrievedPoint point : points) {
+                collectHash(point, hashes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ErrorCode.AI_SERVICE_UNAVAILABLE.toException("读取向量被中断");
+        } catch (TimeoutException e) {
+            throw ErrorCode.AI_TIMEOUT.toException("Qdrant 读取向量超时");
+        } catch (ExecutionException e) {
+            throw ErrorCode.SCHEMA_LINKING_FAILED.toException(cause(e));
         }
+        return hashes;
+    }
 
-        if (table.getColumns() != null) {
-            for (ColumnMetadata col : table.getColumns()) {
-                sb.append(' ').append(col.getName());
-                if (meaningful(col.getComment())
-                        && !PLACEHOLDER_COMMENT.equals(col.getComment())) {
-                    sb.append(' ').append(col.getComment());
+    private void collectHash(Points.RetrievedPoint point, Map<String, String> hashes) {
+        Map<String, JsonWithInt.Value> payload = point.getPayloadMap();
+        JsonWithInt.Value hash = payload.get(CONTENT_HASH_FIELD);
+        hashes.put(payload.get(TABLE_NAME_FIELD).getStringValue(),
+                hash != null ? hash.getStringValue() : "");
+    }
+
+    private void scroll(Long dataSourceId, List<String> payloadFields, boolean withVectors,
+                        Consumer<Points.RetrievedPoint> consumer) {
+        if (!collections.existsFor(dataSourceId)) {
+            return;
+        }
+        Points.PointId offset = null;
+        try {
+            do {
+                Points.ScrollPoints.Builder request = Points.ScrollPoints.newBuilder()
+                        .setCollectionName(collections.collectionFor(dataSourceId))
+                        .setFilter(buildDataSourceFilter(dataSourceId))
+                        .setLimit(SCROLL_PAGE_SIZE)
+                        .setWithPayload(Points.WithPayloadSelector.newBuilder()
+                                .setInclude(Points.PayloadIncludeSelector.newBuilder()
+                                        .addAllFields(payloadFields))
+                                .build())
+                        .setWithVectors(Points.WithVectorsSelector.newBuilder().setEnable(withVectors).build());
+                if (offset != null) {
+                    request.setOffset(offset);
                 }
-            }
+                Points.ScrollPoints scrollRequest = request.build();
+                Points.ScrollResponse response = circuitBreaker.execute(() -> qdrantClient
+                        .scrollAsync(scrollRequest)
+                        .get(QDRANT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                response.getResultList().forEach(consumer);
+                offset = response.hasNextPageOffset() ? response.getNextPageOffset() : null;
+            } while (offset != null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ErrorCode.AI_SERVICE_UNAVAILABLE.toException("读取向量被中断");
+        } catch (TimeoutException e) {
+            throw ErrorCode.AI_TIMEOUT.toException("Qdrant 读取向量超时");
+        } catch (ExecutionException e) {
+            throw ErrorCode.SCHEMA_LINKING_FAILED.toException(cause(e));
+        }
+    }
+
+    private Map<String, List<Float>> toVectorMap(List<Points.PointStruct> points) {
+        Map<String, List<Float>> vectors = new LinkedHashMap<>(points.size() * 2);
+        for (Points.PointStruct point : points) {
+            vectors.put(point.getPayloadMap().get(TABLE_NAME_FIELD).getStringValue(),
+                    point.getVectors().getVector().getDataList());
         }
-        return sb.toString();
+        return vectors;
     }
 
     /**
-     * 构建按 data_source_id 过滤的 Qdrant Filter（供 delete 使用）
+     * 内容哈希包含模型标识：切换 Embedding 模型后全部表视为已变化，下一轮同步重新向量化
+     */
+    private String contentHash(String semanticText) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest((embeddingService.modelId() + "\n" + semanticText)
+                    .getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 构建按 data_source_id 过滤的 Qdrant Filter（供 delete / scroll 使用）
      */
     private Points.Filter buildDataSourceFilter(Long dataSourceId) {
         return Points.Filter.newBuilder()
                 .addMust(Points.Condition.newBuilder()
                         .setField(Points.FieldCondition.newBuilder()
-                                .setKey("data_source_id")
+                                .setKey(QdrantCollectionManager.DATA_SOURCE_ID_FIELD)
                                 .setMatch(Points.Match.newBuilder()
                                         .setInteger(dataSourceId)
                                         .build()))
@@ -245,10 +468,6 @@ public class SchemaIndexingServiceImpl implements SchemaIndexingService {
         return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
     }
 
-    private boolean meaningful(String s) {
-        return s != null && !s.isBlank();
-    }
-
     private String cause(ExecutionException e) {
         return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
     }
@@ -0,0 +1,46 @@
+package com.xhx.ai.service;
+
+import com.xhx.common.model.ColumnMetadata;
+import com.xhx.common.model.TableMetadata;
+
+/**
+ * 表的语义描述文本（索引与 Embedding 评测共用，保证两边向量化的是同一段文本）
+ *
+ * @author master
+ */
+final class SchemaTexts {
+
+    private static final String PLACEHOLDER_COMMENT = "(未命名注释)";
+
+    private SchemaTexts() {
+    }
+
+    /**
+     * 构建表的语义描述文本。
+     *
+     * <p>格式：「表名 [表注释] 字段名 [字段注释] …」
+     * 空白注释和占位注释不进入文本，减少向量空间噪音。
+     */
+    static String semanticText(TableMetadata table) {
+        StringBuilder sb = new StringBuilder(table.getTableName());
+
+        if (meaningful(table.getTableComment())) {
+            sb.append(' ').append(table.getTableComment());
+        }
+
+        if (table.getColumns() != null) {
+            for (ColumnMetadata col : table.getColumns()) {
+                sb.append(' ').append(col.getName());
+                if (meaningful(col.getComment())
+                        && !PLACEHOLDER_COMMENT.equals(col.getComment())) {
+                    sb.append(' ').append(col.getComment());
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean meaningful(String s) {
+        return s != null && !s.isBlank();
+    }
+}
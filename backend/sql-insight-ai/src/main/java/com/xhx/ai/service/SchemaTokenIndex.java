@@ -0,0 +1,161 @@
+package com.xhx.ai.service;
+
+import com.xhx.common.model.ColumnMetadata;
+import com.xhx.common.model.TableMetadata;
+
+import java.util.*;
+
+/**
+ * 数据源级 Schema 倒排索引（供 {@link KeywordSchemaLinker} 使用）
+ *
+ * <p>词项 → 命中位置（表 / 字段 / 注释），构建一次后只读，多线程共享。
+ * 匹配时枚举问题的所有子串（长度不超过最长词项）查表，
+ * 耗时只与问题长度相关，与 Schema 规模无关。
+ *
+ * <p><b>词项来源</b>（均小写）：
+ * <ul>
+ *   <li>表名</li>
+ *   <li>字段名（长度 &gt; 2，过短的如 id、no 容易误匹配）</li>
+ *   <li>表 / 字段注释按标点空格切出的词（长度 &gt; 1）</li>
+ *   <li>注释中连续汉字的二元组（中文注释常常整句无分隔，整词几乎不可能原样出现在问题里）</li>
+ * </ul>
+ *
+ * @author master
+ */
+final class SchemaTokenIndex {
+
+    private static final String COMMENT_DELIMITER = "[\\s，。、：；！？,.!?_\\-]+";
+    private static final String PLACEHOLDER_COMMENT = "(未命名注释)";
+
+    enum Field { TABLE_NAME, TABLE_COMMENT, TABLE_COMMENT_NGRAM, COLUMN_NAME, COLUMN_COMMENT, COLUMN_COMMENT_NGRAM }
+
+    /**
+     * @param table  表名（原始大小写）
+     * @param field  命中维度
+     * @param column 字段序号，表级维度为 -1
+     */
+    record Posting(String table, Field field, int column) {}
+
+    private final Map<String, TableMetadata> tables;
+    private final Map<String, List<Posting>> postings = new HashMap<>();
+    private final BitSet termLengths = new BitSet();
+
+    private SchemaTokenIndex(Map<String, TableMetadata> tables) {
+        this.tables = tables;
+    }
+
+    static SchemaTokenIndex build(Collection<TableMetadata> source) {
+        Map<String, TableMetadata> tables = new LinkedHashMap<>();
+        for (TableMetadata table : source) {
+            tables.putIfAbsent(table.getTableName(), table);
+        }
+
+        SchemaTokenIndex index = new SchemaTokenIndex(tables);
+        for (TableMetadata table : tables.values()) {
+            String name = table.getTableName();
+            index.add(name.toLowerCase(), new Posting(name, Field.TABLE_NAME, -1));
+            index.addComment(table.getTableComment(), name, -1,
+                    Field.TABLE_COMMENT, Field.TABLE_COMMENT_NGRAM);
+
+            List<ColumnMetadata> columns = table.getColumns();
+            if (columns == null) {
+                continue;
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                ColumnMetadata col = columns.get(i);
+                String cn = col.getName().toLowerCase();
+                if (cn.length() > 2) {
+                    index.add(cn, new Posting(name, Field.COLUMN_NAME, i));
+                }
+                if (!PLACEHOLDER_COMMENT.equals(col.getComment())) {
+                    index.addComment(col.getComment(), name, i,
+                            Field.COLUMN_COMMENT, Field.COLUMN_COMMENT_NGRAM);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 是否已收录全部候选表（有新表时调用方需重建）
+     */
+    boolean covers(List<TableMetadata> candidates) {
+        for (TableMetadata candidate : candidates) {
+            if (!tables.containsKey(candidate.getTableName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Collection<TableMetadata> tables() {
+        return tables.values();
+    }
+
+    /**
+     * 枚举问题子串查倒排表，返回去重后的命中位置
+     *
+     * @param lq 小写问题
+     */
+    Set<Posting> match(String lq) {
+        Set<Posting> hits = new HashSet<>();
+        int maxLength = termLengths.length() - 1;
+        for (int start = 0; start < lq.length(); start++) {
+            int end = Math.min(lq.length(), start + maxLength);
+            for (int len = termLengths.nextSetBit(1); len > 0 && start + len <= end;
+                 len = termLengths.nextSetBit(len + 1)) {
+                List<Posting> list = postings.get(lq.substring(start, start + len));
+                if (list != null) {
+                    hits.addAll(list);
+                }
+            }
+        }
+        return hits;
+    }
+
+    // ==================== 构建 ====================
+
+    private void addComment(String comment, String table, int column, Field wordField, Field ngramField) {
+        if (comment == null || comment.isBlank()) {
+            return;
+        }
+        for (String word : comment.toLowerCase().split(COMMENT_DELIMITER)) {
+            if (word.length() > 1) {
+                add(word, new Posting(table, wordField, column));
+            }
+            addHanBigrams(word, new Posting(table, ngramField, column));
+        }
+    }
+
+    private void addHanBigrams(String word, Posting posting) {
+        int runStart = -1;
+        for (int i = 0; i <= word.length(); i++) {
+            boolean han = i < word.length()
+                    && Character.UnicodeScript.of(word.charAt(i)) == Character.UnicodeScript.HAN;
+            if (han && runStart < 0) {
+                runStart = i;
+            } else if (!han && runStart >= 0) {
+                // 整词恰好是两个汉字时已作为整词收录，无需重复
+                int runLength = i - runStart;
+                if (runLength > 2 || (runLength == 2 && word.length() > 2)) {
+                    for (int j = runStart; j + 2 <= i; j++) {
+                        add(word.substring(j, j + 2), posting);
+                    }
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    private void add(String term, Posting posting) {
+        if (term.isEmpty()) {
+            return;
+        }
+        List<Posting> list = postings.computeIfAbsent(term, k -> new ArrayList<>(2));
+        // 同一位置的重复词项是连续添加的，只需与末尾比较
+        if (list.isEmpty() || !list.get(list.size() - 1).equals(posting)) {
+            list.add(posting);
+        }
+        termLengths.set(term.length());
+    }
+}
@@ -6,8 +6,6 @@ import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.SystemMessage;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.model.chat.ChatLanguageModel;
-import dev.langchain4j.model.output.Response;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -20,7 +18,7 @@ import java.util.List;
  * <p>
  * 职责：
  *   - 构造消息列表（system + history + current）
- *   - 调用 ChatLanguageModel 完成一次推理
+ *   - 经 CachingChatModel 调用 ChatLanguageModel 完成一次推理（相同消息列表命中缓存）
  *   - 将本轮对话持久化到 ChatMemoryStore
  * <p>
  * 此类属于 AI 能力层，不引入任何业务实体（DataSource、QueryPolicy 等）
@@ -32,7 +30,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SqlExecutor {
 
-    private final ChatLanguageModel chatLanguageModel;
+    private final CachingChatModel chatModel;
     private final ChatMemoryStore chatMemoryStore;
 
     /**
@@ -44,25 +42,61 @@ public class SqlExecutor {
      * @return AI 返回的原始文本
      */
     public AiResponse execute(Long sessionId, String systemPrompt, String question) {
-        List<ChatMessage> history = chatMemoryStore.getMessages(sessionId);
+        AiResponse response = generateCandidate(loadHistory(sessionId), systemPrompt, question);
+        log.info("AI回复为{}", response.rawText());
+        remember(sessionId, question, response);
+        return response;
+    }
+
+    /**
+     * 读取会话历史消息（多候选并行生成时只读一次，所有候选共享）
+     *
+     * @param sessionId 会话ID
+     * @return 历史消息列表
+     */
+    public List<ChatMessage> loadHistory(Long sessionId) {
+        return chatMemoryStore.getMessages(sessionId);
+    }
+
+    /**
+     * 只推理、不写记忆：生成一个候选 SQL
+     * <p>
+     * 多候选并行生成时，每个候选各自调用一次，
+     * 最终只有被选中的候选通过 {@link #remember} 写入记忆。
+     *
+     * @param history      会话历史消息
+     * @param systemPrompt 完整系统提示词（可能已追加候选差异化提示）
+     * @param question     用户原始问题
+     * @return 候选响应
+     */
+    public AiResponse generateCandidate(List<ChatMessage> history, String systemPrompt, String question) {
         List<ChatMessage> messages = buildMessages(systemPrompt, history, UserMessage.from(question));
 
-        AiMessage aiReply = callAi(messages);
-        String raw = aiReply.text();
-        log.info("AI回复为{}", raw);
+        // EXPLAIN 不缓存：它不写入记忆，用户通常换个说法重问，缓存只会让「再试一次」得到同一解释
+        String raw = chatModel.generate(messages,
+                text -> !isExplain(CommonUtil.cleanSql(text)),
+                CommonUtil::cleanSql);
         String cleaned = CommonUtil.cleanSql(raw);
-        boolean isExplain = cleaned.startsWith("[EXPLAIN]");
+        return new AiResponse(raw, cleaned, isExplain(cleaned));
+    }
 
-        // EXPLAIN 类型不保存到 chat_message（AI 上下文），避免 AI 重复返回相同的解释
-        if (!isExplain) {
+    /**
+     * 将本轮 user + ai 消息持久化到记忆
+     * <p>
+     * EXPLAIN 类型不保存到 chat_message（AI 上下文），避免 AI 重复返回相同的解释
+     *
+     * @param sessionId 会话ID
+     * @param question  用户原始问题
+     * @param response  最终采用的 AI 响应
+     */
+    public void remember(Long sessionId, String question, AiResponse response) {
+        if (!response.isExplain()) {
             chatMemoryStore.updateMessages(sessionId, List.of(UserMessage.from(question)));
-            chatMemoryStore.updateMessages(sessionId, List.of(AiMessage.from(cleaned)));
-            log.info("AI 响应完成，已保存到记忆，原始长度: {}", raw.length());
+            chatMemoryStore.updateMessages(sessionId, List.of(AiMessage.from(response.cleanSql())));
+            log.info("AI 响应完成，已保存到记忆，原始长度: {}", response.rawText().length());
         } else {
-            log.info("AI 返回 EXPLAIN 类型，不保存到记忆，原始长度: {}", raw.length());
+            log.info("AI 返回 EXPLAIN 类型，不保存到记忆，原始长度: {}", response.rawText().length());
         }
-
-        return new AiResponse(raw, cleaned, isExplain);
     }
 
     /**
@@ -82,6 +116,9 @@ public class SqlExecutor {
         log.warn("SQL 执行失败，触发 Self-correction，sessionId: {}, error: {}",
                 sessionId, errorMessage);
 
+        // 错误 SQL 可能来自缓存，先失效，避免同一问题重跑时再次重放
+        chatModel.evict(wrongSql);
+
         List<ChatMessage> history = chatMemoryStore.getMessages(sessionId);
 
         // 构造纠错请求
@@ -92,11 +129,10 @@ public class SqlExecutor {
 
         List<ChatMessage> messages = buildMessages(systemPrompt, history, UserMessage.from(correctionPrompt));
 
-        // 调用 AI
-        AiMessage aiReply = callAi(messages);
-        String raw = aiReply.text();
+        // 调用 AI（绕过缓存：纠错需要新的推理结果）
+        String raw = chatModel.generateUncached(messages);
         String cleaned = CommonUtil.cleanSql(raw);
-        boolean isExplain = cleaned.startsWith("[EXPLAIN]");
+        boolean isExplain = isExplain(cleaned);
 
         // EXPLAIN 类型不保存到 chat_message（AI 上下文）
         if (!isExplain) {
@@ -122,9 +158,8 @@ public class SqlExecutor {
         return messages;
     }
 
-    private AiMessage callAi(List<ChatMessage> messages) {
-        Response<AiMessage> response = chatLanguageModel.generate(messages);
-        return response.content();
+    private boolean isExplain(String cleanedSql) {
+        return cleanedSql.startsWith("[EXPLAIN]");
     }
 
 
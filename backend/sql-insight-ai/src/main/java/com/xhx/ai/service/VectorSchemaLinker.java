@@ -1,24 +1,33 @@
 package com.xhx.ai.service;
 
-import com.xhx.ai.config.QdrantProperties;
+import com.xhx.ai.config.MicroBatchProperties;
 import com.xhx.common.model.TableMetadata;
 import io.qdrant.client.QdrantClient;
 import io.qdrant.client.grpc.Points;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 /**
  * 向量语义 Schema Linker（@Primary 主实现）
  *
+ * <p>数据源已加载到 {@link LocalVectorIndex} 时在进程内检索，
+ * 否则走 Qdrant 远程检索；两者打分口径一致（余弦相似度）。
+ *
+ * <p>Qdrant 调用受 {@link QdrantCircuitBreaker} 保护：熔断期间未加载进程内索引的数据源
+ * 直接降级关键词匹配，连问题向量化都省掉，不再等待超时。
+ *
+ * <p>Qdrant 检索经 {@link MicroBatcher} 合并：并发请求在几毫秒内攒成一批，
+ * 按 Collection 分组后各组并发发一次 searchBatch，每个调用方只等自己所在组的结果，
+ * 某一组超时或失败不影响同批其他组的调用方。
+ *
  * @author master
  */
 @Slf4j
@@ -28,14 +37,43 @@ import java.util.stream.Collectors;
 public class VectorSchemaLinker implements SchemaLinker {
 
     private final QdrantClient            qdrantClient;
-    private final AliyunEmbeddingService  embeddingService;
-    private final QdrantProperties        properties;
+    private final EmbeddingService        embeddingService;
     private final KeywordSchemaLinker     keywordFallback;
+    private final LocalVectorIndex        localVectorIndex;
+    private final QdrantCollectionManager collections;
+    private final QdrantCircuitBreaker    circuitBreaker;
+    private final MicroBatchProperties    microBatchProperties;
+
+    private ExecutorService searchExecutor;
+    private MicroBatcher<Points.SearchPoints, List<Points.ScoredPoint>> searchBatcher;
 
     private static final float SIMILARITY_THRESHOLD  = 0.55f;
     private static final int   SEARCH_LIMIT          = 10;
     private static final long  TIMEOUT_SECONDS       = 3L;
 
+    @PostConstruct
+    public void init() {
+        if (!microBatchProperties.isEnabled()) {
+            return;
+        }
+        searchExecutor = Executors.newFixedThreadPool(Math.max(1, microBatchProperties.getSearchThreads()), r -> {
+            Thread t = new Thread(r);
+            t.setName("qdrant-search-" + t.getId());
+            t.setDaemon(true);
+            return t;
+        });
+        searchBatcher = MicroBatcher.ofAsync("qdrant-search", microBatchProperties.getSearchBatchSize(),
+                microBatchProperties.getMaxDelayMs(), this::searchBatch, searchExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (searchBatcher != null) {
+            searchBatcher.close();
+            searchExecutor.shutdown();
+        }
+    }
+
     @Override
     public List<TableMetadata> link(String question, Long dataSourceId,
                                     List<TableMetadata> candidates) {
@@ -44,6 +82,8 @@ public class VectorSchemaLinker implements SchemaLinker {
         }
         try {
             return doVectorLink(question, dataSourceId, candidates);
+        } catch (QdrantCircuitBreaker.CallNotPermittedException e) {
+            return fallback("Qdrant 熔断中", question, dataSourceId, candidates);
         } catch (TimeoutException e) {
             return fallback("Qdrant 检索超时 (" + TIMEOUT_SECONDS + "s)", question, dataSourceId, candidates);
         } catch (Exception e) {
@@ -59,16 +99,23 @@ public class VectorSchemaLinker implements SchemaLinker {
         Map<String, TableMetadata> candidateMap = candidates.stream()
                 .collect(Collectors.toMap(TableMetadata::getTableName, c -> c, (v1, v2) -> v1));
 
+        if (circuitBreaker.isOpen() && !localVectorIndex.isLoaded(dataSourceId)) {
+            return fallback("Qdrant 熔断中", question, dataSourceId, candidates);
+        }
+
         // 用户问题向量化
         List<Float> queryVector = embeddingService.getVector(question);
 
-        // 向量检索
-        List<Points.ScoredPoint> hits = qdrantClient
-                .searchAsync(buildSearchRequest(queryVector, dataSourceId))
-                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-
-        log.debug("[VectorLinker] Qdrant 返回 {} 个命中点，dsId: {}", hits.size(), dataSourceId);
-        log.debug("[VectorLinker] 命中点分数: {}", hits.stream().map(Points.ScoredPoint::getScore).toList());
+        // 向量检索：优先进程内索引，未加载时走 Qdrant
+        List<LocalVectorIndex.Hit> hits = localVectorIndex.search(
+                dataSourceId, queryVector, SEARCH_LIMIT, SIMILARITY_THRESHOLD);
+        if (hits == null) {
+            hits = searchQdrant(queryVector, dataSourceId);
+            log.debug("[VectorLinker] Qdrant 返回 {} 个命中点，dsId: {}", hits.size(), dataSourceId);
+        } else {
+            log.debug("[VectorLinker] 进程内索引返回 {} 个命中点，dsId: {}", hits.size(), dataSourceId);
+        }
+        log.debug("[VectorLinker] 命中点分数: {}", hits.stream().map(LocalVectorIndex.Hit::score).toList());
 
         // 向量无命中 → 降级关键词匹配
         if (hits.isEmpty()) {
@@ -76,7 +123,7 @@ public class VectorSchemaLinker implements SchemaLinker {
         }
 
         List<TableMetadata> result = hits.stream()
-                .map(hit -> hit.getPayloadMap().get("table_name").getStringValue())
+                .map(LocalVectorIndex.Hit::tableName)
                 .map(candidateMap::get)
                 .filter(Objects::nonNull)
                 .toList();
@@ -97,16 +144,85 @@ public class VectorSchemaLinker implements SchemaLinker {
         log.info("[VectorLinker] {}，降级关键词匹配", reason);
         return keywordFallback.link(question, dataSourceId, candidates);
     }
+
+    private List<LocalVectorIndex.Hit> searchQdrant(List<Float> queryVector, Long dataSourceId)
+            throws Exception {
+        Points.SearchPoints request = buildSearchRequest(queryVector, dataSourceId);
+        List<Points.ScoredPoint> points;
+        if (searchBatcher == null) {
+            points = circuitBreaker.execute(() -> qdrantClient
+                    .searchAsync(request)
+                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } else {
+            try {
+                points = searchBatcher.submit(request).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                // 熔断、超时原样抛出，由 link() 区分降级原因
+                Throwable cause = e.getCause() instanceof CompletionException wrapped && wrapped.getCause() != null
+                        ? wrapped.getCause() : e.getCause();
+                if (cause instanceof TimeoutException timeout) {
+                    throw timeout;
+                }
+                if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw e;
+            }
+        }
+        return points.stream()
+                .map(hit -> new LocalVectorIndex.Hit(
+                        hit.getPayloadMap().get("table_name").getStringValue(), hit.getScore()))
+                .toList();
+    }
+
+    /**
+     * 微批处理：按 Collection 分组，各组在 searchExecutor 中并发执行一次 searchBatch，
+     * 每条请求的 Future 只跟随所在组的结果
+     */
+    private List<CompletableFuture<List<Points.ScoredPoint>>> searchBatch(List<Points.SearchPoints> requests) {
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            groups.computeIfAbsent(requests.get(i).getCollectionName(), k -> new ArrayList<>()).add(i);
+        }
+
+        List<CompletableFuture<List<Points.ScoredPoint>>> results =
+                new ArrayList<>(Collections.nCopies(requests.size(), null));
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            List<Points.SearchPoints> searches = group.getValue().stream().map(requests::get).toList();
+            CompletableFuture<List<Points.BatchResult>> batch = CompletableFuture.supplyAsync(
+                    () -> searchGroup(group.getKey(), searches), searchExecutor);
+            for (int j = 0; j < searches.size(); j++) {
+                int index = j;
+                results.set(group.getValue().get(j), batch.thenApply(r -> r.get(index).getResultList()));
+            }
+        }
+        return results;
+    }
+
+    private List<Points.BatchResult> searchGroup(String collection, List<Points.SearchPoints> searches) {
+        try {
+            return circuitBreaker.execute(() -> qdrantClient
+                    .searchBatchAsync(collection, searches, null)
+                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new CompletionException(e);
+        }
+    }
+
     /**
      * 构建 Qdrant 检索请求
      *
      * <p>Must Filter 按 data_source_id 过滤，确保不同数据源之间向量完全隔离（修复①）。
+     * 该字段建有 payload 索引，过滤不随 Collection 总点数增长而变慢。
      */
     private Points.SearchPoints buildSearchRequest(List<Float> queryVector, Long dataSourceId) {
         Points.Filter dataSourceFilter = Points.Filter.newBuilder()
                 .addMust(Points.Condition.newBuilder()
                         .setField(Points.FieldCondition.newBuilder()
-                                .setKey("data_source_id")
+                                .setKey(QdrantCollectionManager.DATA_SOURCE_ID_FIELD)
                                 .setMatch(Points.Match.newBuilder()
                                         .setInteger(dataSourceId)
                                         .build()))
@@ -114,9 +230,10 @@ public class VectorSchemaLinker implements SchemaLinker {
                 .build();
 
         return Points.SearchPoints.newBuilder()
-                .setCollectionName(properties.getCollectionName())
+                .setCollectionName(collections.collectionFor(dataSourceId))
                 .addAllVector(queryVector)
                 .setFilter(dataSourceFilter)
+                .setParams(collections.searchParams())
                 .setWithPayload(Points.WithPayloadSelector.newBuilder()
                         .setEnable(true)
                         .build())
@@ -0,0 +1,148 @@
+package com.xhx.ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 微批处理器：按条数 / 延迟发批，结果与异常按调用方分发
+ */
+class MicroBatcherTest {
+
+    /** 在发批线程中直接执行，攒够条数时 submit 返回前已处理完 */
+    private static final Executor DIRECT = Runnable::run;
+
+    @Test
+    void flushesWhenBatchIsFull() throws Exception {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        try (MicroBatcher<String, String> batcher = new MicroBatcher<>("size", 3, 60_000,
+                echo(batches), DIRECT)) {
+            CompletableFuture<String> a = batcher.submit("a");
+            CompletableFuture<String> b = batcher.submit("b");
+            assertFalse(a.isDone());
+            CompletableFuture<String> c = batcher.submit("c");
+
+            assertTrue(a.isDone() && b.isDone() && c.isDone());
+            assertEquals(List.of(List.of("a", "b", "c")), batches);
+            assertEquals("B", b.get());
+            assertEquals(3.0, batcher.averageBatchSize());
+        }
+    }
+
+    @Test
+    void flushesAfterMaxDelay() throws Exception {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        try (MicroBatcher<String, String> batcher = new MicroBatcher<>("delay", 100, 50,
+                echo(batches), DIRECT)) {
+            CompletableFuture<String> a = batcher.submit("a");
+            CompletableFuture<String> b = batcher.submit("b");
+
+            assertEquals("A", a.get(2, TimeUnit.SECONDS));
+            assertEquals("B", b.get(2, TimeUnit.SECONDS));
+            assertEquals(List.of(List.of("a", "b")), batches);
+
+            // 上一批发出后新到的请求另起一批
+            assertEquals("C", batcher.submit("c").get(2, TimeUnit.SECONDS));
+            assertEquals(List.of(List.of("a", "b"), List.of("c")), batches);
+        }
+    }
+
+    @Test
+    void handlerFailureFailsWholeBatch() {
+        IllegalStateException failure = new IllegalStateException("接口限流");
+        try (MicroBatcher<String, String> batcher = new MicroBatcher<>("throw", 2, 60_000,
+                items -> { throw failure; }, DIRECT)) {
+            CompletableFuture<String> a = batcher.submit("a");
+            CompletableFuture<String> b = batcher.submit("b");
+
+            assertSame(failure, causeOf(a));
+            assertSame(failure, causeOf(b));
+        }
+    }
+
+    @Test
+    void missingResultFailsOnlyThatCaller() throws Exception {
+        // 第 2 条为 null，第 3 条超出返回列表长度
+        try (MicroBatcher<String, String> batcher = new MicroBatcher<>("missing", 3, 60_000,
+                items -> Arrays.asList("A", null), DIRECT)) {
+            CompletableFuture<String> a = batcher.submit("a");
+            CompletableFuture<String> b = batcher.submit("b");
+            CompletableFuture<String> c = batcher.submit("c");
+
+            assertEquals("A", a.get());
+            assertInstanceOf(IllegalStateException.class, causeOf(b));
+            assertInstanceOf(IllegalStateException.class, causeOf(c));
+        }
+    }
+
+    @Test
+    void asyncGroupFailureOnlyFailsThatGroup() throws Exception {
+        ExecutorService groupExecutor = Executors.newFixedThreadPool(2);
+        try (MicroBatcher<String, String> batcher = MicroBatcher.ofAsync("group", 4, 60_000,
+                groupedBy(groupExecutor), DIRECT)) {
+            CompletableFuture<String> a1 = batcher.submit("ok:1");
+            CompletableFuture<String> b1 = batcher.submit("down:1");
+            CompletableFuture<String> a2 = batcher.submit("ok:2");
+            CompletableFuture<String> b2 = batcher.submit("down:2");
+
+            assertEquals("OK:1", a1.get(2, TimeUnit.SECONDS));
+            assertEquals("OK:2", a2.get(2, TimeUnit.SECONDS));
+            // 组内异常解包后原样交给调用方
+            Throwable cause = causeOf(b1);
+            assertInstanceOf(IllegalStateException.class, cause);
+            assertEquals("分组 down 不可用", cause.getMessage());
+            assertSame(cause, causeOf(b2));
+        } finally {
+            groupExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void closeCancelsPendingRequests() {
+        MicroBatcher<String, String> batcher = new MicroBatcher<>("close", 10, 60_000,
+                echo(new ArrayList<>()), DIRECT);
+        CompletableFuture<String> a = batcher.submit("a");
+        batcher.close();
+
+        assertThrows(CancellationException.class, () -> a.get(2, TimeUnit.SECONDS));
+    }
+
+    private static Function<List<String>, List<String>> echo(List<List<String>> batches) {
+        return items -> {
+            batches.add(List.copyOf(items));
+            return items.stream().map(s -> s.toUpperCase(Locale.ROOT)).toList();
+        };
+    }
+
+    /**
+     * 按冒号前缀分组，每组一个 Future；名为 down 的组失败
+     */
+    private static Function<List<String>, List<CompletableFuture<String>>> groupedBy(Executor executor) {
+        return items -> {
+            Map<String, CompletableFuture<Map<String, String>>> groups = new HashMap<>();
+            for (String item : items) {
+                String group = item.substring(0, item.indexOf(':'));
+                groups.computeIfAbsent(group, g -> CompletableFuture.supplyAsync(() -> {
+                    if ("down".equals(g)) {
+                        throw new IllegalStateException("分组 " + g + " 不可用");
+                    }
+                    Map<String, String> results = new HashMap<>();
+                    items.stream().filter(i -> i.startsWith(g + ":"))
+                            .forEach(i -> results.put(i, i.toUpperCase(Locale.ROOT)));
+                    return results;
+                }, executor));
+            }
+            return items.stream()
+                    .map(item -> groups.get(item.substring(0, item.indexOf(':'))).thenApply(m -> m.get(item)))
+                    .toList();
+        };
+    }
+
+    private static Throwable causeOf(CompletableFuture<?> future) {
+        return assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS)).getCause();
+    }
+}
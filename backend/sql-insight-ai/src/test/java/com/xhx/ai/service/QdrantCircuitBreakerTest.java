@@ -0,0 +1,179 @@
+package com.xhx.ai.service;
+
+import com.xhx.ai.config.QdrantProperties;
+import com.xhx.ai.service.QdrantCircuitBreaker.CallNotPermittedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Qdrant 熔断器状态机：窗口 10 次，至少 4 次调用后按失败率 / 慢调用率 50% 判定
+ */
+class QdrantCircuitBreakerTest {
+
+    @Test
+    void opensOnFailureRate() throws Exception {
+        QdrantCircuitBreaker breaker = breaker(c -> { });
+
+        callFails(breaker);
+        callFails(breaker);
+        // 未达到 minimum-calls，不判定
+        assertEquals("CLOSED", breaker.stats().state());
+        callSucceeds(breaker);
+        callSucceeds(breaker);
+
+        assertEquals("OPEN", breaker.stats().state());
+        assertTrue(breaker.isOpen());
+        assertThrows(CallNotPermittedException.class, () -> callSucceeds(breaker));
+        assertEquals(1, breaker.stats().notPermittedCalls());
+    }
+
+    @Test
+    void staysClosedBelowFailureRate() throws Exception {
+        QdrantCircuitBreaker breaker = breaker(c -> { });
+
+        callFails(breaker);
+        for (int i = 0; i < 9; i++) {
+            callSucceeds(breaker);
+        }
+        assertEquals("CLOSED", breaker.stats().state());
+        assertEquals(0.1, breaker.stats().failureRate(), 1e-9);
+    }
+
+    @Test
+    void opensOnSlowCallRate() throws Exception {
+        // 任何调用都算慢调用，失败率阈值不可能达到
+        QdrantCircuitBreaker breaker = breaker(c -> {
+            c.setSlowCallMillis(0);
+            c.setFailureRateThreshold(100);
+        });
+
+        for (int i = 0; i < 3; i++) {
+            callSucceeds(breaker);
+        }
+        assertEquals("CLOSED", breaker.stats().state());
+        callSucceeds(breaker);
+
+        assertEquals("OPEN", breaker.stats().state());
+        assertEquals(0, breaker.stats().failureRate());
+    }
+
+    @Test
+    void halfOpensAfterOpenSeconds() throws Exception {
+        QdrantCircuitBreaker breaker = breaker(c -> c.setOpenSeconds(1));
+        trip(breaker);
+        assertThrows(CallNotPermittedException.class, () -> callSucceeds(breaker));
+
+        Thread.sleep(1100);
+        assertFalse(breaker.isOpen());
+        callSucceeds(breaker);
+        assertEquals("HALF_OPEN", breaker.stats().state());
+        callSucceeds(breaker);
+        assertEquals("CLOSED", breaker.stats().state());
+    }
+
+    @Test
+    void halfOpenFailureReopens() throws Exception {
+        QdrantCircuitBreaker breaker = breaker(c -> c.setOpenSeconds(0));
+        trip(breaker);
+
+        callSucceeds(breaker);
+        callFails(breaker);
+        assertEquals("OPEN", breaker.stats().state());
+    }
+
+    @Test
+    void limitsHalfOpenProbes() throws Exception {
+        QdrantCircuitBreaker breaker = breaker(c -> c.setOpenSeconds(0));
+        trip(breaker);
+
+        // 两个探测进行中时第三个调用被拒绝
+        String result = breaker.execute(() -> breaker.execute(() -> {
+            assertEquals("HALF_OPEN", breaker.stats().state());
+            assertThrows(CallNotPermittedException.class, () -> callSucceeds(breaker));
+            return "probe";
+        }));
+        assertEquals("probe", result);
+        assertEquals("CLOSED", breaker.stats().state());
+    }
+
+    @Test
+    void releasesHalfOpenPermitOnInterrupt() throws Exception {
+        QdrantCircuitBreaker breaker = breaker(c -> {
+            c.setOpenSeconds(0);
+            c.setHalfOpenCalls(1);
+        });
+        trip(breaker);
+
+        assertThrows(InterruptedException.class, () -> breaker.execute(() -> {
+            throw new InterruptedException();
+        }));
+        // 中断不计入统计，名额归还后下一次探测仍可放行
+        assertEquals("HALF_OPEN", breaker.stats().state());
+        callSucceeds(breaker);
+        assertEquals("CLOSED", breaker.stats().state());
+    }
+
+    @Test
+    void resetsWindowOnClose() throws Exception {
+        QdrantCircuitBreaker breaker = breaker(c -> c.setOpenSeconds(0));
+        trip(breaker);
+        callSucceeds(breaker);
+        callSucceeds(breaker);
+        assertEquals("CLOSED", breaker.stats().state());
+        assertEquals(0, breaker.stats().bufferedCalls());
+
+        // 熔断前的失败不再计入：3 成功 1 失败为 25%
+        for (int i = 0; i < 3; i++) {
+            callSucceeds(breaker);
+        }
+        callFails(breaker);
+        assertEquals("CLOSED", breaker.stats().state());
+        assertEquals(0.25, breaker.stats().failureRate(), 1e-9);
+    }
+
+    @Test
+    void disabledBreakerPassesThrough() throws Exception {
+        QdrantCircuitBreaker breaker = breaker(c -> c.setEnabled(false));
+        for (int i = 0; i < 10; i++) {
+            callFails(breaker);
+        }
+        assertEquals("CLOSED", breaker.stats().state());
+        assertEquals(0, breaker.stats().bufferedCalls());
+        callSucceeds(breaker);
+    }
+
+    private static QdrantCircuitBreaker breaker(Consumer<QdrantProperties.CircuitBreaker> customizer) {
+        QdrantProperties properties = new QdrantProperties();
+        QdrantProperties.CircuitBreaker config = properties.getCircuitBreaker();
+        config.setWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(50);
+        config.setSlowCallRateThreshold(50);
+        config.setSlowCallMillis(60_000);
+        config.setOpenSeconds(60);
+        config.setHalfOpenCalls(2);
+        customizer.accept(config);
+        return new QdrantCircuitBreaker(properties);
+    }
+
+    private static void trip(QdrantCircuitBreaker breaker) throws Exception {
+        for (int i = 0; i < 4; i++) {
+            callFails(breaker);
+        }
+        assertEquals("OPEN", breaker.stats().state());
+    }
+
+    private static void callSucceeds(QdrantCircuitBreaker breaker) throws Exception {
+        assertEquals("ok", breaker.execute(() -> "ok"));
+    }
+
+    private static void callFails(QdrantCircuitBreaker breaker) {
+        assertThrows(ExecutionException.class, () -> breaker.execute(() -> {
+            throw new ExecutionException(new IllegalStateException("Qdrant 不可用"));
+        }));
+    }
+}
@@ -4,6 +4,7 @@ import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * @author master
@@ -11,6 +12,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 @SpringBootApplication(scanBasePackages = "com.xhx")
 @MapperScan("com.xhx.dal.mapper")
 @EnableAsync
+@EnableScheduling
 public class SqlInsightBootstrapApplication {
     public static void main(String[] args) {
         SpringApplication.run(SqlInsightBootstrapApplication.class, args);
@@ -23,6 +23,9 @@ public class SecurityConstants {
     /** user:perm:set:{userId}   →  Set: {dsId}:{tableName}:SELECT */
     public static final String USER_PERM_SET_KEY = "user:perm:set:";
 
+    /** 频道：用户缓存失效通知，消息体为 userId（各节点清除该用户的本地近端缓存） */
+    public static final String USER_INVALIDATE_CHANNEL = "channel:user:invalidate";
+
     /** user:policy:{userId}     →  String: QueryPolicy JSON */
     public static final String USER_POLICY_KEY = "user:policy:";
 
@@ -30,29 +33,86 @@ public class SecurityConstants {
     public static final String USER_DS_IDS_KEY = "user:ds_ids:";
 
     // ==================== 数据源元数据 ====================
-    /** ds:tables:{dataSourceId} →  String: ["t1","t2"] JSON */
+    /** ds:tables:{dataSourceId} →  String: {"tables":["t1","t2"],"refreshAt":软过期时间戳} JSON */
     public static final String DS_TABLES_KEY = "ds:tables:";
 
     /**
-     * schema:{dataSourceId}:{permHash} → String: List<TableMetadata> JSON
-     * permHash 为有序表名列表（逗号拼接）的 SHA-256 摘要（64位十六进制），
-     * 不同权限组合各自独立缓存
+     * schema:{dataSourceId} → Hash: 小写表名 → TableMetadata JSON
+     * 每张表只存一份，不同权限组合读取时在内存中按表名拼装
+     * （旧版为 schema:{dataSourceId}:{permHash} → 整个 List<TableMetadata>，启动时迁移）
      */
     public static final String SCHEMA_KEY = "schema:";
 
+    /** schema:{dataSourceId} 中记录软过期时间戳（毫秒）的字段，表名不会以冒号开头 */
+    public static final String SCHEMA_REFRESH_AT_FIELD = ":refresh_at";
+
+    /** 频道：Schema 失效通知 {"dataSourceId":1,"tables":["t1"]}，tables 为空表示整个数据源 */
+    public static final String SCHEMA_INVALIDATE_CHANNEL = "channel:schema:invalidate";
+
+    /** ds:fingerprint:{dataSourceId} → Hash: tableName → 表结构指纹（变更检测上一轮结果） */
+    public static final String DS_FINGERPRINT_KEY = "ds:fingerprint:";
+
+    // ==================== LLM 响应缓存 ====================
+    /** llm:resp:{sha256(model + messages)} → String: 模型原始响应 */
+    public static final String LLM_RESPONSE_KEY = "llm:resp:";
+
+    /** llm:resp:tag:{sha256(tag)} → Set: 对应的 LLM_RESPONSE_KEY 后缀（不同 Prompt 可能生成同一条 SQL），用于按内容失效 */
+    public static final String LLM_RESPONSE_TAG_KEY = "llm:resp:tag:";
+
+    /** 频道：LLM 响应缓存失效通知，消息体为逗号分隔的 LLM_RESPONSE_KEY 后缀（各节点清除本地缓存） */
+    public static final String LLM_RESPONSE_INVALIDATE_CHANNEL = "channel:llm:invalidate";
+
+    // ==================== Embedding 缓存 ====================
+    /** emb:{model}:{sha256(normalizedText)} → String: Base64(小端 float[]) */
+    public static final String EMBEDDING_KEY = "emb:";
+
+    // ==================== Schema 索引任务 ====================
+    /** index:job:{dataSourceId} → String: 最近一次索引任务状态 JSON */
+    public static final String INDEX_JOB_KEY = "index:job:";
+
+    /** index:job:done:{dataSourceId} → Set: 本轮任务已完成的表名（断点续跑用） */
+    public static final String INDEX_JOB_DONE_KEY = "index:job:done:";
+
+    /** 频道：向量索引变更通知 {"dataSourceId":1,"origin":"实例ID"}，其他实例据此重新加载进程内索引 */
+    public static final String VECTOR_INDEX_CHANGED_CHANNEL = "channel:vector:changed";
+
     // ==================== 分布式锁 ====================
     /** lock:perm:load:{userId} */
     public static final String LOCK_PERM_LOAD_KEY = "lock:perm:load:";
 
+    /** lock:schema:watch:{dataSourceId}（多实例下每轮只由一个实例检测表结构变更） */
+    public static final String LOCK_SCHEMA_WATCH_KEY = "lock:schema:watch:";
+
+    /** lock:index:boot:{dataSourceId}（多实例同时启动时每个数据源只由一个实例提交启动索引任务） */
+    public static final String LOCK_INDEX_BOOT_KEY = "lock:index:boot:";
+
+    /** lock:meta:load:{cacheKey}（元数据缓存未命中时多实例只由一个实例连目标库加载） */
+    public static final String LOCK_METADATA_LOAD_KEY = "lock:meta:load:";
+
+    /** lock:meta:refresh:{cacheKey}（元数据缓存软过期后多实例只由一个实例后台刷新） */
+    public static final String LOCK_METADATA_REFRESH_KEY = "lock:meta:refresh:";
+
     // ==================== TTL ====================
     public static final long TOKEN_TTL_HOURS = 24;
     public static final long PERM_TTL_BASE_MINUTES = 1440;
     public static final long PERM_TTL_RANDOM_MINUTES = 60;
+    /** 表名缓存软过期：超过后照常返回，同时后台刷新 */
     public static final long DS_TABLES_TTL_MINUTES = 10;
-    /** Schema 元数据缓存时间，表结构变更频率低，可以缓存更长时间 */
+    /** 表名缓存硬过期（Redis TTL）：期间一直无人访问才会真正过期 */
+    public static final long DS_TABLES_HARD_TTL_MINUTES = 60;
+    /** Schema 元数据缓存软过期，表结构变更频率低，可以缓存更长时间 */
     public static final long SCHEMA_TTL_MINUTES = 60;
+    /** Schema 元数据缓存硬过期（Redis TTL），结构变更由变更检测主动失效，不依赖过期 */
+    public static final long SCHEMA_HARD_TTL_MINUTES = 360;
+    /** 表结构指纹保留时间，数据源删除后自动清理 */
+    public static final long DS_FINGERPRINT_TTL_DAYS = 7;
     public static final long LOCK_TTL_SECONDS = 5;
+    /** 元数据加载 / 刷新锁，覆盖大 Schema 一次完整提取的耗时 */
+    public static final long LOCK_METADATA_TTL_SECONDS = 120;
     public static final long TOKEN_RENEW_THRESHOLD_MINUTES = 10;
+    /** 用户认证信息本地近端缓存时间，失效通知丢失时的最长不一致窗口 */
+    public static final long USER_NEAR_CACHE_TTL_SECONDS = 30;
+    public static final long USER_NEAR_CACHE_MAX_ENTRIES = 10_000;
 
     /** 查询结果缓存 key 前缀 */
     public static final String QUERY_RESULT_KEY = "query:result:";
@@ -0,0 +1,39 @@
+package com.xhx.common.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 索引元数据模型
+ * @author master
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexMetadata {
+
+    /** 索引名 */
+    private String name;
+
+    /** 索引列，按在索引中的顺序排列 - 只有前导列上的条件能走索引 */
+    private List<String> columns;
+
+    /** 是否为主键 */
+    private boolean primary;
+
+    /** 是否唯一 */
+    private boolean unique;
+
+    /**
+     * 紧凑描述，如 idx_user_time(user_id, created_at)
+     */
+    @Override
+    public String toString() {
+        return name + "(" + String.join(", ", columns) + ")" + (unique && !primary ? " [唯一]" : "");
+    }
+}
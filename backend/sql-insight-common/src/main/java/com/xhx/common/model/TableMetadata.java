@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 /**
@@ -17,6 +18,12 @@ public class TableMetadata {
     private String tableComment;
     private List<ColumnMetadata> columns;
 
+    /** 估算行数（来自数据库统计信息，可能滞后），未知时为 null */
+    private Long rowCount;
+
+    /** 索引（含主键），列按索引内顺序排列；空列表表示没有索引，null 表示未采集（旧缓存） */
+    private List<IndexMetadata> indexes;
+
     /**
      * 将对象转化为 AI 最易理解的描述文本
      */
@@ -26,6 +33,9 @@ public class TableMetadata {
         if (tableComment != null && !tableComment.isEmpty()) {
             sb.append(" (").append(tableComment).append(")");
         }
+        if (rowCount != null) {
+            sb.append(" [约 ").append(formatRowCount(rowCount)).append(" 行]");
+        }
         sb.append("\n字段列表:\n");
 
         for (ColumnMetadata col : columns) {
@@ -42,6 +52,34 @@ public class TableMetadata {
             sb.append("主键约束: [").append(pks).append("]\n");
         }
 
+        // 二级索引按列顺序列出，主键已在上一行
+        if (indexes != null) {
+            String secondary = indexes.stream()
+                    .filter(index -> !index.isPrimary())
+                    .map(IndexMetadata::toString)
+                    .collect(Collectors.joining(", "));
+            if (!secondary.isEmpty()) {
+                sb.append("索引: ").append(secondary).append("\n");
+            }
+        }
+
         return sb.toString();
     }
+
+    /**
+     * 行数取两位有效数字的中文量级（如 3200、12万、2.1亿），只需让模型分清大小表
+     */
+    public static String formatRowCount(long rows) {
+        if (rows < 10_000) {
+            return Long.toString(rows);
+        }
+        if (rows < 100_000_000) {
+            return compact(rows / 10_000.0) + "万";
+        }
+        return compact(rows / 100_000_000.0) + "亿";
+    }
+
+    private static String compact(double value) {
+        return value >= 10 ? Long.toString(Math.round(value)) : String.format(Locale.ROOT, "%.1f", value).replace(".0", "");
+    }
 }
\ No newline at end of file
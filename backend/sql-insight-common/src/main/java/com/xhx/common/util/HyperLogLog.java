@@ -0,0 +1,76 @@
+package com.xhx.common.util;
+
+/**
+ * HyperLogLog 基数估算器
+ * <p>
+ * 固定内存（2^precision 字节）估算不同值个数，适合在一次遍历中统计大结果集的列基数。
+ * 小基数区间自动切换为线性计数（Linear Counting），结果接近精确值。
+ * 非线程安全，每列各持有一个实例。
+ *
+ * @author master
+ */
+public final class HyperLogLog {
+
+    private final int precision;
+    private final int registerCount;
+    private final byte[] registers;
+
+    /**
+     * @param precision 寄存器位数，取值 4~16；10 对应 1024 个寄存器，标准误差约 3.2%
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("precision 取值范围为 4~16: " + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.registers = new byte[registerCount];
+    }
+
+    public void add(String value) {
+        long hash = hash64(value);
+        int index = (int) (hash >>> (64 - precision));
+        // 低位补 1，保证 numberOfLeadingZeros 有上界
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / registerCount);
+        double estimate = alpha * registerCount * registerCount / sum;
+
+        // 小基数修正：线性计数
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * FNV-1a 64 位 + MurmurHash3 fmix64 收尾，保证高位分布均匀
+     */
+    private static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
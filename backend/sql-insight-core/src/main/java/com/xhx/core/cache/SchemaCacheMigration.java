@@ -0,0 +1,42 @@
+package com.xhx.core.cache;
+
+import com.xhx.core.service.cache.CacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schema 缓存结构迁移
+ *
+ * <p>旧版按权限组合整体缓存（{@code schema:{dsId}:{permHash}}），新版按表存入每个数据源一个 Hash。
+ * 启动时把残留的旧 key 拆表写入新结构后删除，升级后不必等 TTL 过期、也不丢已加载的元数据。
+ * 旧 key 不存在时只有一次 KEYS 扫描，可长期保留。
+ *
+ * <p><b>Order(5)：</b>在权限预热与索引预热之前完成，避免预热期间读到半迁移状态。
+ * 迁移失败只记录日志，旧 key 到期后自然清除，不影响启动。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+@Order(5)
+@RequiredArgsConstructor
+public class SchemaCacheMigration implements ApplicationRunner {
+
+    private final CacheService cacheService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            int migrated = cacheService.migrateLegacySchemaCache();
+            if (migrated > 0) {
+                log.info("[SchemaCacheMigration] 已将 {} 个按权限组合存储的 Schema 缓存迁移为按表存储", migrated);
+            }
+        } catch (Exception e) {
+            log.error("[SchemaCacheMigration] Schema 缓存迁移失败，旧缓存将在 TTL 到期后清除: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.xhx.core.cache;
+
+import com.xhx.ai.service.KeywordSchemaLinker;
+import com.xhx.core.config.SchemaWatchProperties;
+import com.xhx.core.extractor.MetadataExtractorRouter;
+import com.xhx.core.service.cache.CacheService;
+import com.xhx.core.service.cache.SchemaCatalog;
+import com.xhx.core.service.management.DataSourcePasswordCipher;
+import com.xhx.core.service.sql.SchemaIndexingFacade;
+import com.xhx.dal.config.DynamicDataSourceManager;
+import com.xhx.dal.entity.DataSource;
+import com.xhx.dal.mapper.DataSourceMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 表结构变更检测
+ *
+ * <p><b>为什么需要：</b><br>
+ * 表名缓存（10 分钟）和 Schema 缓存（60 分钟）只靠 TTL 过期，目标库改表后最长一小时内仍用旧结构生成 SQL；
+ * 而 TTL 到期时即使表结构没变也要重新提取。
+ *
+ * <p><b>做法：</b>定时对每个数据源执行一次指纹查询（各提取器的系统目录查询，一次取回全部表），
+ * 与 Redis 中上一轮的指纹比对：
+ * <ul>
+ *   <li>有表新增 / 删除 → 失效表名缓存</li>
+ *   <li>结构变化 / 删除的表 → 通过 {@link SchemaCatalog} 只失效这些表（Redis 缓存与各节点快照）</li>
+ *   <li>有任何变化 → 失效关键词倒排索引，提交只同步变化表的向量索引任务</li>
+ * </ul>
+ * 首次检测只记录基线，不做失效。
+ *
+ * <p>多实例部署时按数据源加锁，每轮只由一个实例检测；单个数据源失败只记录日志，不影响其他数据源。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "sql-insight.schema-watch", name = "enabled",
+        havingValue = "true", matchIfMissing = true)
+public class SchemaChangeDetector {
+
+    private final DataSourceMapper         dataSourceMapper;
+    private final DynamicDataSourceManager dataSourceManager;
+    private final DataSourcePasswordCipher passwordCipher;
+    private final MetadataExtractorRouter  metadataExtractorRouter;
+    private final CacheService             cacheService;
+    private final SchemaCatalog            schemaCatalog;
+    private final SchemaIndexingFacade     schemaIndexingFacade;
+    private final KeywordSchemaLinker      keywordSchemaLinker;
+    private final SchemaWatchProperties    properties;
+
+    @Scheduled(initialDelayString = "${sql-insight.schema-watch.initial-delay-seconds:120}",
+            fixedDelayString = "${sql-insight.schema-watch.interval-seconds:300}",
+            timeUnit = TimeUnit.SECONDS)
+    public void detectAll() {
+        for (DataSource ds : dataSourceMapper.selectList(null)) {
+            if (!cacheService.tryLockSchemaWatch(ds.getId(), properties.getLockSeconds())) {
+                continue;
+            }
+            try {
+                detect(ds);
+            } catch (Exception e) {
+                log.warn("[SchemaWatch] 数据源 {} [{}] 表结构检测失败: {}",
+                        ds.getId(), ds.getConnName(), e.getMessage());
+            }
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void detect(DataSource ds) throws SQLException {
+        Long dsId = ds.getId();
+        Map<String, String> current = metadataExtractorRouter.fingerprint(ds.getDbType(),
+                dataSourceManager.getDataSource(passwordCipher.decryptedCopy(ds)));
+        if (current == null) {
+            return;
+        }
+        Map<String, String> previous = cacheService.getSchemaFingerprint(dsId);
+        if (previous.isEmpty()) {
+            cacheService.putSchemaFingerprint(dsId, current);
+            log.debug("[SchemaWatch] 数据源 {} 记录指纹基线，{} 张表", dsId, current.size());
+            return;
+        }
+
+        Set<String> added = new TreeSet<>(current.keySet());
+        added.removeAll(previous.keySet());
+        Set<String> removed = new TreeSet<>(previous.keySet());
+        removed.removeAll(current.keySet());
+        Set<String> changed = new TreeSet<>();
+        current.forEach((table, fp) -> {
+            String old = previous.get(table);
+            if (old != null && !old.equals(fp)) {
+                changed.add(table);
+            }
+        });
+        if (added.isEmpty() && removed.isEmpty() && changed.isEmpty()) {
+            return;
+        }
+
+        log.info("[SchemaWatch] 数据源 {} [{}] 表结构变更：新增 {}，删除 {}，变化 {}",
+                dsId, ds.getConnName(), added, removed, changed);
+
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            cacheService.evictDsTables(dsId);
+        }
+        Set<String> stale = new HashSet<>(changed);
+        stale.addAll(removed);
+        if (stale.isEmpty()) {
+            // 只有新增表：关键词索引遇到未收录的候选表会自行补建
+            keywordSchemaLinker.invalidate(dsId);
+        } else {
+            schemaCatalog.invalidateTables(dsId, stale);
+        }
+
+        Set<String> reindex = new HashSet<>(changed);
+        reindex.addAll(added);
+        schemaIndexingFacade.reindexTablesAsync(dsId, reindex);
+
+        // 失效完成后再更新指纹：中途失败时下一轮仍能检测到同样的变化
+        cacheService.putSchemaFingerprint(dsId, current);
+    }
+}
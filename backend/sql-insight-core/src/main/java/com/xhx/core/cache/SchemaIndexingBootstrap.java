@@ -1,6 +1,9 @@
 package com.xhx.core.cache;
 
+import com.xhx.ai.service.EmbeddingService;
 import com.xhx.ai.service.SchemaIndexingService;
+import com.xhx.core.config.IndexJobProperties;
+import com.xhx.core.service.cache.CacheService;
 import com.xhx.core.service.sql.SchemaIndexingFacade;
 import com.xhx.dal.entity.DataSource;
 import com.xhx.dal.mapper.DataSourceMapper;
@@ -12,22 +15,28 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  * 向量索引启动预热
  *
- * <p>系统启动后按序完成：
+ * <p>系统启动后在 {@code indexJobExecutor} 中按序完成：
  * <ol>
+ *   <li>加载进程内向量索引（本地快照优先，其次 Qdrant），重建完成前检索即可用</li>
  *   <li>确保 Qdrant Collection 存在（首次部署自动建库，幂等）</li>
- *   <li>对所有现有数据源全量重建向量索引（处理存量数据 / 重启恢复）</li>
+ *   <li>为所有现有数据源提交后台索引任务（处理存量数据 / 重启后从断点续跑）</li>
  * </ol>
  *
- * <p><b>Order(20)：</b>在 PermissionCacheWarmUp（Order=10）之后执行，
- * 避免两个预热任务同时对 DB 和外部服务施加并发压力。
+ * <p><b>Order(20)：</b>在 PermissionCacheWarmUp（Order=10）之后提交。
  *
- * <p><b>为什么用同步 rebuildBatch 而不是 rebuildAsync：</b><br>
- * 启动预热需要保证服务完全就绪前 Qdrant 已有数据，
- * 否则冷启动初期所有向量检索都会 miss，全部退化为关键词匹配。
+ * <p><b>为什么不等预热完成：</b><br>
+ * 数据源多、快照缺失时从 Qdrant 全量加载向量，逐个数据源提取 + 向量化更可能耗时数分钟，
+ * 同步执行会拖住整个启动。这里只提交预热任务就返回，服务马上就绪；
+ * 加载完成前检索走 Qdrant，索引未完成的数据源检索无命中，
+ * 由 VectorSchemaLinker 降级为关键词匹配，进度可通过管理接口查询。
+ *
+ * <p><b>多实例：</b>每个数据源提交任务前抢 {@code lock:index:boot:{dataSourceId}}，
+ * 多个实例同时启动或滚动重启时，锁有效期（{@code index-job.boot-lock-seconds}）内只由一个实例提交。
  *
  * <p>若 Qdrant 不可达，只记录 error 日志并提前返回，
  * 系统以纯关键词匹配模式运行，不中断启动。
@@ -43,41 +52,57 @@ public class SchemaIndexingBootstrap implements ApplicationRunner {
     private final DataSourceMapper       dataSourceMapper;
     private final SchemaIndexingFacade   schemaIndexingFacade;
     private final SchemaIndexingService  schemaIndexingService;
-
-    /**
-     * 向量维度：1024
-     *
-     * <p><b>注意：</b>此值一旦确定并写入 Qdrant Collection，不可在线变更。
-     * 如需修改维度，须删除 Collection 重建（会清空所有索引）。
-     */
-    private static final int VECTOR_SIZE = 1024;
+    private final EmbeddingService       embeddingService;
+    private final CacheService           cacheService;
+    private final IndexJobProperties     properties;
+    private final ExecutorService        indexJobExecutor;
 
     @Override
     public void run(ApplicationArguments args) {
+        indexJobExecutor.execute(() -> {
+            try {
+                warmUp();
+            } catch (Exception e) {
+                log.error("[SchemaIndexingBootstrap] 向量索引预热失败，检索将走 Qdrant / 关键词匹配: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void warmUp() {
         log.info("===== [SchemaIndexingBootstrap] 向量索引预热开始 =====");
 
+        // 查询所有未逻辑删除的数据源
+        List<DataSource> allDs = dataSourceMapper.selectList(null);
+        List<Long> dsIds = allDs.stream().map(DataSource::getId).toList();
+
+        // 进程内索引先行加载：有快照时不依赖 Qdrant
+        schemaIndexingService.warmUpLocalIndex(dsIds);
+
         // 确保 Collection 存在（首次部署自动建库）
+        // 向量维度取当前 Embedding 模型的输出维度，建库后不可在线变更，切换模型须更换 Collection
         try {
-            schemaIndexingService.ensureCollection(VECTOR_SIZE);
+            schemaIndexingService.ensureCollection(embeddingService.dimension());
         } catch (Exception e) {
             log.error("[SchemaIndexingBootstrap] Qdrant 不可用，" +
-                    "向量检索将全程降级为关键词匹配: {}", e.getMessage());
+                    "未加载快照的数据源将降级为关键词匹配: {}", e.getMessage());
             return;
         }
 
-        // 查询所有未逻辑删除的数据源
-        List<DataSource> allDs = dataSourceMapper.selectList(null);
-        if (allDs.isEmpty()) {
+        if (dsIds.isEmpty()) {
             log.info("[SchemaIndexingBootstrap] 无数据源，跳过预热");
             return;
         }
 
-        List<Long> dsIds = allDs.stream().map(DataSource::getId).toList();
-        log.info("[SchemaIndexingBootstrap] 发现 {} 个数据源，开始全量重建...", dsIds.size());
-
-        // 同步批量重建
-        schemaIndexingFacade.rebuildBatch(dsIds);
+        int submitted = 0;
+        for (Long dsId : dsIds) {
+            if (cacheService.tryLockIndexBootstrap(dsId, properties.getBootLockSeconds())) {
+                schemaIndexingFacade.rebuildAsync(dsId);
+                submitted++;
+            } else {
+                log.info("[SchemaIndexingBootstrap] 数据源 {} 的启动索引任务已由其他实例提交，跳过", dsId);
+            }
+        }
 
-        log.info("===== [SchemaIndexingBootstrap] 向量索引预热完成 =====");
+        log.info("===== [SchemaIndexingBootstrap] 已提交 {}/{} 个数据源的索引任务 =====", submitted, dsIds.size());
     }
 }
\ No newline at end of file
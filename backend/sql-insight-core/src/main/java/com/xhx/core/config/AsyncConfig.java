@@ -1,16 +1,22 @@
 package com.xhx.core.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @author master
  */
 @Configuration
+@EnableConfigurationProperties({SqlGenerationProperties.class, LlmCacheProperties.class,
+        EmbeddingCacheProperties.class, IndexJobProperties.class, MetadataExtractionProperties.class,
+        SchemaWatchProperties.class})
 public class AsyncConfig {
 
     @Bean(name = "aiExecutor")
@@ -24,4 +30,58 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * 多候选 SQL 生成专用线程池
+     * 与 aiExecutor 隔离：候选任务由 aiExecutor 中的对话线程派生，共用同一个池容易互相等待
+     */
+    @Bean(name = "llmCandidateExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService llmCandidateExecutor(SqlGenerationProperties properties) {
+        return Executors.newFixedThreadPool(properties.getCandidatePoolSize(), r -> {
+            Thread t = new Thread(r);
+            t.setName("llm-candidate-" + t.getId());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Schema 索引任务线程池：每个数据源一个任务，并发数即同时建索引的数据源数
+     */
+    @Bean(name = "indexJobExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService indexJobExecutor(IndexJobProperties properties) {
+        return Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()), r -> {
+            Thread t = new Thread(r);
+            t.setName("index-job-" + t.getId());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 元数据分片提取线程池：大 Schema 的表名按分片各占一个目标库连接并行提取
+     */
+    @Bean(name = "metadataExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService metadataExecutor(MetadataExtractionProperties properties) {
+        return Executors.newFixedThreadPool(Math.max(1, properties.getPoolSize()), r -> {
+            Thread t = new Thread(r);
+            t.setName("metadata-extract-" + t.getId());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 元数据缓存后台刷新线程池：软过期的 schema / 表名缓存在这里刷新，请求线程直接返回旧值。
+     * 刷新任务会把提取分片提交到 metadataExecutor 并等待，不能与其共用
+     */
+    @Bean(name = "cacheRefreshExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService cacheRefreshExecutor() {
+        return Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r);
+            t.setName("cache-refresh-" + t.getId());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package com.xhx.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Embedding 向量缓存配置
+ *
+ * <p>key 为内容摘要，文本不变向量就不变，因此 Redis TTL 可以设得很长，
+ * 只用于淘汰长期不再出现的文本。
+ *
+ * @author master
+ */
+@Data
+@ConfigurationProperties(prefix = "sql-insight.embedding-cache")
+public class EmbeddingCacheProperties {
+
+    /** 是否启用 */
+    private boolean enabled = true;
+
+    /** 本地 LRU 最大条目数（1024 维约 4KB / 条） */
+    private long localMaxEntries = 5000;
+
+    /** Redis 缓存过期时间（天） */
+    private long redisTtlDays = 30;
+}
@@ -0,0 +1,29 @@
+package com.xhx.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Schema 索引后台任务配置
+ *
+ * @author master
+ */
+@Data
+@ConfigurationProperties(prefix = "sql-insight.index-job")
+public class IndexJobProperties {
+
+    /** 同时执行索引任务的数据源数 */
+    private int parallelism = 2;
+
+    /** 每块提取并同步的表数，每块完成后写一次断点 */
+    private int chunkSize = 50;
+
+    /** 单个任务每秒最多向量化的表数（保护 Embedding 配额），<= 0 不限速 */
+    private double embeddingsPerSecond = 20;
+
+    /** 任务状态与断点在 Redis 中的保留天数 */
+    private long stateTtlDays = 7;
+
+    /** 启动索引任务锁的持有秒数：此时间内其他实例启动不再为同一数据源提交任务 */
+    private long bootLockSeconds = 600;
+}
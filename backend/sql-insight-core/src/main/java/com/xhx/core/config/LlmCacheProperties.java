@@ -0,0 +1,32 @@
+package com.xhx.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * LLM 响应缓存配置
+ *
+ * <p>本地缓存承接同实例内的热点重复请求，Redis 在多实例间共享；
+ * 本地 TTL 应不大于 Redis TTL，避免 Redis 已过期而本地仍在返回旧结果。
+ *
+ * @author master
+ */
+@Data
+@ConfigurationProperties(prefix = "sql-insight.llm-cache")
+public class LlmCacheProperties {
+
+    /** 是否启用 */
+    private boolean enabled = true;
+
+    /** 本地缓存最大条目数 */
+    private long localMaxEntries = 1000;
+
+    /** 本地缓存过期时间（分钟） */
+    private long localTtlMinutes = 10;
+
+    /** Redis 缓存过期时间（分钟） */
+    private long redisTtlMinutes = 1440;
+
+    /** 单条响应最大字符数，超出不缓存 */
+    private int maxResponseChars = 20000;
+}
@@ -0,0 +1,36 @@
+package com.xhx.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 元数据提取并行度配置
+ *
+ * @author master
+ */
+@Data
+@ConfigurationProperties(prefix = "sql-insight.metadata")
+public class MetadataExtractionProperties {
+
+    /** 单个数据源同时用于提取元数据的连接数（目标库连接池上限为 10，建议不超过一半） */
+    private int parallelism = 4;
+
+    /** 按数据源 ID 覆盖并行度，如对负载敏感的生产库设为 1 */
+    private Map<Long, Integer> parallelismOverrides = new HashMap<>();
+
+    /** 每个分片至少包含的表数，表数不足时不拆分，避免为少量表多占连接 */
+    private int minTablesPerPartition = 200;
+
+    /** 所有数据源共享的提取线程数 */
+    private int poolSize = 8;
+
+    /** 单次提取的超时时间（秒） */
+    private long timeoutSeconds = 120;
+
+    public int parallelismFor(Long dataSourceId) {
+        return Math.max(1, parallelismOverrides.getOrDefault(dataSourceId, parallelism));
+    }
+}
@@ -0,0 +1,26 @@
+package com.xhx.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 表结构变更检测配置
+ *
+ * @author master
+ */
+@Data
+@ConfigurationProperties(prefix = "sql-insight.schema-watch")
+public class SchemaWatchProperties {
+
+    /** 是否定时检测目标库表结构变更 */
+    private boolean enabled = true;
+
+    /** 两轮检测之间的间隔（秒），即表结构变更到缓存失效的最长延迟 */
+    private long intervalSeconds = 300;
+
+    /** 启动后首轮检测的延迟（秒），避开启动预热 */
+    private long initialDelaySeconds = 120;
+
+    /** 单轮检测的分布式锁时长（秒），多实例部署时同一数据源每轮只由一个实例检测 */
+    private long lockSeconds = 60;
+}
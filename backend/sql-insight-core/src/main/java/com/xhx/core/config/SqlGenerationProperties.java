@@ -0,0 +1,62 @@
+package com.xhx.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL 生成配置
+ *
+ * <p><b>多候选模式：</b>candidateCount &gt; 1 时，LlmStage 并行发出多路生成请求，
+ * 每路逐个经过安全校验 + 目标库预检，第一个通过的候选胜出，其余取消。
+ * 两路模型均为 temperature 0，相同 prompt 必然得到相同输出，
+ * 因此候选之间通过追加不同的 variantHints 拉开差异。
+ *
+ * <p><b>字段裁剪：</b>ColumnPruneStage 对字段数超过 columnPruneMinColumns 的宽表
+ * 只保留相关字段，保留数不足 columnPruneKeep 时按原顺序补齐。
+ *
+ * <p><b>大表扫描：</b>估算行数达到 largeTableRows 的表，查询既没有索引前导列条件、
+ * 也不能靠行数限制提前结束时视为全表扫描。默认只记录告警；largeTableScanReject 开启时校验不通过
+ * （多候选模式下换用其他候选），注意全表 COUNT、GROUP BY 等统计查询也会被拒绝。
+ *
+ * @author master
+ */
+@Data
+@ConfigurationProperties(prefix = "sql-insight.generation")
+public class SqlGenerationProperties {
+
+    /** 并行候选数量，≤ 1 表示关闭多候选模式（默认） */
+    private int candidateCount = 1;
+
+    /** 等待候选结果的总超时（秒） */
+    private long candidateTimeoutSeconds = 60;
+
+    /** 候选生成线程池大小 */
+    private int candidatePoolSize = 16;
+
+    /** 是否对候选执行目标库预检（EXPLAIN / NOEXEC） */
+    private boolean probeEnabled = true;
+
+    /** 第 2..k 个候选追加到 systemPrompt 末尾的差异化提示 */
+    private List<String> variantHints = new ArrayList<>(List.of(
+            "补充要求：优先使用最简单的写法，能单表完成的查询不要关联其他表。",
+            "补充要求：只使用上面表结构中明确列出的表名和字段名，SELECT 中显式写出每个字段。"
+    ));
+
+    /** 是否开启宽表字段裁剪 */
+    private boolean columnPruneEnabled = true;
+
+    /** 字段数不超过该值的表不裁剪 */
+    private int columnPruneMinColumns = 40;
+
+    /** 裁剪后每张表最少保留的字段数 */
+    private int columnPruneKeep = 20;
+
+    /** 估算行数达到该值的表视为大表，≤ 0 关闭大表扫描校验 */
+    private long largeTableRows = 10_000_000;
+
+    /** 大表全表扫描时拒绝 SQL；关闭（默认）时只记录告警 */
+    private boolean largeTableScanReject = false;
+}
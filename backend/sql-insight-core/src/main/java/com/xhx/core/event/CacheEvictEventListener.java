@@ -1,8 +1,10 @@
 package com.xhx.core.event;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.xhx.ai.service.KeywordSchemaLinker;
 import com.xhx.core.service.cache.CacheService;
 import com.xhx.core.service.cache.PermissionLoader;
+import com.xhx.core.service.cache.SchemaCatalog;
 import com.xhx.core.service.sql.SchemaIndexingFacade;
 import com.xhx.dal.entity.User;
 import com.xhx.dal.mapper.UserDataSourceMapper;
@@ -21,7 +23,8 @@ import java.util.List;
  * <p>职责：
  * <ul>
  *   <li>角色权限变更 → 失效该角色下所有用户的权限缓存</li>
- *   <li>数据源删除   → 清理 Redis 缓存 + 删除 Qdrant 向量索引</li>
+ *   <li>数据源删除   → 清理 Redis 缓存 + 删除 Qdrant 向量索引 + 失效关键词倒排索引</li>
+ *   <li>数据源同步   → 重建向量索引 + 失效关键词倒排索引</li>
  * </ul>
  *
  * <p>全部 {@code @Async}，不阻塞业务主事务。
@@ -37,8 +40,10 @@ public class CacheEvictEventListener {
     private final UserMapper                 userMapper;
     private final PermissionLoader           permissionLoader;
     private final CacheService               cacheService;
+    private final SchemaCatalog              schemaCatalog;
     private final UserDataSourceMapper       userDataSourceMapper;
     private final SchemaIndexingFacade       schemaIndexingFacade;
+    private final KeywordSchemaLinker        keywordSchemaLinker;
 
     // ==================== 角色权限变更 ====================
 
@@ -77,7 +82,8 @@ public class CacheEvictEventListener {
 
         //失效 Redis 缓存
         cacheService.evictDsTables(dsId);
-        cacheService.evictSchema(dsId);
+        schemaCatalog.invalidate(dsId);
+        cacheService.evictSchemaFingerprint(dsId);
 
         //失效关联用户权限缓存
         List<Long> userIds = userDataSourceMapper.selectUserIdsByDataSourceId(dsId);
@@ -85,6 +91,7 @@ public class CacheEvictEventListener {
 
         // 删除 Qdrant 向量索引
         schemaIndexingFacade.deleteIndex(dsId);
+        keywordSchemaLinker.invalidate(dsId);
 
         log.info("[CacheEvict] 数据源 {} 清理完成：表名缓存、Schema 缓存、" +
                 "{} 个用户缓存、向量索引", dsId, userIds.size());
@@ -98,6 +105,7 @@ public class CacheEvictEventListener {
     public void onDataSourceSync(DataSourceSyncEvent event) {
         Long dsId = event.getDataSourceId();
         log.info("[CacheEvict] 捕捉同步事件，触发向量索引重建: {}", dsId);
+        keywordSchemaLinker.invalidate(dsId);
         schemaIndexingFacade.rebuildAsync(dsId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,240 @@
+package com.xhx.core.extractor.Impl;
+
+import com.xhx.common.model.ColumnMetadata;
+import com.xhx.common.model.IndexMetadata;
+import com.xhx.common.model.TableMetadata;
+import com.xhx.core.extractor.MetadataExtractor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * 基于系统目录的批量元数据提取
+ *
+ * <p><b>为什么不用 DatabaseMetaData：</b><br>
+ * getTables / getPrimaryKeys / getIndexInfo / getColumns 都只能按单表查询，
+ * 2000 张表就是 8000+ 次往返。这里改为对整批表名各执行一次集合查询：
+ * <ol>
+ *   <li>表注释与估算行数：(table_name, comment, row_count)</li>
+ *   <li>索引列：(table_name, index_name, column_name, seq_in_index, is_primary, is_unique)，主键与普通索引一次取回</li>
+ *   <li>字段：(table_name, column_name, type_name, comment)，按表名、字段序号排序</li>
+ * </ol>
+ * 结果在内存中按表名归组为 {@link TableMetadata}，往返次数与表数无关
+ * （表名按 {@link #chunkSize()} 分块绑定，避免超出驱动的参数个数上限）。
+ *
+ * <p>子类只提供三条 SQL（IN 列表位置用 {@code %s} 占位）和数据库名称；
+ * type_name 需与 JDBC getColumns 的 TYPE_NAME 格式一致，保证 Prompt 与索引内容哈希不因实现切换而变化。
+ * 另有一条不绑定参数的指纹查询（{@link #fingerprintSql()}），供表结构变更检测一次取回全部表的指纹。
+ *
+ * @author master
+ */
+@Slf4j
+public abstract class AbstractCatalogMetadataExtractor implements MetadataExtractor {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /**
+     * 日志与异常中的数据库名称
+     */
+    protected abstract String dbLabel();
+
+    /**
+     * 表注释查询，列：table_name, comment, row_count（统计信息中的估算行数，未知时为 NULL）
+     */
+    protected abstract String tablesSql();
+
+    /**
+     * 索引列查询，列：table_name, index_name, column_name, seq_in_index, is_primary, is_unique
+     * <p>
+     * seq_in_index 为列在索引中的位置（从 1 开始），小于 1 的行（如 SQL Server 的 INCLUDE 列）只标记 indexed，不计入索引列顺序
+     */
+    protected abstract String indexedColumnsSql();
+
+    /**
+     * 字段查询，列：table_name, column_name, type_name, comment，需按表名、字段序号排序
+     */
+    protected abstract String columnsSql();
+
+    /**
+     * 全部表的结构指纹查询，列：table_name, fingerprint；不绑定任何参数
+     */
+    protected abstract String fingerprintSql();
+
+    /**
+     * 绑定在表名 IN 列表之前的参数（如 schema 名），默认无
+     */
+    protected List<String> leadingParameters(Connection conn) throws SQLException {
+        return List.of();
+    }
+
+    /**
+     * 单次查询绑定的表名数量上限
+     */
+    protected int chunkSize() {
+        return DEFAULT_CHUNK_SIZE;
+    }
+
+    @Override
+    public List<TableMetadata> extract(Connection conn, List<String> tableNames) {
+        // 按入参顺序输出；目标库返回的表名大小写可能与入参不同，按忽略大小写归组
+        List<TableMetadata> tables = new ArrayList<>(tableNames.size());
+        Map<String, TableMetadata> byName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String tableName : tableNames) {
+            TableMetadata table = new TableMetadata();
+            table.setTableName(tableName);
+            table.setColumns(new ArrayList<>());
+            // 空列表表示「已采集、无索引」，null 只留给未采集统计信息的旧缓存
+            table.setIndexes(new ArrayList<>());
+            tables.add(table);
+            byName.putIfAbsent(tableName, table);
+        }
+
+        try {
+            List<String> leading = leadingParameters(conn);
+            List<String> distinct = new ArrayList<>(byName.keySet());
+            int size = Math.max(1, chunkSize());
+            for (int from = 0; from < distinct.size(); from += size) {
+                List<String> chunk = distinct.subList(from, Math.min(from + size, distinct.size()));
+                extractChunk(conn, leading, chunk, byName);
+            }
+        } catch (SQLException e) {
+            log.error("{} 元数据提取失败，表: {}", dbLabel(), tableNames, e);
+            throw new RuntimeException(dbLabel() + " 元数据提取异常", e);
+        }
+        return tables;
+    }
+
+    @Override
+    public Map<String, String> fingerprint(Connection conn) {
+        Map<String, String> fingerprints = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(fingerprintSql());
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                fingerprints.put(rs.getString("table_name"), Objects.toString(rs.getString("fingerprint"), ""));
+            }
+        } catch (SQLException e) {
+            log.error("{} 表结构指纹查询失败", dbLabel(), e);
+            throw new RuntimeException(dbLabel() + " 表结构指纹查询异常", e);
+        }
+        return fingerprints;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void extractChunk(Connection conn, List<String> leading, List<String> chunk,
+                              Map<String, TableMetadata> byName) throws SQLException {
+        query(conn, tablesSql(), leading, chunk, rs -> {
+            TableMetadata table = byName.get(rs.getString("table_name"));
+            if (table != null) {
+                table.setTableComment(rs.getString("comment"));
+                long rowCount = rs.getLong("row_count");
+                table.setRowCount(rs.wasNull() ? null : rowCount);
+            }
+        });
+
+        // 表名 → 列名集合（列名同样忽略大小写比对）
+        Map<String, Set<String>> primaryKeys = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Map<String, Set<String>> indexed = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        // 表名 → 索引名 → 索引定义（列按 seq_in_index 排序）
+        Map<String, Map<String, IndexBuilder>> indexes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        query(conn, indexedColumnsSql(), leading, chunk, rs -> {
+            String tableName = rs.getString("table_name");
+            String columnName = rs.getString("column_name");
+            if (columnName == null) {
+                return;
+            }
+            indexed.computeIfAbsent(tableName, k -> new TreeSet<>(String.CASE_INSENSITIVE_ORDER))
+                    .add(columnName);
+            boolean primary = rs.getBoolean("is_primary");
+            if (primary) {
+                primaryKeys.computeIfAbsent(tableName, k -> new TreeSet<>(String.CASE_INSENSITIVE_ORDER))
+                        .add(columnName);
+            }
+            int seq = rs.getInt("seq_in_index");
+            if (seq > 0) {
+                boolean unique = rs.getBoolean("is_unique");
+                indexes.computeIfAbsent(tableName, k -> new TreeMap<>())
+                        .computeIfAbsent(rs.getString("index_name"), name -> new IndexBuilder(name, primary, unique))
+                        .columns.put(seq, columnName);
+            }
+        });
+        indexes.forEach((tableName, byIndex) -> {
+            TableMetadata table = byName.get(tableName);
+            if (table != null) {
+                table.setIndexes(byIndex.values().stream()
+                        .sorted(Comparator.comparing((IndexBuilder index) -> !index.primary))
+                        .map(IndexBuilder::build)
+                        .toList());
+            }
+        });
+
+        query(conn, columnsSql(), leading, chunk, rs -> {
+            String tableName = rs.getString("table_name");
+            TableMetadata table = byName.get(tableName);
+            if (table == null) {
+                return;
+            }
+            String columnName = rs.getString("column_name");
+            table.getColumns().add(ColumnMetadata.builder()
+                    .name(columnName)
+                    .type(rs.getString("type_name"))
+                    .comment(rs.getString("comment"))
+                    .primaryKey(primaryKeys.getOrDefault(tableName, Set.of()).contains(columnName))
+                    .indexed(indexed.getOrDefault(tableName, Set.of()).contains(columnName))
+                    .build());
+        });
+    }
+
+    /**
+     * 逐行归并索引列时的中间态
+     */
+    private static final class IndexBuilder {
+        private final String name;
+        private final boolean primary;
+        private final boolean unique;
+        private final SortedMap<Integer, String> columns = new TreeMap<>();
+
+        private IndexBuilder(String name, boolean primary, boolean unique) {
+            this.name = name;
+            this.primary = primary;
+            this.unique = unique;
+        }
+
+        private IndexMetadata build() {
+            return IndexMetadata.builder()
+                    .name(name)
+                    .columns(List.copyOf(columns.values()))
+                    .primary(primary)
+                    .unique(unique || primary)
+                    .build();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    private void query(Connection conn, String sqlTemplate, List<String> leading, List<String> tableNames,
+                       RowHandler handler) throws SQLException {
+        String placeholders = String.join(",", Collections.nCopies(tableNames.size(), "?"));
+        try (PreparedStatement ps = conn.prepareStatement(sqlTemplate.formatted(placeholders))) {
+            int index = 1;
+            for (String parameter : leading) {
+                ps.setString(index++, parameter);
+            }
+            for (String tableName : tableNames) {
+                ps.setString(index++, tableName);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                }
+            }
+        }
+    }
+}
@@ -1,26 +1,27 @@
 package com.xhx.core.extractor.Impl;
 
-import com.xhx.core.extractor.MetadataExtractor;
-import com.xhx.common.model.ColumnMetadata;
-import com.xhx.common.model.TableMetadata;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.sql.*;
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.List;
-import java.util.Set;
 
 /**
  * MySQL 元数据提取器
- * MySQL 的表注释和字段注释通过标准 JDBC REMARKS 可以直接获取
- * 需要在 JDBC URL 中加上 useInformationSchema=true&remarks=true 才能拿到注释
+ * <p>
+ * 表注释、字段注释、索引均来自 information_schema（TABLES / COLUMNS / STATISTICS），
+ * 不依赖 JDBC URL 中的 useInformationSchema / remarks 参数。
+ * 行数取 TABLES.TABLE_ROWS：InnoDB 下是抽样估算值，MySQL 8 还受 information_schema_stats_expiry 缓存影响，
+ * 只用于区分量级。
+ * type_name 取 DATA_TYPE 大写并补 UNSIGNED，与 Connector/J getColumns 的 TYPE_NAME 一致。
+ * <p>
+ * 指纹不用 TABLES.UPDATE_TIME：它随每次 DML 变化（且 InnoDB 重启后为 NULL），会把数据变更误判为结构变更；
+ * CREATE_TIME 只在表重建时变化，INSTANT 加列、改注释都不会更新。
+ * 因此取 CREATE_TIME 加上字段、索引定义的 CRC32 之和，按表分组一次查出。
  * @author master
  */
-@Slf4j
 @Component
-public class MySqlMetadataExtractor implements MetadataExtractor {
+public class MySqlMetadataExtractor extends AbstractCatalogMetadataExtractor {
 
     @Override
     public boolean supports(String dbType) {
@@ -28,66 +29,77 @@ public class MySqlMetadataExtractor implements MetadataExtractor {
     }
 
     @Override
-    public List<TableMetadata> extract(Connection conn, List<String> tableNames) {
-        List<TableMetadata> tables = new ArrayList<>();
-        try {
-            DatabaseMetaData metaData = conn.getMetaData();
-            String catalog = conn.getCatalog();
-
-            for (String tableName : tableNames) {
-                TableMetadata table = new TableMetadata();
-                table.setTableName(tableName);
+    protected String dbLabel() {
+        return "MySQL";
+    }
 
-                // 提取表注释
-                try (ResultSet rs = metaData.getTables(catalog, null, tableName,
-                        new String[]{"TABLE"})) {
-                    if (rs.next()) {
-                        table.setTableComment(rs.getString("REMARKS"));
-                    }
-                }
+    @Override
+    protected List<String> leadingParameters(Connection conn) throws SQLException {
+        return List.of(conn.getCatalog());
+    }
 
-                // 提取主键
-                Set<String> primaryKeySet = new HashSet<>();
-                try (ResultSet rs = metaData.getPrimaryKeys(catalog, null, tableName)) {
-                    while (rs.next()) {
-                        primaryKeySet.add(rs.getString("COLUMN_NAME"));
-                    }
-                }
+    @Override
+    protected String tablesSql() {
+        return """
+                SELECT TABLE_NAME AS table_name,
+                       TABLE_COMMENT AS comment,
+                       TABLE_ROWS AS row_count
+                FROM information_schema.TABLES
+                WHERE TABLE_SCHEMA = ?
+                  AND TABLE_TYPE = 'BASE TABLE'
+                  AND TABLE_NAME IN (%s)
+                """;
+    }
 
-                // 提取索引
-                Set<String> indexSet = new HashSet<>();
-                try (ResultSet rs = metaData.getIndexInfo(catalog, null, tableName,
-                        false, false)) {
-                    while (rs.next()) {
-                        String colName = rs.getString("COLUMN_NAME");
-                        if (colName != null) {
-                            indexSet.add(colName);
-                        }
-                    }
-                }
+    @Override
+    protected String indexedColumnsSql() {
+        return """
+                SELECT TABLE_NAME AS table_name,
+                       INDEX_NAME AS index_name,
+                       COLUMN_NAME AS column_name,
+                       SEQ_IN_INDEX AS seq_in_index,
+                       INDEX_NAME = 'PRIMARY' AS is_primary,
+                       NON_UNIQUE = 0 AS is_unique
+                FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = ?
+                  AND TABLE_NAME IN (%s)
+                """;
+    }
 
-                // 提取字段
-                List<ColumnMetadata> cols = new ArrayList<>();
-                try (ResultSet rs = metaData.getColumns(catalog, null, tableName, null)) {
-                    while (rs.next()) {
-                        String colName = rs.getString("COLUMN_NAME");
-                        cols.add(ColumnMetadata.builder()
-                                .name(colName)
-                                .type(rs.getString("TYPE_NAME"))
-                                .comment(rs.getString("REMARKS"))
-                                .primaryKey(primaryKeySet.contains(colName))
-                                .indexed(indexSet.contains(colName))
-                                .build());
-                    }
-                }
+    @Override
+    protected String columnsSql() {
+        return """
+                SELECT TABLE_NAME AS table_name,
+                       COLUMN_NAME AS column_name,
+                       CONCAT(UPPER(DATA_TYPE),
+                              IF(COLUMN_TYPE LIKE '%% unsigned%%', ' UNSIGNED', '')) AS type_name,
+                       COLUMN_COMMENT AS comment
+                FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = ?
+                  AND TABLE_NAME IN (%s)
+                ORDER BY TABLE_NAME, ORDINAL_POSITION
+                """;
+    }
 
-                table.setColumns(cols);
-                tables.add(table);
-            }
-        } catch (SQLException e) {
-            log.error("MySQL 元数据提取失败，表: {}", tableNames, e);
-            throw new RuntimeException("MySQL 元数据提取异常", e);
-        }
-        return tables;
+    @Override
+    protected String fingerprintSql() {
+        return """
+                SELECT t.TABLE_NAME AS table_name,
+                       CONCAT_WS('|', t.CREATE_TIME, CRC32(t.TABLE_COMMENT), c.crc, s.crc) AS fingerprint
+                FROM information_schema.TABLES t
+                LEFT JOIN (SELECT TABLE_NAME,
+                                  SUM(CRC32(CONCAT_WS('|', ORDINAL_POSITION, COLUMN_NAME,
+                                                      COLUMN_TYPE, COLUMN_COMMENT))) AS crc
+                           FROM information_schema.COLUMNS
+                           WHERE TABLE_SCHEMA = DATABASE()
+                           GROUP BY TABLE_NAME) c ON c.TABLE_NAME = t.TABLE_NAME
+                LEFT JOIN (SELECT TABLE_NAME,
+                                  SUM(CRC32(CONCAT_WS('|', INDEX_NAME, SEQ_IN_INDEX, COLUMN_NAME))) AS crc
+                           FROM information_schema.STATISTICS
+                           WHERE TABLE_SCHEMA = DATABASE()
+                           GROUP BY TABLE_NAME) s ON s.TABLE_NAME = t.TABLE_NAME
+                WHERE t.TABLE_SCHEMA = DATABASE()
+                  AND t.TABLE_TYPE = 'BASE TABLE'
+                """;
     }
-}
\ No newline at end of file
+}
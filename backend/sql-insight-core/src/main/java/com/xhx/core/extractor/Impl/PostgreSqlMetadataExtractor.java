@@ -1,29 +1,23 @@
 package com.xhx.core.extractor.Impl;
 
-import com.xhx.core.extractor.MetadataExtractor;
-import com.xhx.common.model.ColumnMetadata;
-import com.xhx.common.model.TableMetadata;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.sql.*;
-import java.util.*;
-
 /**
  * PostgreSQL 元数据提取器
  * <p>
  * 与 MySQL 的主要差异：
- *   1. catalog 传 null，schema 用 "public"
+ *   1. 只查 "public" schema
  *   2. 表注释和字段注释不走标准 JDBC REMARKS，需要查 pg_description 系统表
- *   3. JDBC 驱动默认不填充 REMARKS，查系统表是更可靠的方式
+ *   3. 索引来自 pg_index（indisprimary 区分主键），列顺序按 indkey 展开的位置；字段类型取 pg_type.typname，
+ *      以 nextval 为默认值的整型列与 JDBC 驱动一样报告为 serial / bigserial / smallserial
+ *   4. 行数取 pg_class.reltuples（ANALYZE / VACUUM 时更新），从未分析过的表为 -1（PG 14+）或 0，前者视为未知
+ *   5. 指纹不用 pg_class.xmin / relfilenode：COMMENT ON 只写 pg_description、不动 pg_class 行，
+ *      改字段注释检测不到；直接对字段定义、注释、索引列取 md5，与提取内容一一对应
  *
  * @author master
  */
-@Slf4j
 @Component
-public class PostgreSqlMetadataExtractor implements MetadataExtractor {
-
-    private static final String DEFAULT_SCHEMA = "public";
+public class PostgreSqlMetadataExtractor extends AbstractCatalogMetadataExtractor {
 
     @Override
     public boolean supports(String dbType) {
@@ -31,148 +25,94 @@ public class PostgreSqlMetadataExtractor implements MetadataExtractor {
     }
 
     @Override
-    public List<TableMetadata> extract(Connection conn, List<String> tableNames) {
-        List<TableMetadata> tables = new ArrayList<>();
-        try {
-            DatabaseMetaData metaData = conn.getMetaData();
-
-            // 批量查询表注释和字段注释
-            Map<String, String> tableComments = fetchTableComments(conn, tableNames);
-            Map<String, Map<String, String>> columnComments =
-                    fetchColumnComments(conn, tableNames);
-
-            for (String tableName : tableNames) {
-                TableMetadata table = new TableMetadata();
-                table.setTableName(tableName);
-                table.setTableComment(tableComments.get(tableName));
-
-                // 提取主键
-                Set<String> primaryKeySet = new HashSet<>();
-                try (ResultSet rs = metaData.getPrimaryKeys(null, DEFAULT_SCHEMA, tableName)) {
-                    while (rs.next()) {
-                        primaryKeySet.add(rs.getString("COLUMN_NAME"));
-                    }
-                }
-
-                // 提取索引
-                Set<String> indexSet = new HashSet<>();
-                try (ResultSet rs = metaData.getIndexInfo(null, DEFAULT_SCHEMA, tableName,
-                        false, false)) {
-                    while (rs.next()) {
-                        String colName = rs.getString("COLUMN_NAME");
-                        if (colName != null) {
-                            indexSet.add(colName);
-                        }
-                    }
-                }
-
-                // 提取字段，注释从 pg_description 的查询结果里取
-                List<ColumnMetadata> cols = new ArrayList<>();
-                Map<String, String> colCommentMap =
-                        columnComments.getOrDefault(tableName, Collections.emptyMap());
-
-                try (ResultSet rs = metaData.getColumns(null, DEFAULT_SCHEMA, tableName, null)) {
-                    while (rs.next()) {
-                        String colName = rs.getString("COLUMN_NAME");
-                        cols.add(ColumnMetadata.builder()
-                                .name(colName)
-                                .type(rs.getString("TYPE_NAME"))
-                                .comment(colCommentMap.get(colName))
-                                .primaryKey(primaryKeySet.contains(colName))
-                                .indexed(indexSet.contains(colName))
-                                .build());
-                    }
-                }
-
-                table.setColumns(cols);
-                tables.add(table);
-            }
-        } catch (SQLException e) {
-            log.error("PostgreSQL 元数据提取失败，表: {}", tableNames, e);
-            throw new RuntimeException("PostgreSQL 元数据提取异常", e);
-        }
-        return tables;
+    protected String dbLabel() {
+        return "PostgreSQL";
     }
 
-    /**
-     * 批量查询表注释
-     * pg_description + pg_class 联查
-     */
-    private Map<String, String> fetchTableComments(Connection conn,
-                                                    List<String> tableNames) throws SQLException {
-        Map<String, String> result = new HashMap<>();
-        if (tableNames.isEmpty()) {
-            return result;
-        }
-
-        String placeholders = String.join(",",
-                Collections.nCopies(tableNames.size(), "?"));
-        String sql = """
+    @Override
+    protected String tablesSql() {
+        return """
                 SELECT c.relname AS table_name,
-                       d.description AS comment
+                       d.description AS comment,
+                       CASE WHEN c.reltuples < 0 THEN NULL ELSE c.reltuples::bigint END AS row_count
                 FROM pg_class c
                 JOIN pg_namespace n ON n.oid = c.relnamespace
                 LEFT JOIN pg_description d ON d.objoid = c.oid AND d.objsubid = 0
                 WHERE n.nspname = 'public'
-                  AND c.relkind = 'r'
+                  AND c.relkind IN ('r', 'p')
                   AND c.relname IN (%s)
-                """.formatted(placeholders);
-
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            for (int i = 0; i < tableNames.size(); i++) {
-                ps.setString(i + 1, tableNames.get(i));
-            }
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    result.put(rs.getString("table_name"), rs.getString("comment"));
-                }
-            }
-        }
-        return result;
+                """;
     }
 
-    /**
-     * 批量查询字段注释
-     * pg_description + pg_class + pg_attribute 联查
-     */
-    private Map<String, Map<String, String>> fetchColumnComments(
-            Connection conn, List<String> tableNames) throws SQLException {
-
-        // 结构：Map<tableName, Map<columnName, comment>>
-        Map<String, Map<String, String>> result = new HashMap<>();
-        if (tableNames.isEmpty()) {
-            return result;
-        }
+    @Override
+    protected String indexedColumnsSql() {
+        return """
+                SELECT c.relname AS table_name,
+                       ic.relname AS index_name,
+                       a.attname AS column_name,
+                       k.seq AS seq_in_index,
+                       i.indisprimary AS is_primary,
+                       i.indisunique AS is_unique
+                FROM pg_index i
+                JOIN pg_class c ON c.oid = i.indrelid
+                JOIN pg_class ic ON ic.oid = i.indexrelid
+                JOIN pg_namespace n ON n.oid = c.relnamespace
+                CROSS JOIN LATERAL unnest(i.indkey) WITH ORDINALITY AS k(attnum, seq)
+                JOIN pg_attribute a ON a.attrelid = c.oid AND a.attnum = k.attnum
+                WHERE n.nspname = 'public'
+                  AND c.relname IN (%s)
+                """;
+    }
 
-        String placeholders = String.join(",",
-                Collections.nCopies(tableNames.size(), "?"));
-        String sql = """
+    @Override
+    protected String columnsSql() {
+        return """
                 SELECT c.relname AS table_name,
                        a.attname AS column_name,
+                       CASE
+                           WHEN t.typname IN ('int2', 'int4', 'int8')
+                                AND pg_get_expr(ad.adbin, ad.adrelid) LIKE 'nextval(%%'
+                           THEN CASE t.typname
+                                    WHEN 'int2' THEN 'smallserial'
+                                    WHEN 'int4' THEN 'serial'
+                                    ELSE 'bigserial'
+                                END
+                           ELSE t.typname
+                       END AS type_name,
                        d.description AS comment
                 FROM pg_class c
                 JOIN pg_namespace n ON n.oid = c.relnamespace
-                JOIN pg_attribute a ON a.attrelid = c.oid AND a.attnum > 0
+                JOIN pg_attribute a ON a.attrelid = c.oid AND a.attnum > 0 AND NOT a.attisdropped
+                JOIN pg_type t ON t.oid = a.atttypid
+                LEFT JOIN pg_attrdef ad ON ad.adrelid = c.oid AND ad.adnum = a.attnum
                 LEFT JOIN pg_description d ON d.objoid = c.oid AND d.objsubid = a.attnum
                 WHERE n.nspname = 'public'
-                  AND c.relkind = 'r'
+                  AND c.relkind IN ('r', 'p')
                   AND c.relname IN (%s)
-                """.formatted(placeholders);
+                ORDER BY c.relname, a.attnum
+                """;
+    }
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            for (int i = 0; i < tableNames.size(); i++) {
-                ps.setString(i + 1, tableNames.get(i));
-            }
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String tableName = rs.getString("table_name");
-                    String columnName = rs.getString("column_name");
-                    String comment = rs.getString("comment");
-                    result.computeIfAbsent(tableName, k -> new HashMap<>())
-                            .put(columnName, comment);
-                }
-            }
-        }
-        return result;
+    @Override
+    protected String fingerprintSql() {
+        return """
+                SELECT c.relname AS table_name,
+                       md5(concat_ws('|',
+                           (SELECT string_agg(a.attnum || ':' || a.attname || ':'
+                                              || format_type(a.atttypid, a.atttypmod) || ':' || a.atthasdef,
+                                              ',' ORDER BY a.attnum)
+                            FROM pg_attribute a
+                            WHERE a.attrelid = c.oid AND a.attnum > 0 AND NOT a.attisdropped),
+                           (SELECT string_agg(d.objsubid || ':' || md5(d.description), ',' ORDER BY d.objsubid)
+                            FROM pg_description d
+                            WHERE d.objoid = c.oid AND d.classoid = 'pg_class'::regclass),
+                           (SELECT string_agg(i.indisprimary || ':' || i.indkey::text, ',' ORDER BY i.indexrelid)
+                            FROM pg_index i
+                            WHERE i.indrelid = c.oid))) AS fingerprint
+                FROM pg_class c
+                JOIN pg_namespace n ON n.oid = c.relnamespace
+                WHERE n.nspname = 'public'
+                  AND c.relkind IN ('r', 'p')
+                """;
     }
-}
\ No newline at end of file
+}
@@ -1,29 +1,28 @@
 package com.xhx.core.extractor.Impl;
 
-import com.xhx.core.extractor.MetadataExtractor;
-import com.xhx.common.model.ColumnMetadata;
-import com.xhx.common.model.TableMetadata;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.sql.*;
-import java.util.*;
-
 /**
  * SQL Server 元数据提取器
  * <p>
  * 与 MySQL 的主要差异：
- *   1. schema 默认 "dbo"，catalog 用 conn.getCatalog()
+ *   1. 只查默认 schema "dbo"
  *   2. 表注释和字段注释存在 sys.extended_properties 里，property_name = 'MS_Description'
- *   3. 索引通过 sys.indexes + sys.index_columns 查询
+ *   3. 索引通过 sys.indexes + sys.index_columns 查询（is_primary_key 区分主键），
+ *      字段类型取 TYPE_NAME，自增列与 JDBC 驱动一样追加 " identity"
+ *      索引列顺序取 key_ordinal，INCLUDE 列（key_ordinal = 0）只标记有索引
+ *   4. 行数取堆或聚集索引（index_id 0 / 1）各分区 sys.partitions.rows 之和。
+ *      与 sys.dm_db_partition_stats 同为估算值，但后者需要 VIEW DATABASE STATE 权限，只读账号通常没有
+ *   5. 单条语句参数上限 2100，表名按较小的块绑定
+ *   6. 指纹取 sys.tables.modify_date（ALTER TABLE、建 / 改索引时更新），
+ *      注释变更不更新 modify_date，另加 MS_Description 的校验和
  *
  * @author master
  */
-@Slf4j
 @Component
-public class SqlServerMetadataExtractor implements MetadataExtractor {
+public class SqlServerMetadataExtractor extends AbstractCatalogMetadataExtractor {
 
-    private static final String DEFAULT_SCHEMA = "dbo";
+    private static final int MAX_TABLES_PER_QUERY = 2000;
 
     @Override
     public boolean supports(String dbType) {
@@ -31,84 +30,24 @@ public class SqlServerMetadataExtractor implements MetadataExtractor {
     }
 
     @Override
-    public List<TableMetadata> extract(Connection conn, List<String> tableNames) {
-        List<TableMetadata> tables = new ArrayList<>();
-        try {
-            DatabaseMetaData metaData = conn.getMetaData();
-            String catalog = conn.getCatalog();
-
-            Map<String, String> tableComments = fetchTableComments(conn, tableNames);
-            Map<String, Map<String, String>> columnComments =
-                    fetchColumnComments(conn, tableNames);
-
-            for (String tableName : tableNames) {
-                TableMetadata table = new TableMetadata();
-                table.setTableName(tableName);
-                table.setTableComment(tableComments.get(tableName));
-
-                // 提取主键
-                Set<String> primaryKeySet = new HashSet<>();
-                try (ResultSet rs = metaData.getPrimaryKeys(catalog, DEFAULT_SCHEMA, tableName)) {
-                    while (rs.next()) {
-                        primaryKeySet.add(rs.getString("COLUMN_NAME"));
-                    }
-                }
-
-                // 提取索引
-                Set<String> indexSet = new HashSet<>();
-                try (ResultSet rs = metaData.getIndexInfo(catalog, DEFAULT_SCHEMA, tableName,
-                        false, false)) {
-                    while (rs.next()) {
-                        String colName = rs.getString("COLUMN_NAME");
-                        if (colName != null) {
-                            indexSet.add(colName);
-                        }
-                    }
-                }
-
-                // 提取字段
-                List<ColumnMetadata> cols = new ArrayList<>();
-                Map<String, String> colCommentMap =
-                        columnComments.getOrDefault(tableName, Collections.emptyMap());
-
-                try (ResultSet rs = metaData.getColumns(catalog, DEFAULT_SCHEMA, tableName, null)) {
-                    while (rs.next()) {
-                        String colName = rs.getString("COLUMN_NAME");
-                        cols.add(ColumnMetadata.builder()
-                                .name(colName)
-                                .type(rs.getString("TYPE_NAME"))
-                                .comment(colCommentMap.get(colName))
-                                .primaryKey(primaryKeySet.contains(colName))
-                                .indexed(indexSet.contains(colName))
-                                .build());
-                    }
-                }
-
-                table.setColumns(cols);
-                tables.add(table);
-            }
-        } catch (SQLException e) {
-            log.error("SQL Server 元数据提取失败，表: {}", tableNames, e);
-            throw new RuntimeException("SQL Server 元数据提取异常", e);
-        }
-        return tables;
+    protected String dbLabel() {
+        return "SQL Server";
     }
 
-    /**
-     * 查询表注释（sys.extended_properties，class=1 表示表，minor_id=0）
-     */
-    private Map<String, String> fetchTableComments(Connection conn,
-                                                    List<String> tableNames) throws SQLException {
-        Map<String, String> result = new HashMap<>();
-        if (tableNames.isEmpty()) {
-            return result;
-        }
+    @Override
+    protected int chunkSize() {
+        return MAX_TABLES_PER_QUERY;
+    }
 
-        String placeholders = String.join(",",
-                Collections.nCopies(tableNames.size(), "?"));
-        String sql = """
+    @Override
+    protected String tablesSql() {
+        return """
                 SELECT t.name AS table_name,
-                       ep.value AS comment
+                       ep.value AS comment,
+                       (SELECT SUM(p.rows)
+                        FROM sys.partitions p
+                        WHERE p.object_id = t.object_id
+                          AND p.index_id IN (0, 1)) AS row_count
                 FROM sys.tables t
                 LEFT JOIN sys.extended_properties ep
                     ON ep.major_id = t.object_id
@@ -117,37 +56,34 @@ public class SqlServerMetadataExtractor implements MetadataExtractor {
                    AND ep.name = 'MS_Description'
                 WHERE SCHEMA_NAME(t.schema_id) = 'dbo'
                   AND t.name IN (%s)
-                """.formatted(placeholders);
-
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            for (int i = 0; i < tableNames.size(); i++) {
-                ps.setString(i + 1, tableNames.get(i));
-            }
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    result.put(rs.getString("table_name"), rs.getString("comment"));
-                }
-            }
-        }
-        return result;
+                """;
     }
 
-    /**
-     * 查询字段注释（sys.extended_properties，class=1，minor_id=字段序号）
-     */
-    private Map<String, Map<String, String>> fetchColumnComments(
-            Connection conn, List<String> tableNames) throws SQLException {
-
-        Map<String, Map<String, String>> result = new HashMap<>();
-        if (tableNames.isEmpty()) {
-            return result;
-        }
+    @Override
+    protected String indexedColumnsSql() {
+        return """
+                SELECT t.name AS table_name,
+                       i.name AS index_name,
+                       c.name AS column_name,
+                       ic.key_ordinal AS seq_in_index,
+                       i.is_primary_key AS is_primary,
+                       i.is_unique AS is_unique
+                FROM sys.indexes i
+                JOIN sys.tables t ON t.object_id = i.object_id
+                JOIN sys.index_columns ic ON ic.object_id = i.object_id AND ic.index_id = i.index_id
+                JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id
+                WHERE SCHEMA_NAME(t.schema_id) = 'dbo'
+                  AND t.name IN (%s)
+                """;
+    }
 
-        String placeholders = String.join(",",
-                Collections.nCopies(tableNames.size(), "?"));
-        String sql = """
+    @Override
+    protected String columnsSql() {
+        return """
                 SELECT t.name AS table_name,
                        c.name AS column_name,
+                       TYPE_NAME(c.user_type_id)
+                           + CASE WHEN c.is_identity = 1 THEN ' identity' ELSE '' END AS type_name,
                        ep.value AS comment
                 FROM sys.tables t
                 JOIN sys.columns c ON c.object_id = t.object_id
@@ -158,22 +94,22 @@ public class SqlServerMetadataExtractor implements MetadataExtractor {
                    AND ep.name = 'MS_Description'
                 WHERE SCHEMA_NAME(t.schema_id) = 'dbo'
                   AND t.name IN (%s)
-                """.formatted(placeholders);
+                ORDER BY t.name, c.column_id
+                """;
+    }
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            for (int i = 0; i < tableNames.size(); i++) {
-                ps.setString(i + 1, tableNames.get(i));
-            }
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String tableName = rs.getString("table_name");
-                    String columnName = rs.getString("column_name");
-                    String comment = rs.getString("comment");
-                    result.computeIfAbsent(tableName, k -> new HashMap<>())
-                            .put(columnName, comment);
-                }
-            }
-        }
-        return result;
+    @Override
+    protected String fingerprintSql() {
+        return """
+                SELECT t.name AS table_name,
+                       CONVERT(varchar(30), t.modify_date, 126) + '|'
+                           + CAST(ISNULL((SELECT CHECKSUM_AGG(CHECKSUM(ep.minor_id, CAST(ep.value AS nvarchar(4000))))
+                                          FROM sys.extended_properties ep
+                                          WHERE ep.major_id = t.object_id
+                                            AND ep.class = 1
+                                            AND ep.name = 'MS_Description'), 0) AS varchar(11)) AS fingerprint
+                FROM sys.tables t
+                WHERE SCHEMA_NAME(t.schema_id) = 'dbo'
+                """;
     }
-}
\ No newline at end of file
+}
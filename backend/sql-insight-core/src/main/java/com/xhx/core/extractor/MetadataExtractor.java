@@ -4,6 +4,7 @@ import com.xhx.common.model.TableMetadata;
 
 import java.sql.Connection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 数据库元数据提取器接口
@@ -24,4 +25,17 @@ public interface MetadataExtractor {
      * @return 结构化元数据列表
      */
     List<TableMetadata> extract(Connection conn, List<String> tableNames);
-}
\ No newline at end of file
+
+    /**
+     * 查询库中全部表的结构指纹，供表结构变更检测使用
+     *
+     * <p>指纹只需在表的字段、类型、注释、索引变化时改变，格式由实现自定；
+     * 一次查询取回全部表，不按表往返。
+     *
+     * @param conn 目标数据库连接
+     * @return 表名 → 指纹；不支持变更检测时返回 null
+     */
+    default Map<String, String> fingerprint(Connection conn) {
+        return null;
+    }
+}
@@ -1,16 +1,28 @@
 package com.xhx.core.extractor;
 
 import com.xhx.common.model.TableMetadata;
+import com.xhx.core.config.MetadataExtractionProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
 
 /**
  * 元数据提取器路由
  * 根据 dbType 选择对应的提取器实现，对外屏蔽各数据库差异
+ *
+ * <p><b>分片并行：</b>{@link #extract(Long, String, DataSource, List)} 在表数较多时
+ * 把表名按原顺序切成连续分片，每个分片从连接池借一个连接在 {@code metadataExecutor} 中并行提取，
+ * 结果按分片顺序拼接，与单连接提取的输出顺序一致。
+ * 单个数据源的分片数受 {@code sql-insight.metadata.parallelism}（可按数据源覆盖）限制，
+ * 避免冷启动时占满目标库连接池。
  * @author master
  */
 @Slf4j
@@ -21,6 +33,9 @@ public class MetadataExtractorRouter {
     /** Spring 自动注入所有 MetadataExtractor 实现 */
     private final List<MetadataExtractor> extractors;
 
+    private final MetadataExtractionProperties properties;
+    private final ExecutorService metadataExecutor;
+
     /**
      * 根据数据库类型路由到对应提取器并执行元数据提取
      *
@@ -30,14 +45,95 @@ public class MetadataExtractorRouter {
      * @return 结构化元数据列表
      */
     public List<TableMetadata> extract(String dbType, Connection conn, List<String> tableNames) {
-        MetadataExtractor extractor = extractors.stream()
+        MetadataExtractor extractor = resolve(dbType);
+        log.debug("使用提取器: {} 处理数据库类型: {}",
+                extractor.getClass().getSimpleName(), dbType);
+        return extractor.extract(conn, tableNames);
+    }
+
+    /**
+     * 从连接池借连接提取元数据，表数较多时分片并行
+     *
+     * @param dataSourceId 数据源 ID（用于确定并行度）
+     * @param dbType       数据库类型
+     * @param dataSource   目标库连接池
+     * @param tableNames   需要提取的表名列表
+     * @return 与 tableNames 顺序一致的元数据列表
+     * @throws SQLException 获取连接失败
+     */
+    public List<TableMetadata> extract(Long dataSourceId, String dbType, DataSource dataSource,
+                                       List<String> tableNames) throws SQLException {
+        int partitions = Math.min(properties.parallelismFor(dataSourceId),
+                tableNames.size() / Math.max(1, properties.getMinTablesPerPartition()));
+        if (partitions <= 1) {
+            try (Connection conn = dataSource.getConnection()) {
+                return extract(dbType, conn, tableNames);
+            }
+        }
+
+        MetadataExtractor extractor = resolve(dbType);
+        int size = (tableNames.size() + partitions - 1) / partitions;
+        List<CompletableFuture<List<TableMetadata>>> futures = new ArrayList<>(partitions);
+        for (int from = 0; from < tableNames.size(); from += size) {
+            List<String> partition = tableNames.subList(from, Math.min(from + size, tableNames.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try (Connection conn = dataSource.getConnection()) {
+                    return extractor.extract(conn, partition);
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, metadataExecutor));
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(properties.getTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("元数据提取被中断", e);
+        } catch (TimeoutException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("元数据提取超时（" + properties.getTimeoutSeconds() + " 秒）", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("元数据提取失败: " + cause.getMessage(), cause);
+        }
+
+        List<TableMetadata> merged = new ArrayList<>(tableNames.size());
+        futures.forEach(f -> merged.addAll(f.join()));
+        log.info("数据源 {} 分 {} 片并行提取 {} 张表元数据，耗时 {} ms",
+                dataSourceId, futures.size(), tableNames.size(), System.currentTimeMillis() - start);
+        return merged;
+    }
+
+    /**
+     * 从连接池借一个连接查询全部表的结构指纹
+     *
+     * @return 表名 → 指纹；该数据库类型不支持变更检测时返回 null
+     * @throws SQLException 获取连接失败
+     */
+    public Map<String, String> fingerprint(String dbType, DataSource dataSource) throws SQLException {
+        MetadataExtractor extractor = resolve(dbType);
+        try (Connection conn = dataSource.getConnection()) {
+            return extractor.fingerprint(conn);
+        }
+    }
+
+    private MetadataExtractor resolve(String dbType) {
+        return extractors.stream()
                 .filter(e -> e.supports(dbType.toLowerCase()))
                 .findFirst()
                 .orElseThrow(() -> new IllegalArgumentException(
                         "不支持的数据库类型，没有对应的元数据提取器: " + dbType));
-
-        log.debug("使用提取器: {} 处理数据库类型: {}",
-                extractor.getClass().getSimpleName(), dbType);
-        return extractor.extract(conn, tableNames);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package com.xhx.core.model.vo;
+
+import com.xhx.ai.model.IndexSyncResult;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Schema 索引任务进度
+ * @author master
+ */
+@Data
+public class IndexJobVO {
+
+    public enum Status { PENDING, RUNNING, SUCCEEDED, FAILED }
+
+    private Long dataSourceId;
+    private String connName;
+    private Status status;
+    /** 是否从上次中断的断点继续 */
+    private boolean resumed;
+    /** 是否只同步表结构变更检测发现的表（否则为全量比对） */
+    private boolean targeted;
+    private int totalTables;
+    /** 已处理的表数（含断点中已完成的表） */
+    private int processedTables;
+    private int added;
+    private int changed;
+    private int removed;
+    private int unchanged;
+    private int failed;
+    private String error;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public static IndexJobVO pending(Long dataSourceId) {
+        IndexJobVO job = new IndexJobVO();
+        job.setDataSourceId(dataSourceId);
+        job.setStatus(Status.PENDING);
+        job.setSubmittedAt(LocalDateTime.now());
+        return job;
+    }
+
+    public boolean isActive() {
+        return status == Status.PENDING || status == Status.RUNNING;
+    }
+
+    public void accumulate(IndexSyncResult result, int processed) {
+        added += result.added();
+        changed += result.changed();
+        removed += result.removed();
+        unchanged += result.unchanged();
+        failed += result.failed();
+        processedTables += processed;
+    }
+}
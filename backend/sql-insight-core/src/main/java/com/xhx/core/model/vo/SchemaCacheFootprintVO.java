@@ -0,0 +1,27 @@
+package com.xhx.core.model.vo;
+
+import lombok.Data;
+
+/**
+ * Schema 缓存占用对比（按权限组合整体存储 vs 按表存储），按数据源当前的角色授权计算
+ * @author master
+ */
+@Data
+public class SchemaCacheFootprintVO {
+
+    private Long dataSourceId;
+    /** 在该数据源下有授权的角色数 */
+    private int roles;
+    /** 不同的授权表集合数（旧结构每个集合一个 key） */
+    private int permissionSets;
+    /** 各授权表集合的表数之和（旧结构存储的表定义份数） */
+    private int tableCopies;
+    /** 被授权的不同表数（新结构存储的表定义份数） */
+    private int distinctTables;
+    /** 旧结构的 value 字节数（UTF-8 JSON） */
+    private long perPermissionSetBytes;
+    /** 新结构的 field + value 字节数 */
+    private long perTableBytes;
+    /** 旧结构 / 新结构 */
+    private double ratio;
+}
@@ -0,0 +1,27 @@
+package com.xhx.core.service.cache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 认证会话快照：Token、系统权限与 Token 过期时间，认证过滤器每次请求只读这一份
+ *
+ * @param token           当前有效 Token，null 表示未登录或已登出
+ * @param sysPerm         系统权限（ROLE_ADMIN 等）
+ * @param expiresAtMillis Token 过期时间戳，无过期时间时为 Long.MAX_VALUE
+ * @author master
+ */
+public record AuthSession(String token, String sysPerm, long expiresAtMillis) {
+
+    /**
+     * Token 剩余分钟数，Token 不存在时为 -2（与 Redis TTL 语义一致）
+     */
+    public long expireMinutes() {
+        if (token == null) {
+            return -2;
+        }
+        if (expiresAtMillis == Long.MAX_VALUE) {
+            return -1;
+        }
+        return TimeUnit.MILLISECONDS.toMinutes(Math.max(0, expiresAtMillis - System.currentTimeMillis()));
+    }
+}
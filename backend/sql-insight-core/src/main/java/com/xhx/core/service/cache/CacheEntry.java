@@ -0,0 +1,11 @@
+package com.xhx.core.service.cache;
+
+/**
+ * 带软过期标记的缓存值
+ *
+ * @param value      缓存值
+ * @param refreshDue 已过软过期时间：值仍可使用，但应触发后台刷新
+ * @author master
+ */
+public record CacheEntry<T>(T value, boolean refreshDue) {
+}
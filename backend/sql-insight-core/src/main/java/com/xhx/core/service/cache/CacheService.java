@@ -2,6 +2,7 @@ package com.xhx.core.service.cache;
 
 import com.xhx.common.model.TableMetadata;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -9,6 +10,9 @@ import java.util.Set;
 /**
  * 统一缓存服务门面
  * 所有业务代码只允许通过此接口操作缓存，禁止直接操作 RedisTemplate
+ * <p>
+ * Token、系统权限、RoleId、表权限集合、查询策略在本地有短期近端缓存（见 UserNearCache），
+ * 对这些 key 的写入和失效会广播到所有节点
  * @author master
  */
 public interface CacheService {
@@ -19,6 +23,12 @@ public interface CacheService {
     void evictToken(Long userId);
     Long getTokenExpireMinutes(Long userId);
 
+    /**
+     * Token、系统权限、Token 过期时间的快照：本地近端缓存优先，未命中时一次往返从 Redis 取回。
+     * 登录 / 登出 / 改权限时各节点的本地副本通过发布订阅立即失效
+     */
+    AuthSession getAuthSession(Long userId);
+
     // ===== 用户系统权限（ROLE_ADMIN 等） =====
     void putUserSysPerm(Long userId, String perm);
     String getUserSysPerm(Long userId);
@@ -56,38 +66,112 @@ public interface CacheService {
     List<Long> getUserDsIds(Long userId);
     void evictUserDsIds(Long userId);
 
-    // ===== 数据源表名列表 =====
+    // ===== 数据源表名列表（软过期后照常返回，硬过期由 Redis TTL 控制） =====
     void putDsTables(Long dataSourceId, List<String> tables);
     /** @return null 表示缓存未命中 */
-    List<String> getDsTables(Long dataSourceId);
+    CacheEntry<List<String>> getDsTables(Long dataSourceId);
     void evictDsTables(Long dataSourceId);
 
-    // ===== Schema 元数据缓存（结构化，供 SchemaLinker 使用） =====
+    // ===== Schema 元数据缓存（按表存储，供 SchemaLinker 使用） =====
+    /**
+     * 批量读取表元数据（表名忽略大小写）
+     * @return 入参表名 → 元数据，只包含命中的表
+     */
+    Map<String, TableMetadata> getSchemaTables(Long dataSourceId, Collection<String> tableNames);
+
     /**
-     * 写入结构化 Schema 元数据
-     * @param dataSourceId 数据源ID
-     * @param permHash     有序表名列表的 hashCode（十六进制），不同权限组合各自独立缓存
-     * @param metadata     结构化元数据列表
+     * 写入表元数据，已存在的表覆盖；Hash 新建时设置软过期时间与硬过期 TTL，补写不延长
      */
-    void putSchemaMetadata(Long dataSourceId, String permHash, List<TableMetadata> metadata);
+    void putSchemaTables(Long dataSourceId, Collection<TableMetadata> metadata);
 
     /**
-     * 读取结构化 Schema 元数据
-     * @return null 表示缓存未命中
+     * 已缓存的表名（小写）
      */
-    List<TableMetadata> getSchemaMetadata(Long dataSourceId, String permHash);
+    Set<String> getSchemaTableNames(Long dataSourceId);
+
+    /**
+     * Schema 缓存是否已过软过期时间（缓存不存在时为 false）
+     */
+    boolean isSchemaRefreshDue(Long dataSourceId);
+
+    /**
+     * 后台刷新完成后重新计算软过期时间与硬过期 TTL
+     */
+    void renewSchemaExpiry(Long dataSourceId);
 
     /**
      * 失效某数据源下所有 Schema 缓存（表结构变更 / 数据源删除时调用）
      */
     void evictSchema(Long dataSourceId);
 
+    /**
+     * 只失效指定表的 Schema 缓存（表结构变更检测到个别表变化时调用）
+     */
+    void evictSchemaTables(Long dataSourceId, Collection<String> tableNames);
+
+    /**
+     * 把旧版按权限组合整体存储的 Schema 缓存拆为按表存储，并删除旧 key
+     * @return 迁移的旧 key 数
+     */
+    int migrateLegacySchemaCache();
+
+    // ===== 跨节点通知 =====
+    /**
+     * 向频道发布消息（进程内缓存失效通知，订阅方见 RedisPubSubConfig）
+     */
+    void publish(String channel, String message);
+
+    // ===== 表结构指纹（变更检测） =====
+    /**
+     * @return 上一轮检测记录的表名 → 指纹；从未检测过时为空 Map
+     */
+    Map<String, String> getSchemaFingerprint(Long dataSourceId);
+    void putSchemaFingerprint(Long dataSourceId, Map<String, String> fingerprints);
+    void evictSchemaFingerprint(Long dataSourceId);
+
+    /**
+     * 抢占本轮表结构检测，锁到期自动释放（不主动解锁，同时限制了检测频率）
+     * @return 是否抢到
+     */
+    boolean tryLockSchemaWatch(Long dataSourceId, long ttlSeconds);
+
+    /**
+     * 抢占数据源的启动索引任务，锁到期自动释放（不主动解锁，滚动重启时不会每个实例各跑一轮）
+     * @return 是否抢到
+     */
+    boolean tryLockIndexBootstrap(Long dataSourceId, long ttlSeconds);
+
+    // ===== 元数据加载锁（击穿保护） =====
+    /**
+     * 抢占元数据加载 / 刷新锁
+     *
+     * @param lockKey 完整锁 key（LOCK_METADATA_LOAD_KEY / LOCK_METADATA_REFRESH_KEY + 缓存 key）
+     * @param token   持有者标识，释放时校验，避免锁超时后误删他人的锁
+     */
+    boolean tryLockMetadata(String lockKey, String token, long ttlSeconds);
+
+    /**
+     * 释放元数据锁，仅当锁仍由 token 持有时删除
+     */
+    void unlockMetadata(String lockKey, String token);
+
     // ===== 批量失效（登出/踢人） =====
     void evictAllUserCache(Long userId);
 
     // ===== 续期 =====
     void renewUserSession(Long userId);
 
+    // ===== Schema 索引任务 =====
+    void putIndexJob(Long dataSourceId, String jobJson, long ttlDays);
+    String getIndexJob(Long dataSourceId);
+
+    /**
+     * 记录本轮索引任务已完成的表（断点），任务成功结束后清除
+     */
+    void addIndexCheckpoint(Long dataSourceId, Collection<String> tableNames, long ttlDays);
+    Set<String> getIndexCheckpoint(Long dataSourceId);
+    void evictIndexCheckpoint(Long dataSourceId);
+
     // ===== 查询结果缓存（Redis，TTL 24h） =====
 
     /**
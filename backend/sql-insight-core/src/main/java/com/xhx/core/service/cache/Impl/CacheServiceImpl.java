@@ -1,18 +1,27 @@
 package com.xhx.core.service.cache.Impl;
 
 import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
 import com.alibaba.fastjson2.TypeReference;
 import com.xhx.common.constant.SecurityConstants;
 import com.xhx.common.model.TableMetadata;
+import com.xhx.core.service.cache.AuthSession;
+import com.xhx.core.service.cache.CacheEntry;
 import com.xhx.core.service.cache.CacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * @author master
@@ -23,6 +32,16 @@ import java.util.concurrent.TimeUnit;
 public class CacheServiceImpl implements CacheService {
 
     private final StringRedisTemplate redisTemplate;
+    private final UserNearCache       nearCache;
+
+    /** 锁仍由 token 持有时才删除（GET + DEL 需原子执行） */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /** 旧版 Schema 缓存 key：schema:{dataSourceId}:{permHash} */
+    private static final Pattern LEGACY_SCHEMA_KEY =
+            Pattern.compile(Pattern.quote(SecurityConstants.SCHEMA_KEY) + "(\\d+):[0-9a-f]{64}");
 
     // ==================== Token ====================
 
@@ -33,22 +52,61 @@ public class CacheServiceImpl implements CacheService {
                 token,
                 SecurityConstants.TOKEN_TTL_HOURS, TimeUnit.HOURS
         );
+        // 重新登录会顶掉旧 Token，其他节点本地缓存的旧 Token 必须立即失效
+        nearCache.invalidate(userId);
     }
 
     @Override
     public String getToken(Long userId) {
-        return redisTemplate.opsForValue().get(SecurityConstants.TOKEN_KEY + userId);
+        return getAuthSession(userId).token();
     }
 
     @Override
     public void evictToken(Long userId) {
         redisTemplate.delete(SecurityConstants.TOKEN_KEY + userId);
+        nearCache.invalidate(userId);
     }
 
     @Override
     public Long getTokenExpireMinutes(Long userId) {
-        return redisTemplate.getExpire(
-                SecurityConstants.TOKEN_KEY + userId, TimeUnit.MINUTES);
+        return getAuthSession(userId).expireMinutes();
+    }
+
+    @Override
+    public AuthSession getAuthSession(Long userId) {
+        AuthSession[] loaded = new AuthSession[1];
+        AuthSession session = nearCache.get(nearCache.sessions, userId, () -> {
+            loaded[0] = loadAuthSession(userId);
+            // 只缓存完整的会话，未登录 / 权限快照缺失的请求每次都以 Redis 为准
+            return loaded[0].token() != null && loaded[0].sysPerm() != null ? loaded[0] : null;
+        });
+        return session != null ? session : loaded[0];
+    }
+
+    /**
+     * Token、系统权限、Token TTL 在一个管道里取回，一次往返
+     */
+    private AuthSession loadAuthSession(Long userId) {
+        String tokenKey = SecurityConstants.TOKEN_KEY + userId;
+        String permKey = SecurityConstants.USER_SYS_PERM_KEY + userId;
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForValue().get(tokenKey);
+                ops.opsForValue().get(permKey);
+                ops.getExpire(tokenKey);
+                return null;
+            }
+        });
+        String token = (String) results.get(0);
+        String sysPerm = (String) results.get(1);
+        long ttlSeconds = results.get(2) instanceof Long ttl ? ttl : -1;
+        long expiresAt = ttlSeconds >= 0
+                ? System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds)
+                : Long.MAX_VALUE;
+        return new AuthSession(token, sysPerm, expiresAt);
     }
 
     // ==================== 系统权限 ====================
@@ -60,16 +118,18 @@ public class CacheServiceImpl implements CacheService {
                 perm,
                 SecurityConstants.TOKEN_TTL_HOURS, TimeUnit.HOURS
         );
+        nearCache.invalidate(userId);
     }
 
     @Override
     public String getUserSysPerm(Long userId) {
-        return redisTemplate.opsForValue().get(SecurityConstants.USER_SYS_PERM_KEY + userId);
+        return getAuthSession(userId).sysPerm();
     }
 
     @Override
     public void evictUserSysPerm(Long userId) {
         redisTemplate.delete(SecurityConstants.USER_SYS_PERM_KEY + userId);
+        nearCache.invalidate(userId);
     }
 
     // ==================== RoleId ====================
@@ -81,17 +141,21 @@ public class CacheServiceImpl implements CacheService {
                 String.valueOf(roleId),
                 SecurityConstants.TOKEN_TTL_HOURS, TimeUnit.HOURS
         );
+        nearCache.invalidate(userId);
     }
 
     @Override
     public Long getUserRoleId(Long userId) {
-        String val = redisTemplate.opsForValue().get(SecurityConstants.USER_ROLE_ID_KEY + userId);
-        return val == null ? null : Long.parseLong(val);
+        return nearCache.get(nearCache.roleIds, userId, () -> {
+            String val = redisTemplate.opsForValue().get(SecurityConstants.USER_ROLE_ID_KEY + userId);
+            return val == null ? null : Long.parseLong(val);
+        });
     }
 
     @Override
     public void evictUserRoleId(Long userId) {
         redisTemplate.delete(SecurityConstants.USER_ROLE_ID_KEY + userId);
+        nearCache.invalidate(userId);
     }
 
     // ==================== 表权限集合 ====================
@@ -110,26 +174,31 @@ public class CacheServiceImpl implements CacheService {
         }
 
         redisTemplate.opsForValue().set(markKey, "1", ttl, TimeUnit.MINUTES);
+        nearCache.invalidate(userId);
         log.debug("用户 {} 权限缓存已写入，权限数量: {}", userId, permissions.size());
     }
 
     @Override
     public Set<String> getUserPermissions(Long userId) {
-        String markKey = SecurityConstants.USER_PERM_MARK_KEY + userId;
+        return nearCache.get(nearCache.permissions, userId, () -> {
+            String markKey = SecurityConstants.USER_PERM_MARK_KEY + userId;
 
-        if (Boolean.FALSE.equals(redisTemplate.hasKey(markKey))) {
-            return null;
-        }
+            if (Boolean.FALSE.equals(redisTemplate.hasKey(markKey))) {
+                return null;
+            }
 
-        Set<String> members = redisTemplate.opsForSet()
-                .members(SecurityConstants.USER_PERM_SET_KEY + userId);
-        return members == null ? Collections.emptySet() : members;
+            Set<String> members = redisTemplate.opsForSet()
+                    .members(SecurityConstants.USER_PERM_SET_KEY + userId);
+            // 不可变副本：本地缓存的集合被所有请求共享
+            return members == null ? Collections.emptySet() : Set.copyOf(members);
+        });
     }
 
     @Override
     public void evictUserPermissions(Long userId) {
         redisTemplate.delete(SecurityConstants.USER_PERM_SET_KEY + userId);
         redisTemplate.delete(SecurityConstants.USER_PERM_MARK_KEY + userId);
+        nearCache.invalidate(userId);
     }
 
     // ==================== 查询策略 ====================
@@ -141,16 +210,19 @@ public class CacheServiceImpl implements CacheService {
                 policyJson,
                 randomTtl(), TimeUnit.MINUTES
         );
+        nearCache.invalidate(userId);
     }
 
     @Override
     public String getUserPolicy(Long userId) {
-        return redisTemplate.opsForValue().get(SecurityConstants.USER_POLICY_KEY + userId);
+        return nearCache.get(nearCache.policies, userId,
+                () -> redisTemplate.opsForValue().get(SecurityConstants.USER_POLICY_KEY + userId));
     }
 
     @Override
     public void evictUserPolicy(Long userId) {
         redisTemplate.delete(SecurityConstants.USER_POLICY_KEY + userId);
+        nearCache.invalidate(userId);
     }
 
     // ==================== 数据源ID列表 ====================
@@ -180,19 +252,32 @@ public class CacheServiceImpl implements CacheService {
 
     @Override
     public void putDsTables(Long dataSourceId, List<String> tables) {
+        JSONObject value = new JSONObject();
+        value.put("tables", tables);
+        value.put("refreshAt", System.currentTimeMillis()
+                + TimeUnit.MINUTES.toMillis(SecurityConstants.DS_TABLES_TTL_MINUTES));
         redisTemplate.opsForValue().set(
                 SecurityConstants.DS_TABLES_KEY + dataSourceId,
-                JSON.toJSONString(tables),
-                SecurityConstants.DS_TABLES_TTL_MINUTES, TimeUnit.MINUTES
+                value.toJSONString(),
+                SecurityConstants.DS_TABLES_HARD_TTL_MINUTES, TimeUnit.MINUTES
         );
         log.debug("数据源 {} 表名缓存已写入，表数量: {}", dataSourceId, tables.size());
     }
 
     @Override
-    public List<String> getDsTables(Long dataSourceId) {
+    public CacheEntry<List<String>> getDsTables(Long dataSourceId) {
         String json = redisTemplate.opsForValue()
                 .get(SecurityConstants.DS_TABLES_KEY + dataSourceId);
-        return json == null ? null : JSON.parseArray(json, String.class);
+        if (json == null) {
+            return null;
+        }
+        if (json.startsWith("[")) {
+            // 旧格式（纯数组）没有软过期时间，照常返回并刷新为新格式
+            return new CacheEntry<>(JSON.parseArray(json, String.class), true);
+        }
+        JSONObject value = JSON.parseObject(json);
+        return new CacheEntry<>(value.getList("tables", String.class),
+                System.currentTimeMillis() >= value.getLongValue("refreshAt"));
     }
 
     @Override
@@ -203,36 +288,183 @@ public class CacheServiceImpl implements CacheService {
     // ==================== Schema 元数据缓存 ====================
 
     @Override
-    public void putSchemaMetadata(Long dataSourceId, String permHash, List<TableMetadata> metadata) {
-        String key = SecurityConstants.SCHEMA_KEY + dataSourceId + ":" + permHash;
-        redisTemplate.opsForValue().set(
-                key,
-                JSON.toJSONString(metadata),
-                SecurityConstants.SCHEMA_TTL_MINUTES, TimeUnit.MINUTES
-        );
-        log.debug("Schema 元数据缓存已写入，数据源: {}, hash: {}, 表数量: {}",
-                dataSourceId, permHash, metadata.size());
+    public Map<String, TableMetadata> getSchemaTables(Long dataSourceId, Collection<String> tableNames) {
+        if (CollectionUtils.isEmpty(tableNames)) {
+            return Collections.emptyMap();
+        }
+        List<String> names = new ArrayList<>(tableNames);
+        List<Object> fields = names.stream().<Object>map(this::schemaField).toList();
+        List<Object> values = redisTemplate.opsForHash()
+                .multiGet(SecurityConstants.SCHEMA_KEY + dataSourceId, fields);
+
+        Map<String, TableMetadata> hits = new HashMap<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            Object json = values.get(i);
+            if (json != null) {
+                hits.put(names.get(i), JSON.parseObject((String) json, TableMetadata.class));
+            }
+        }
+        return hits;
     }
 
     @Override
-    public List<TableMetadata> getSchemaMetadata(Long dataSourceId, String permHash) {
-        String key = SecurityConstants.SCHEMA_KEY + dataSourceId + ":" + permHash;
-        String json = redisTemplate.opsForValue().get(key);
-        if (json == null) {
-            return null;
+    public void putSchemaTables(Long dataSourceId, Collection<TableMetadata> metadata) {
+        if (CollectionUtils.isEmpty(metadata)) {
+            return;
         }
-        return JSON.parseObject(json, new TypeReference<>() {});
+        String key = SecurityConstants.SCHEMA_KEY + dataSourceId;
+        Map<String, String> fields = new HashMap<>(metadata.size());
+        metadata.forEach(t -> fields.put(schemaField(t.getTableName()), JSON.toJSONString(t)));
+        redisTemplate.opsForHash().putAll(key, fields);
+        // 过期时间从整个 Hash 创建时算起，不因后续补写延长，软过期后由后台刷新整体续期
+        Long ttl = redisTemplate.getExpire(key);
+        if (ttl == null || ttl < 0) {
+            renewSchemaExpiry(dataSourceId);
+        }
+        log.debug("Schema 元数据缓存已写入，数据源: {}, 表数量: {}", dataSourceId, metadata.size());
+    }
+
+    @Override
+    public Set<String> getSchemaTableNames(Long dataSourceId) {
+        Set<Object> fields = redisTemplate.opsForHash().keys(SecurityConstants.SCHEMA_KEY + dataSourceId);
+        Set<String> names = new HashSet<>(fields.size());
+        for (Object field : fields) {
+            if (!SecurityConstants.SCHEMA_REFRESH_AT_FIELD.equals(field)) {
+                names.add((String) field);
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public boolean isSchemaRefreshDue(Long dataSourceId) {
+        String key = SecurityConstants.SCHEMA_KEY + dataSourceId;
+        Object refreshAt = redisTemplate.opsForHash().get(key, SecurityConstants.SCHEMA_REFRESH_AT_FIELD);
+        if (refreshAt == null) {
+            // 迁移来的旧 Hash 没有软过期时间，存在即视为需要刷新
+            return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+        }
+        return System.currentTimeMillis() >= Long.parseLong((String) refreshAt);
+    }
+
+    @Override
+    public void renewSchemaExpiry(Long dataSourceId) {
+        String key = SecurityConstants.SCHEMA_KEY + dataSourceId;
+        redisTemplate.opsForHash().put(key, SecurityConstants.SCHEMA_REFRESH_AT_FIELD,
+                String.valueOf(System.currentTimeMillis()
+                        + TimeUnit.MINUTES.toMillis(SecurityConstants.SCHEMA_TTL_MINUTES)));
+        redisTemplate.expire(key, SecurityConstants.SCHEMA_HARD_TTL_MINUTES, TimeUnit.MINUTES);
     }
 
     @Override
     public void evictSchema(Long dataSourceId) {
-        String pattern = SecurityConstants.SCHEMA_KEY + dataSourceId + ":*";
-        Set<String> keys = redisTemplate.keys(pattern);
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
-            log.info("数据源 {} 的 Schema 缓存已全部失效，共删除 {} 个 key",
-                    dataSourceId, keys.size());
+        redisTemplate.delete(SecurityConstants.SCHEMA_KEY + dataSourceId);
+        log.info("数据源 {} 的 Schema 缓存已全部失效", dataSourceId);
+    }
+
+    @Override
+    public void evictSchemaTables(Long dataSourceId, Collection<String> tableNames) {
+        if (CollectionUtils.isEmpty(tableNames)) {
+            return;
+        }
+        Long deleted = redisTemplate.opsForHash().delete(SecurityConstants.SCHEMA_KEY + dataSourceId,
+                tableNames.stream().map(this::schemaField).distinct().toArray());
+        log.info("数据源 {} 表 {} 结构变更，失效 {} 张表的 Schema 缓存", dataSourceId, tableNames, deleted);
+    }
+
+    @Override
+    public int migrateLegacySchemaCache() {
+        Set<String> keys = redisTemplate.keys(SecurityConstants.SCHEMA_KEY + "*:*");
+        if (keys == null || keys.isEmpty()) {
+            return 0;
+        }
+        int migrated = 0;
+        for (String key : keys) {
+            Matcher matcher = LEGACY_SCHEMA_KEY.matcher(key);
+            if (!matcher.matches()) {
+                continue;
+            }
+            String json = redisTemplate.opsForValue().get(key);
+            if (json != null) {
+                List<TableMetadata> metadata = JSON.parseObject(json, new TypeReference<>() {});
+                String target = SecurityConstants.SCHEMA_KEY + matcher.group(1);
+                // 新结构中已有的表以新结构为准
+                metadata.forEach(t -> redisTemplate.opsForHash()
+                        .putIfAbsent(target, schemaField(t.getTableName()), JSON.toJSONString(t)));
+                Long ttl = redisTemplate.getExpire(target);
+                if (ttl == null || ttl < 0) {
+                    redisTemplate.expire(target, SecurityConstants.SCHEMA_HARD_TTL_MINUTES, TimeUnit.MINUTES);
+                }
+            }
+            redisTemplate.delete(key);
+            migrated++;
+        }
+        return migrated;
+    }
+
+    private String schemaField(String tableName) {
+        return tableName.toLowerCase(Locale.ROOT);
+    }
+
+    // ==================== 跨节点通知 ====================
+
+    @Override
+    public void publish(String channel, String message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    // ==================== 表结构指纹 ====================
+
+    @Override
+    public Map<String, String> getSchemaFingerprint(Long dataSourceId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash()
+                .entries(SecurityConstants.DS_FINGERPRINT_KEY + dataSourceId);
+        Map<String, String> fingerprints = new HashMap<>(entries.size());
+        entries.forEach((k, v) -> fingerprints.put((String) k, (String) v));
+        return fingerprints;
+    }
+
+    @Override
+    public void putSchemaFingerprint(Long dataSourceId, Map<String, String> fingerprints) {
+        String key = SecurityConstants.DS_FINGERPRINT_KEY + dataSourceId;
+        redisTemplate.delete(key);
+        if (fingerprints.isEmpty()) {
+            return;
         }
+        redisTemplate.opsForHash().putAll(key, fingerprints);
+        redisTemplate.expire(key, SecurityConstants.DS_FINGERPRINT_TTL_DAYS, TimeUnit.DAYS);
+    }
+
+    @Override
+    public void evictSchemaFingerprint(Long dataSourceId) {
+        redisTemplate.delete(SecurityConstants.DS_FINGERPRINT_KEY + dataSourceId);
+    }
+
+    @Override
+    public boolean tryLockSchemaWatch(Long dataSourceId, long ttlSeconds) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(
+                SecurityConstants.LOCK_SCHEMA_WATCH_KEY + dataSourceId, "1",
+                ttlSeconds, TimeUnit.SECONDS));
+    }
+
+    @Override
+    public boolean tryLockIndexBootstrap(Long dataSourceId, long ttlSeconds) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(
+                SecurityConstants.LOCK_INDEX_BOOT_KEY + dataSourceId, "1",
+                ttlSeconds, TimeUnit.SECONDS));
+    }
+
+    // ==================== 元数据加载锁 ====================
+
+    @Override
+    public boolean tryLockMetadata(String lockKey, String token, long ttlSeconds) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(
+                lockKey, token, ttlSeconds, TimeUnit.SECONDS));
+    }
+
+    @Override
+    public void unlockMetadata(String lockKey, String token) {
+        redisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), token);
     }
 
     // ==================== 批量失效 ====================
@@ -249,6 +481,7 @@ public class CacheServiceImpl implements CacheService {
                 SecurityConstants.USER_DS_IDS_KEY + userId
         );
         redisTemplate.delete(keys);
+        nearCache.invalidate(userId);
         log.info("用户 {} 全量缓存已清除", userId);
     }
 
@@ -263,6 +496,46 @@ public class CacheServiceImpl implements CacheService {
         );
         sessionKeys.forEach(key ->
                 redisTemplate.expire(key, SecurityConstants.TOKEN_TTL_HOURS, TimeUnit.HOURS));
+        // 续期只改过期时间，其他节点按旧的过期时间最多再触发一次续期，不必广播
+        nearCache.sessions.invalidate(userId);
+    }
+
+    // ==================== Schema 索引任务 ====================
+
+    @Override
+    public void putIndexJob(Long dataSourceId, String jobJson, long ttlDays) {
+        redisTemplate.opsForValue().set(
+                SecurityConstants.INDEX_JOB_KEY + dataSourceId,
+                jobJson,
+                ttlDays, TimeUnit.DAYS
+        );
+    }
+
+    @Override
+    public String getIndexJob(Long dataSourceId) {
+        return redisTemplate.opsForValue().get(SecurityConstants.INDEX_JOB_KEY + dataSourceId);
+    }
+
+    @Override
+    public void addIndexCheckpoint(Long dataSourceId, Collection<String> tableNames, long ttlDays) {
+        if (CollectionUtils.isEmpty(tableNames)) {
+            return;
+        }
+        String key = SecurityConstants.INDEX_JOB_DONE_KEY + dataSourceId;
+        redisTemplate.opsForSet().add(key, tableNames.toArray(new String[0]));
+        redisTemplate.expire(key, ttlDays, TimeUnit.DAYS);
+    }
+
+    @Override
+    public Set<String> getIndexCheckpoint(Long dataSourceId) {
+        Set<String> members = redisTemplate.opsForSet()
+                .members(SecurityConstants.INDEX_JOB_DONE_KEY + dataSourceId);
+        return members != null ? members : Collections.emptySet();
+    }
+
+    @Override
+    public void evictIndexCheckpoint(Long dataSourceId) {
+        redisTemplate.delete(SecurityConstants.INDEX_JOB_DONE_KEY + dataSourceId);
     }
 
     // ==================== 查询结果缓存 ====================
@@ -0,0 +1,126 @@
+package com.xhx.core.service.cache.Impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.xhx.ai.service.EmbeddingCache;
+import com.xhx.common.constant.SecurityConstants;
+import com.xhx.core.config.EmbeddingCacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedding 向量缓存实现：本地 Guava LRU + Redis 两级
+ *
+ * <p>Redis 中以 Base64(小端 float[]) 存储，比 JSON 数组体积小一半以上。
+ * Redis 不可用时降级为纯本地缓存，不影响向量化主流程。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+public class EmbeddingCacheImpl implements EmbeddingCache {
+
+    private final StringRedisTemplate       redisTemplate;
+    private final EmbeddingCacheProperties  properties;
+    private final Cache<String, List<Float>> localCache;
+
+    public EmbeddingCacheImpl(StringRedisTemplate redisTemplate, EmbeddingCacheProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.localCache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getLocalMaxEntries())
+                .build();
+    }
+
+    @Override
+    public List<Float> get(String key) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        List<Float> local = localCache.getIfPresent(key);
+        if (local != null) {
+            return local;
+        }
+        try {
+            String encoded = redisTemplate.opsForValue().get(SecurityConstants.EMBEDDING_KEY + key);
+            if (encoded != null) {
+                List<Float> vector = decode(encoded);
+                localCache.put(key, vector);
+                return vector;
+            }
+        } catch (Exception e) {
+            log.warn("Embedding 缓存读取 Redis 失败: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, List<Float>> getAll(List<String> keys) {
+        Map<String, List<Float>> result = new HashMap<>();
+        if (!properties.isEnabled() || keys.isEmpty()) {
+            return result;
+        }
+        List<String> remoteKeys = new ArrayList<>();
+        for (String key : keys) {
+            List<Float> local = localCache.getIfPresent(key);
+            if (local != null) {
+                result.put(key, local);
+            } else {
+                remoteKeys.add(key);
+            }
+        }
+        if (remoteKeys.isEmpty()) {
+            return result;
+        }
+        try {
+            List<String> encoded = redisTemplate.opsForValue().multiGet(
+                    remoteKeys.stream().map(k -> SecurityConstants.EMBEDDING_KEY + k).toList());
+            for (int i = 0; encoded != null && i < remoteKeys.size(); i++) {
+                if (encoded.get(i) != null) {
+                    List<Float> vector = decode(encoded.get(i));
+                    localCache.put(remoteKeys.get(i), vector);
+                    result.put(remoteKeys.get(i), vector);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Embedding 缓存批量读取 Redis 失败: {}", e.getMessage());
+        }
+        return result;
+    }
+
+    @Override
+    public void put(String key, List<Float> vector) {
+        if (!properties.isEnabled() || vector == null || vector.isEmpty()) {
+            return;
+        }
+        List<Float> copy = List.copyOf(vector);
+        localCache.put(key, copy);
+        try {
+            redisTemplate.opsForValue().set(SecurityConstants.EMBEDDING_KEY + key,
+                    encode(copy), properties.getRedisTtlDays(), TimeUnit.DAYS);
+        } catch (Exception e) {
+            log.warn("Embedding 缓存写入 Redis 失败: {}", e.getMessage());
+        }
+    }
+
+    private String encode(List<Float> vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.size() * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        vector.forEach(buffer::putFloat);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    private List<Float> decode(String encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encoded)).order(ByteOrder.LITTLE_ENDIAN);
+        List<Float> vector = new ArrayList<>(buffer.remaining() / Float.BYTES);
+        while (buffer.remaining() >= Float.BYTES) {
+            vector.add(buffer.getFloat());
+        }
+        return List.copyOf(vector);
+    }
+}
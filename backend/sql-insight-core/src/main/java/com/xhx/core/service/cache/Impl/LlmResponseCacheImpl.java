@@ -0,0 +1,177 @@
+package com.xhx.core.service.cache.Impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.xhx.ai.model.LlmCacheStats;
+import com.xhx.ai.service.LlmResponseCache;
+import com.xhx.common.constant.SecurityConstants;
+import com.xhx.core.config.LlmCacheProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LLM 响应缓存实现：本地 Guava Cache + Redis 两级
+ *
+ * <p>读：本地 → Redis（命中后回填本地）→ 未命中。
+ * 写：两级同时写入，tag 反查关系也写两份，保证任一实例都能按内容失效。
+ * 同一 tag 可能对应多个 key（不同 Prompt 生成同一条 SQL），反查关系在 Redis 中为 Set。
+ * 失效：删除 Redis 中 tag 对应的全部 key，并通过 {@code channel:llm:invalidate} 通知所有节点清除本地缓存。
+ * Redis 不可用时降级为纯本地缓存，不影响主流程。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+public class LlmResponseCacheImpl implements LlmResponseCache, MessageListener {
+
+    private final StringRedisTemplate redisTemplate;
+    private final LlmCacheProperties  properties;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final Cache<String, String> localCache;
+    /** tagHash → 本节点写入的 key */
+    private final Cache<String, Set<String>> localTags;
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong misses    = new AtomicLong();
+
+    public LlmResponseCacheImpl(StringRedisTemplate redisTemplate, LlmCacheProperties properties,
+                                RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.listenerContainer = listenerContainer;
+        this.localCache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getLocalMaxEntries())
+                .expireAfterWrite(properties.getLocalTtlMinutes(), TimeUnit.MINUTES)
+                .build();
+        this.localTags = CacheBuilder.newBuilder()
+                .maximumSize(properties.getLocalMaxEntries())
+                .expireAfterWrite(properties.getLocalTtlMinutes(), TimeUnit.MINUTES)
+                .build();
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(SecurityConstants.LLM_RESPONSE_INVALIDATE_CHANNEL));
+    }
+
+    @Override
+    public String get(String key) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        String local = localCache.getIfPresent(key);
+        if (local != null) {
+            localHits.incrementAndGet();
+            return local;
+        }
+        try {
+            String remote = redisTemplate.opsForValue().get(SecurityConstants.LLM_RESPONSE_KEY + key);
+            if (remote != null) {
+                redisHits.incrementAndGet();
+                localCache.put(key, remote);
+                return remote;
+            }
+        } catch (Exception e) {
+            log.warn("LLM 响应缓存读取 Redis 失败，降级为本地缓存: {}", e.getMessage());
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    @Override
+    public void put(String key, String response, String tag) {
+        if (!properties.isEnabled() || response.length() > properties.getMaxResponseChars()) {
+            return;
+        }
+        localCache.put(key, response);
+        String tagHash = tag == null || tag.isBlank() ? null : sha256(tag);
+        if (tagHash != null) {
+            localTags.asMap().computeIfAbsent(tagHash, k -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        try {
+            long ttl = properties.getRedisTtlMinutes();
+            redisTemplate.opsForValue().set(
+                    SecurityConstants.LLM_RESPONSE_KEY + key, response, ttl, TimeUnit.MINUTES);
+            if (tagHash != null) {
+                String tagKey = SecurityConstants.LLM_RESPONSE_TAG_KEY + tagHash;
+                redisTemplate.opsForSet().add(tagKey, key);
+                redisTemplate.expire(tagKey, ttl, TimeUnit.MINUTES);
+            }
+        } catch (Exception e) {
+            log.warn("LLM 响应缓存写入 Redis 失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void evictByTag(String tag) {
+        if (tag == null || tag.isBlank()) {
+            return;
+        }
+        String tagHash = sha256(tag);
+        Set<String> keys = new HashSet<>();
+        Set<String> local = localTags.asMap().remove(tagHash);
+        if (local != null) {
+            keys.addAll(local);
+        }
+        try {
+            String tagKey = SecurityConstants.LLM_RESPONSE_TAG_KEY + tagHash;
+            Set<String> remote = redisTemplate.opsForSet().members(tagKey);
+            if (remote != null) {
+                keys.addAll(remote);
+            }
+            redisTemplate.delete(tagKey);
+            if (!keys.isEmpty()) {
+                redisTemplate.delete(keys.stream().map(k -> SecurityConstants.LLM_RESPONSE_KEY + k).toList());
+                redisTemplate.convertAndSend(SecurityConstants.LLM_RESPONSE_INVALIDATE_CHANNEL, String.join(",", keys));
+            }
+        } catch (Exception e) {
+            log.warn("LLM 响应缓存失效 Redis 失败，其他节点本地缓存 {} 分钟内过期: {}",
+                    properties.getLocalTtlMinutes(), e.getMessage());
+        }
+        if (!keys.isEmpty()) {
+            localCache.invalidateAll(keys);
+            log.info("LLM 响应缓存已按内容失效，key: {}", keys);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (!body.isEmpty()) {
+            localCache.invalidateAll(Arrays.asList(body.split(",")));
+        }
+    }
+
+    @Override
+    public LlmCacheStats stats() {
+        return LlmCacheStats.of(localHits.get(), redisHits.get(), misses.get(), localCache.size());
+    }
+
+    private String sha256(String input) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
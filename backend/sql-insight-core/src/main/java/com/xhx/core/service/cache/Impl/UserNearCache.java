@@ -0,0 +1,115 @@
+package com.xhx.core.service.cache.Impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.xhx.common.constant.SecurityConstants;
+import com.xhx.core.service.cache.AuthSession;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 用户认证信息的本地近端缓存（CacheServiceImpl 专用）
+ *
+ * <p>认证过滤器、RoleStage、权限加载、SQL 校验每次请求都要读 Token、系统权限、RoleId、表权限集合和策略，
+ * 这些值只在登录、登出、改权限时变化。本地按 userId 缓存
+ * {@value SecurityConstants#USER_NEAR_CACHE_TTL_SECONDS} 秒，命中时不访问 Redis。
+ *
+ * <p><b>一致性：</b>
+ * <ul>
+ *   <li>任何写入 / 失效都清除本节点该用户的全部条目，并通过 {@code channel:user:invalidate} 通知其他节点</li>
+ *   <li>读 Redis 期间若发生过失效，读到的值只用于本次调用、不写入本地，避免旧值在失效之后回填</li>
+ *   <li>失效通知丢失（如 Redis 短暂断开）时，最长不一致时间为本地 TTL</li>
+ * </ul>
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserNearCache implements MessageListener {
+
+    private final StringRedisTemplate           redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    final Cache<Long, AuthSession> sessions    = newCache();
+    final Cache<Long, Long>        roleIds     = newCache();
+    final Cache<Long, Set<String>> permissions = newCache();
+    final Cache<Long, String>      policies    = newCache();
+
+    /** 每次失效递增，读 Redis 前后不一致说明期间发生过失效 */
+    private final AtomicLong epoch = new AtomicLong();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(SecurityConstants.USER_INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 本地命中直接返回，否则调用 loader 读 Redis；loader 返回 null 时不缓存
+     */
+    <V> V get(Cache<Long, V> cache, Long userId, Supplier<V> loader) {
+        V local = cache.getIfPresent(userId);
+        if (local != null) {
+            return local;
+        }
+        long seen = epoch.get();
+        V loaded = loader.get();
+        if (loaded != null && epoch.get() == seen) {
+            cache.put(userId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * 清除本节点并通知其他节点
+     */
+    void invalidate(Long userId) {
+        invalidateLocal(userId);
+        try {
+            redisTemplate.convertAndSend(SecurityConstants.USER_INVALIDATE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            log.warn("[UserNearCache] 用户 {} 失效通知发送失败，其他节点 {} 秒内过期: {}",
+                    userId, SecurityConstants.USER_NEAR_CACHE_TTL_SECONDS, e.getMessage());
+        }
+    }
+
+    /**
+     * 只清除本节点
+     */
+    void invalidateLocal(Long userId) {
+        epoch.incrementAndGet();
+        sessions.invalidate(userId);
+        roleIds.invalidate(userId);
+        permissions.invalidate(userId);
+        policies.invalidate(userId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            invalidateLocal(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("[UserNearCache] 无法解析失效通知: {}", e.getMessage());
+        }
+    }
+
+    private static <V> Cache<Long, V> newCache() {
+        return CacheBuilder.newBuilder()
+                .maximumSize(SecurityConstants.USER_NEAR_CACHE_MAX_ENTRIES)
+                .expireAfterWrite(SecurityConstants.USER_NEAR_CACHE_TTL_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.xhx.core.service.cache;
+
+import com.xhx.common.constant.SecurityConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 元数据缓存击穿保护（schema: / ds:tables:）
+ *
+ * <p><b>单飞加载：</b>缓存未命中时同一 key 只有一个加载者连目标库：
+ * <ul>
+ *   <li>进程内：第一个线程加载，其余线程等待同一个 Future</li>
+ *   <li>跨节点：加载前抢 {@code lock:meta:load:{key}}，没抢到的节点每 {@value #POLL_INTERVAL_MILLIS}ms 查一次缓存，
+ *       等持锁节点回填；锁释放后仍未命中则接手加载。
+ *       等待超过 {@value #LOAD_WAIT_MILLIS}ms 后不再等，直接加载（宁可多连一次目标库，也不让请求一直挂起）</li>
+ * </ul>
+ *
+ * <p><b>后台刷新：</b>软过期的条目照常返回，同时提交一次刷新：
+ * 进程内同一 key 只排一个任务，跨节点由 {@code lock:meta:refresh:{key}} 保证只有一个节点刷新。
+ * 刷新失败不影响旧值，硬过期前的下一次访问会再次触发。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MetadataLoadGuard {
+
+    private static final long LOAD_WAIT_MILLIS = 15_000;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final CacheService    cacheService;
+    private final ExecutorService cacheRefreshExecutor;
+
+    /** 本实例正在加载的 key */
+    private final ConcurrentMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    /** 本实例已提交刷新的 key */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 单飞加载
+     *
+     * @param key    缓存 key（锁 key 的后缀）
+     * @param lookup 查缓存，未命中返回 null
+     * @param loader 加载并回填缓存
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(String key, Supplier<T> lookup, Supplier<T> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loading.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            log.debug("[MetadataLoadGuard] {} 正在由本实例其他线程加载，等待结果", key);
+            try {
+                return (T) inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            T value = loadAcrossNodes(key, lookup, loader);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    /**
+     * 提交后台刷新；同一 key 已在刷新（本实例或其他节点）时直接返回
+     *
+     * @param key       缓存 key（锁 key 的后缀）
+     * @param refresher 重新加载并回填缓存
+     */
+    public void refreshAsync(String key, Runnable refresher) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            cacheRefreshExecutor.execute(() -> {
+                try {
+                    refresh(key, refresher);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            log.warn("[MetadataLoadGuard] {} 刷新任务被拒绝，下次访问再试", key);
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private <T> T loadAcrossNodes(String key, Supplier<T> lookup, Supplier<T> loader) {
+        String lockKey = SecurityConstants.LOCK_METADATA_LOAD_KEY + key;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + LOAD_WAIT_MILLIS;
+        while (true) {
+            if (cacheService.tryLockMetadata(lockKey, token, SecurityConstants.LOCK_METADATA_TTL_SECONDS)) {
+                try {
+                    // 持锁后再查一次，排队期间可能已被其他节点回填
+                    T cached = lookup.get();
+                    return cached != null ? cached : loader.get();
+                } finally {
+                    cacheService.unlockMetadata(lockKey, token);
+                }
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                log.warn("[MetadataLoadGuard] 等待其他节点加载 {} 超过 {}ms，直接加载", key, LOAD_WAIT_MILLIS);
+                return loader.get();
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return loader.get();
+            }
+            T cached = lookup.get();
+            if (cached != null) {
+                return cached;
+            }
+        }
+    }
+
+    private void refresh(String key, Runnable refresher) {
+        String lockKey = SecurityConstants.LOCK_METADATA_REFRESH_KEY + key;
+        String token = UUID.randomUUID().toString();
+        if (!cacheService.tryLockMetadata(lockKey, token, SecurityConstants.LOCK_METADATA_TTL_SECONDS)) {
+            log.debug("[MetadataLoadGuard] {} 正由其他节点刷新", key);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            refresher.run();
+            log.info("[MetadataLoadGuard] {} 软过期，后台刷新完成，耗时 {}ms", key, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("[MetadataLoadGuard] {} 后台刷新失败，继续使用旧值: {}", key, e.getMessage());
+        } finally {
+            cacheService.unlockMetadata(lockKey, token);
+        }
+    }
+}
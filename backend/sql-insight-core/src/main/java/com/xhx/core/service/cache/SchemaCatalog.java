@@ -0,0 +1,397 @@
+package com.xhx.core.service.cache;
+
+import com.alibaba.fastjson2.JSON;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.hash.Hashing;
+import com.xhx.ai.service.KeywordSchemaLinker;
+import com.xhx.common.constant.SecurityConstants;
+import com.xhx.common.exception.ServiceException;
+import com.xhx.common.model.ColumnMetadata;
+import com.xhx.common.model.IndexMetadata;
+import com.xhx.common.model.TableMetadata;
+import com.xhx.core.extractor.MetadataExtractorRouter;
+import com.xhx.core.service.management.DataSourcePasswordCipher;
+import com.xhx.dal.config.DynamicDataSourceManager;
+import com.xhx.dal.entity.DataSource;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 进程内 Schema 目录
+ *
+ * <p><b>为什么需要：</b><br>
+ * 每次生成 SQL 都要从 Redis 读出数 KB 的元数据 JSON 再反序列化成新对象，
+ * 而表结构往往数天不变。这里每个数据源保留一份不可变快照，所有请求共享同一批对象。
+ *
+ * <p><b>快照：</b>
+ * <ul>
+ *   <li>表按需加载（Redis Hash 优先，未命中再连目标库提取，同一批表跨节点只提取一次），加载后并入快照，已有表不再变化</li>
+ *   <li>表名、字段名、类型、注释统一驻留（intern），字段列表不可修改，调用方不得修改返回的对象</li>
+ *   <li>按权限过滤的视图首次访问时计算并按有序表名记忆，同一角色的请求直接复用</li>
+ *   <li>格式化后的表结构 Prompt 文本按表记忆</li>
+ * </ul>
+ *
+ * <p><b>版本：</b>任何表失效都会生成新版本快照（丢弃视图与 Prompt 记忆），并失效关键词倒排索引。
+ * 失效通过 Redis 发布订阅通知所有节点（包括本节点）；
+ * 快照最长保留 {@code SCHEMA_TTL_MINUTES}，作为漏收通知时的兜底。
+ *
+ * @author master
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchemaCatalog implements MessageListener {
+
+    /** 单个快照最多记忆的权限视图数，超出时清空重算 */
+    private static final int MAX_VIEWS = 256;
+
+    private static final long MAX_AGE_NANOS = TimeUnit.MINUTES.toNanos(SecurityConstants.SCHEMA_TTL_MINUTES);
+
+    private final CacheService             cacheService;
+    private final DynamicDataSourceManager dataSourceManager;
+    private final MetadataExtractorRouter  metadataExtractorRouter;
+    private final DataSourcePasswordCipher passwordCipher;
+    private final KeywordSchemaLinker      keywordSchemaLinker;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MetadataLoadGuard        metadataLoadGuard;
+
+    private final Interner<String> interner = Interners.newWeakInterner();
+
+    /** dataSourceId → 当前快照 */
+    private final ConcurrentMap<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /** dataSourceId → 最新版本号（快照被整体丢弃后重建时版本号继续递增） */
+    private final ConcurrentMap<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 失效通知
+     *
+     * @param tables 为空表示整个数据源
+     */
+    record Invalidation(Long dataSourceId, List<String> tables) {}
+
+    /**
+     * 数据源元数据快照：表集合只增不改，按对象身份比较
+     */
+    private static final class Snapshot {
+        final long version;
+        final long createdAtNanos;
+        /** 小写表名 → 元数据 */
+        final Map<String, TableMetadata> tables;
+        /** 有序表名拼接 → 按权限过滤的视图 */
+        final ConcurrentMap<String, List<TableMetadata>> views;
+        /** 小写表名 → Prompt 文本 */
+        final ConcurrentMap<String, String> promptTexts;
+
+        Snapshot(long version, long createdAtNanos, Map<String, TableMetadata> tables,
+                 ConcurrentMap<String, List<TableMetadata>> views, ConcurrentMap<String, String> promptTexts) {
+            this.version = version;
+            this.createdAtNanos = createdAtNanos;
+            this.tables = tables;
+            this.views = views;
+            this.promptTexts = promptTexts;
+        }
+
+        boolean expired() {
+            return System.nanoTime() - createdAtNanos >= MAX_AGE_NANOS;
+        }
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(SecurityConstants.SCHEMA_INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 按权限过滤的表元数据，顺序为表名升序
+     *
+     * @param dsConfig      数据源配置
+     * @param allowedTables 当前用户有权限的表名列表
+     * @return 不可修改的列表，元素为共享对象
+     */
+    public List<TableMetadata> view(DataSource dsConfig, List<String> allowedTables) {
+        if (CollectionUtils.isEmpty(allowedTables)) {
+            return List.of();
+        }
+        Long dsId = dsConfig.getId();
+        List<String> sortedTables = allowedTables.stream().distinct().sorted().toList();
+        String viewKey = String.join(",", sortedTables);
+
+        Snapshot snapshot = current(dsId);
+        List<TableMetadata> view = snapshot.views.get(viewKey);
+        if (view != null) {
+            return view;
+        }
+
+        List<String> missing = sortedTables.stream()
+                .filter(t -> !snapshot.tables.containsKey(key(t)))
+                .toList();
+        Snapshot target = missing.isEmpty() ? snapshot : extend(dsConfig, snapshot, missing);
+
+        view = sortedTables.stream().map(t -> target.tables.get(key(t))).toList();
+        if (target.views.size() >= MAX_VIEWS) {
+            target.views.clear();
+        }
+        target.views.put(viewKey, view);
+        return view;
+    }
+
+    /**
+     * 表结构 Prompt 文本；表对象来自当前快照时按表记忆，否则（如字段裁剪后的副本）现算
+     */
+    public String promptText(Long dataSourceId, TableMetadata table) {
+        Snapshot snapshot = dataSourceId != null ? snapshots.get(dataSourceId) : null;
+        if (snapshot != null) {
+            String key = key(table.getTableName());
+            if (snapshot.tables.get(key) == table) {
+                return snapshot.promptTexts.computeIfAbsent(key, k -> table.toPromptString());
+            }
+        }
+        return table.toPromptString();
+    }
+
+    /**
+     * 数据源当前快照版本，从未加载时为 0
+     */
+    public long version(Long dataSourceId) {
+        Snapshot snapshot = snapshots.get(dataSourceId);
+        return snapshot != null ? snapshot.version : 0;
+    }
+
+    /**
+     * 失效整个数据源（Redis 缓存 + 所有节点的快照）
+     */
+    public void invalidate(Long dataSourceId) {
+        cacheService.evictSchema(dataSourceId);
+        apply(dataSourceId, null);
+        publish(new Invalidation(dataSourceId, List.of()));
+    }
+
+    /**
+     * 只失效指定表（Redis 缓存 + 所有节点的快照）
+     */
+    public void invalidateTables(Long dataSourceId, Collection<String> tableNames) {
+        if (CollectionUtils.isEmpty(tableNames)) {
+            return;
+        }
+        cacheService.evictSchemaTables(dataSourceId, tableNames);
+        apply(dataSourceId, tableNames);
+        publish(new Invalidation(dataSourceId, new ArrayList<>(tableNames)));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Invalidation invalidation = JSON.parseObject(
+                    new String(message.getBody(), StandardCharsets.UTF_8), Invalidation.class);
+            apply(invalidation.dataSourceId(),
+                    CollectionUtils.isEmpty(invalidation.tables()) ? null : invalidation.tables());
+        } catch (Exception e) {
+            log.warn("[SchemaCatalog] 无法解析失效通知: {}", e.getMessage());
+        }
+    }
+
+    // ==================== 快照维护 ====================
+
+    private Snapshot current(Long dsId) {
+        return snapshots.compute(dsId, (id, cur) -> {
+            if (cur != null && !cur.expired()) {
+                return cur;
+            }
+            if (cur != null) {
+                // 到期重建：可能漏收过失效通知，关键词索引一并重建
+                keywordSchemaLinker.invalidate(id);
+            }
+            return new Snapshot(nextVersion(id), System.nanoTime(), Map.of(),
+                    new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        });
+    }
+
+    /**
+     * 加载缺失的表并入快照；加载期间快照已被替换（失效或并发扩充）时，本次结果只用于当前请求
+     */
+    private Snapshot extend(DataSource dsConfig, Snapshot snapshot, List<String> missing) {
+        Map<String, TableMetadata> tables = new HashMap<>(snapshot.tables);
+        tables.putAll(load(dsConfig, missing));
+        Map<String, TableMetadata> merged = Collections.unmodifiableMap(tables);
+
+        Snapshot extended = new Snapshot(snapshot.version, snapshot.createdAtNanos, merged,
+                snapshot.views, snapshot.promptTexts);
+        if (snapshots.replace(dsConfig.getId(), snapshot, extended)) {
+            return extended;
+        }
+        return new Snapshot(snapshot.version, snapshot.createdAtNanos, merged,
+                new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    private void apply(Long dsId, Collection<String> tableNames) {
+        if (dsId == null) {
+            return;
+        }
+        Snapshot updated = snapshots.computeIfPresent(dsId, (id, cur) -> {
+            if (tableNames == null) {
+                return null;
+            }
+            Map<String, TableMetadata> tables = new HashMap<>(cur.tables);
+            tableNames.forEach(t -> tables.remove(key(t)));
+            return new Snapshot(nextVersion(id), cur.createdAtNanos, Collections.unmodifiableMap(tables),
+                    new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        });
+        keywordSchemaLinker.invalidate(dsId);
+        log.info("[SchemaCatalog] 数据源 {} 快照失效{}，当前版本 {}",
+                dsId, tableNames == null ? "" : "，表: " + tableNames,
+                updated != null ? updated.version : "（待重建）");
+    }
+
+    private void publish(Invalidation invalidation) {
+        try {
+            cacheService.publish(SecurityConstants.SCHEMA_INVALIDATE_CHANNEL, JSON.toJSONString(invalidation));
+        } catch (Exception e) {
+            log.warn("[SchemaCatalog] 数据源 {} 失效通知发送失败，其他节点快照到期后自动重建: {}",
+                    invalidation.dataSourceId(), e.getMessage());
+        }
+    }
+
+    private long nextVersion(Long dsId) {
+        return versions.computeIfAbsent(dsId, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    // ==================== 加载 ====================
+
+    /**
+     * Redis Hash 优先，未命中的表连目标库提取并回写。
+     * 提取经 {@link MetadataLoadGuard} 单飞：同一批表在所有节点上同一时刻只提取一次；
+     * Hash 已过软过期时照常使用，并提交一次后台整体刷新
+     *
+     * @return 小写表名 → 驻留后的元数据
+     */
+    private Map<String, TableMetadata> load(DataSource dsConfig, List<String> tableNames) {
+        Long dsId = dsConfig.getId();
+        Map<String, TableMetadata> byName = new HashMap<>(cacheService.getSchemaTables(dsId, tableNames));
+        List<String> missing = tableNames.stream().filter(t -> !byName.containsKey(t)).toList();
+        if (!missing.isEmpty()) {
+            byName.putAll(metadataLoadGuard.load(loadKey(dsId, missing),
+                    () -> {
+                        Map<String, TableMetadata> hits = cacheService.getSchemaTables(dsId, missing);
+                        return hits.size() == missing.size() ? hits : null;
+                    },
+                    () -> extractMissing(dsConfig, missing)));
+        }
+        if (cacheService.isSchemaRefreshDue(dsId)) {
+            metadataLoadGuard.refreshAsync(SecurityConstants.SCHEMA_KEY + dsId, () -> refresh(dsConfig));
+        }
+
+        Map<String, TableMetadata> canonical = new HashMap<>(byName.size());
+        byName.forEach((name, table) -> canonical.put(key(name), canonicalize(table)));
+        return canonical;
+    }
+
+    /**
+     * 持有加载锁时执行：排队期间其他节点可能已回填部分表，只提取仍缺的
+     */
+    private Map<String, TableMetadata> extractMissing(DataSource dsConfig, List<String> tableNames) {
+        Map<String, TableMetadata> byName = new HashMap<>(cacheService.getSchemaTables(dsConfig.getId(), tableNames));
+        List<String> missing = tableNames.stream().filter(t -> !byName.containsKey(t)).toList();
+        if (missing.isEmpty()) {
+            return byName;
+        }
+        // 只提取未命中的表，其他权限组合已加载过的表直接复用
+        log.info("Schema 元数据缓存未命中 {}/{} 张表，从目标库加载，数据源: {} [{}]",
+                missing.size(), tableNames.size(), dsConfig.getConnName(), dsConfig.getDbType());
+        List<TableMetadata> loaded = extract(dsConfig, missing);
+        cacheService.putSchemaTables(dsConfig.getId(), loaded);
+        for (int i = 0; i < missing.size(); i++) {
+            byName.put(missing.get(i), loaded.get(i));
+        }
+        return byName;
+    }
+
+    /**
+     * 软过期后台刷新：重新提取 Hash 中已有的全部表并续期。
+     * Hash 字段是小写表名，按缓存内容中的原始表名提取（大小写敏感的库按小写查不到）；
+     * 已被删除的表（提取不到字段）不回写，由表结构变更检测清理
+     */
+    private void refresh(DataSource dsConfig) {
+        Long dsId = dsConfig.getId();
+        Set<String> cachedNames = cacheService.getSchemaTableNames(dsId);
+        if (cachedNames.isEmpty()) {
+            return;
+        }
+        List<String> tableNames = cacheService.getSchemaTables(dsId, cachedNames).values().stream()
+                .map(TableMetadata::getTableName)
+                .toList();
+        List<TableMetadata> loaded = extract(dsConfig, tableNames).stream()
+                .filter(t -> !CollectionUtils.isEmpty(t.getColumns()))
+                .toList();
+        cacheService.putSchemaTables(dsId, loaded);
+        cacheService.renewSchemaExpiry(dsId);
+    }
+
+    private List<TableMetadata> extract(DataSource dsConfig, List<String> tableNames) {
+        javax.sql.DataSource dataSource = dataSourceManager.getDataSource(passwordCipher.decryptedCopy(dsConfig));
+        try {
+            return metadataExtractorRouter.extract(dsConfig.getId(), dsConfig.getDbType(), dataSource, tableNames);
+        } catch (SQLException e) {
+            log.error("获取数据源 {} 的连接失败", dsConfig.getConnName(), e);
+            throw new ServiceException("数据库连接失败，请检查配置信息: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 单飞 key：同一数据源的同一批表（不同权限组合缺的表不同，分别加载）
+     */
+    private static String loadKey(Long dsId, List<String> tableNames) {
+        String joined = tableNames.stream().map(SchemaCatalog::key).sorted().collect(Collectors.joining(","));
+        return SecurityConstants.SCHEMA_KEY + dsId + ":" + Hashing.murmur3_128().hashString(joined, StandardCharsets.UTF_8);
+    }
+
+    private TableMetadata canonicalize(TableMetadata table) {
+        List<ColumnMetadata> columns = new ArrayList<>(table.getColumns() != null ? table.getColumns().size() : 0);
+        if (table.getColumns() != null) {
+            for (ColumnMetadata col : table.getColumns()) {
+                columns.add(new ColumnMetadata(intern(col.getName()), intern(col.getType()),
+                        intern(col.getComment()), col.isPrimaryKey(), col.isIndexed()));
+            }
+        }
+        TableMetadata copy = new TableMetadata();
+        copy.setTableName(intern(table.getTableName()));
+        copy.setTableComment(intern(table.getTableComment()));
+        copy.setColumns(Collections.unmodifiableList(columns));
+        copy.setRowCount(table.getRowCount());
+        if (table.getIndexes() != null) {
+            List<IndexMetadata> indexes = new ArrayList<>(table.getIndexes().size());
+            for (IndexMetadata index : table.getIndexes()) {
+                indexes.add(new IndexMetadata(intern(index.getName()),
+                        index.getColumns().stream().map(this::intern).toList(),
+                        index.isPrimary(), index.isUnique()));
+            }
+            copy.setIndexes(Collections.unmodifiableList(indexes));
+        }
+        return copy;
+    }
+
+    private String intern(String s) {
+        return s != null ? interner.intern(s) : null;
+    }
+
+    private static String key(String tableName) {
+        return tableName.toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,6 +2,7 @@ package com.xhx.core.service.management.Impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xhx.common.constant.SecurityConstants;
 import com.xhx.common.context.UserContext;
 import com.xhx.common.exception.ConnectionException;
 import com.xhx.common.exception.NotExistException;
@@ -11,7 +12,10 @@ import com.xhx.core.event.DataSourceSyncEvent;
 import com.xhx.core.model.dto.DataSourceSaveDTO;
 import com.xhx.core.model.dto.DataSourceUpdateDTO;
 import com.xhx.core.model.vo.DataSourceVO;
+import com.xhx.core.service.cache.CacheEntry;
 import com.xhx.core.service.cache.CacheService;
+import com.xhx.core.service.cache.MetadataLoadGuard;
+import com.xhx.core.service.cache.SchemaCatalog;
 import com.xhx.core.service.management.DataSourcePasswordCipher;
 import com.xhx.core.service.management.DataSourceService;
 import com.xhx.core.service.management.UserDataSourceService;
@@ -50,8 +54,10 @@ public class DataSourceServiceImpl implements DataSourceService {
     private final TablePermissionMapper     tablePermissionMapper;
     private final UserDataSourceService     userDataSourceService;
     private final CacheService              cacheService;
+    private final SchemaCatalog             schemaCatalog;
     private final ApplicationEventPublisher eventPublisher;
     private final DataSourcePasswordCipher  passwordCipher;
+    private final MetadataLoadGuard         metadataLoadGuard;
 
     /**
      * 数据库类型 -> 驱动类名映射表
@@ -104,19 +110,25 @@ public class DataSourceServiceImpl implements DataSourceService {
                 });
     }
 
+    /**
+     * 表名列表：软过期后照常返回旧值并后台刷新；未命中时同一数据源只有一个加载者连目标库
+     */
     @Override
     public List<String> getTableNames(Long id) {
-        List<String> cached = cacheService.getDsTables(id);
+        String key = SecurityConstants.DS_TABLES_KEY + id;
+        CacheEntry<List<String>> cached = cacheService.getDsTables(id);
         if (cached != null) {
-            return cached;
-        }
-        DataSource ds = dataSourceMapper.selectById(id);
-        if (ds == null) {
-            throw new NotExistException("数据源不存在");
+            if (cached.refreshDue()) {
+                metadataLoadGuard.refreshAsync(key, () -> loadTableNames(id));
+            }
+            return cached.value();
         }
-        List<String> tables = fetchTableNamesFromTarget(ds);
-        cacheService.putDsTables(id, tables);
-        return tables;
+        return metadataLoadGuard.load(key,
+                () -> {
+                    CacheEntry<List<String>> entry = cacheService.getDsTables(id);
+                    return entry != null ? entry.value() : null;
+                },
+                () -> loadTableNames(id));
     }
 
     /**
@@ -127,7 +139,7 @@ public class DataSourceServiceImpl implements DataSourceService {
     @Override
     public List<String> refreshTableNames(Long id) {
         cacheService.evictDsTables(id);
-        cacheService.evictSchema(id);
+        schemaCatalog.invalidate(id);
         log.info("数据源 {} 表名缓存和 Schema 缓存已清除", id);
 
         // 表结构可能已变更，异步重建向量索引
@@ -292,6 +304,19 @@ public class DataSourceServiceImpl implements DataSourceService {
         return "连接失败: " + e.getMessage();
     }
 
+    /**
+     * 查数据源并从目标库读取表名，回填缓存
+     */
+    private List<String> loadTableNames(Long id) {
+        DataSource ds = dataSourceMapper.selectById(id);
+        if (ds == null) {
+            throw new NotExistException("数据源不存在");
+        }
+        List<String> tables = fetchTableNamesFromTarget(ds);
+        cacheService.putDsTables(id, tables);
+        return tables;
+    }
+
     /**
      * 从目标库获取用户表列表。
      * <ul>
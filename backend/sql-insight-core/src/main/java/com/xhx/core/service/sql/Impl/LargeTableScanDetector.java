@@ -0,0 +1,189 @@
+package com.xhx.core.service.sql.Impl;
+
+import com.xhx.common.model.IndexMetadata;
+import com.xhx.common.model.TableMetadata;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.select.FromItem;
+import net.sf.jsqlparser.statement.select.Join;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.sf.jsqlparser.util.TablesNamesFinder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 大表全表扫描检测
+ *
+ * <p>对语句中的每个 SELECT 块（含子查询），其 FROM / JOIN 中的大表满足以下全部条件时记为全表扫描：
+ * <ol>
+ *   <li>WHERE、ON、USING 中没有该表任一索引前导列上的条件（非前导列用不上索引）</li>
+ *   <li>不能靠行数限制提前结束：没有 LIMIT / TOP / FETCH，
+ *       或带 GROUP BY、DISTINCT、聚合函数，或 ORDER BY 首列不是索引前导列（需要先全量排序）</li>
+ * </ol>
+ * 无限定名的字段视为可能属于该块中的任一表，宁可漏报不误报。
+ *
+ * @author master
+ */
+final class LargeTableScanDetector extends TablesNamesFinder {
+
+    private static final Set<String> AGG_FUNCTIONS = Set.of("COUNT", "SUM", "AVG", "MAX", "MIN");
+
+    /** 小写表名 → 大表元数据 */
+    private final Map<String, TableMetadata> largeTables;
+
+    /** 第一个检测到的全表扫描 */
+    private TableMetadata violation;
+
+    LargeTableScanDetector(Map<String, TableMetadata> largeTables) {
+        this.largeTables = largeTables;
+    }
+
+    /**
+     * 去掉引号与方括号后的小写表名
+     */
+    static String normalize(String tableName) {
+        String name = tableName.contains(".") ? tableName.substring(tableName.lastIndexOf('.') + 1) : tableName;
+        return name.replaceAll("[`\"\\[\\]]", "").toLowerCase(Locale.ROOT);
+    }
+
+    TableMetadata violation() {
+        return violation;
+    }
+
+    @Override
+    public void visit(PlainSelect plainSelect) {
+        if (violation == null) {
+            inspect(plainSelect);
+        }
+        super.visit(plainSelect);
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void inspect(PlainSelect select) {
+        List<Table> tables = new ArrayList<>();
+        addTable(select.getFromItem(), tables);
+        List<Column> predicateColumns = new ArrayList<>();
+        collectColumns(select.getWhere(), predicateColumns);
+        if (select.getJoins() != null) {
+            for (Join join : select.getJoins()) {
+                addTable(join.getRightItem(), tables);
+                if (join.getOnExpressions() != null) {
+                    join.getOnExpressions().forEach(on -> collectColumns(on, predicateColumns));
+                }
+                if (join.getUsingColumns() != null) {
+                    predicateColumns.addAll(join.getUsingColumns());
+                }
+            }
+        }
+
+        for (Table table : tables) {
+            TableMetadata metadata = largeTables.get(normalize(table.getName()));
+            if (metadata == null) {
+                continue;
+            }
+            List<String> columns = predicateColumns.stream()
+                    .filter(col -> belongsTo(col, table))
+                    .map(Column::getColumnName)
+                    .toList();
+            if (!hasLeadingColumn(metadata, columns) && !stopsEarly(select, metadata, table)) {
+                violation = metadata;
+                return;
+            }
+        }
+    }
+
+    private void addTable(FromItem item, List<Table> tables) {
+        if (item instanceof Table table && table.getName() != null) {
+            tables.add(table);
+        }
+    }
+
+    /**
+     * 带行数限制、且数据库读到足够行即可返回
+     */
+    private boolean stopsEarly(PlainSelect select, TableMetadata metadata, Table table) {
+        if (select.getLimit() == null && select.getTop() == null && select.getFetch() == null) {
+            return false;
+        }
+        if (select.getGroupBy() != null || select.getDistinct() != null || hasAggregation(select)) {
+            return false;
+        }
+        List<OrderByElement> orderBy = select.getOrderByElements();
+        if (orderBy == null || orderBy.isEmpty()) {
+            return true;
+        }
+        return orderBy.get(0).getExpression() instanceof Column col
+                && belongsTo(col, table)
+                && hasLeadingColumn(metadata, List.of(col.getColumnName()));
+    }
+
+    private boolean hasAggregation(PlainSelect select) {
+        boolean[] found = {false};
+        ExpressionVisitorAdapter visitor = new ExpressionVisitorAdapter() {
+            @Override
+            public void visit(Function function) {
+                if (function.getName() != null && AGG_FUNCTIONS.contains(function.getName().toUpperCase(Locale.ROOT))) {
+                    found[0] = true;
+                }
+                super.visit(function);
+            }
+        };
+        for (SelectItem<?> item : select.getSelectItems()) {
+            if (item.getExpression() != null) {
+                item.getExpression().accept(visitor);
+            }
+        }
+        return found[0];
+    }
+
+    private static boolean hasLeadingColumn(TableMetadata metadata, List<String> columns) {
+        for (IndexMetadata index : metadata.getIndexes()) {
+            if (index.getColumns().isEmpty()) {
+                continue;
+            }
+            String leading = index.getColumns().get(0);
+            for (String column : columns) {
+                if (leading.equalsIgnoreCase(unquote(column))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean belongsTo(Column column, Table table) {
+        Table qualifier = column.getTable();
+        if (qualifier == null || qualifier.getName() == null) {
+            return true;
+        }
+        String name = unquote(qualifier.getName());
+        return (table.getAlias() != null && name.equalsIgnoreCase(unquote(table.getAlias().getName())))
+                || name.equalsIgnoreCase(unquote(table.getName()));
+    }
+
+    private static void collectColumns(Expression expression, List<Column> columns) {
+        if (expression == null) {
+            return;
+        }
+        expression.accept(new ExpressionVisitorAdapter() {
+            @Override
+            public void visit(Column column) {
+                columns.add(column);
+            }
+        });
+    }
+
+    private static String unquote(String identifier) {
+        return identifier.replaceAll("[`\"\\[\\]]", "");
+    }
+}
@@ -0,0 +1,163 @@
+package com.xhx.core.service.sql.Impl;
+
+import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.xhx.ai.model.DimensionEvaluationReport;
+import com.xhx.ai.model.EmbeddingBenchmarkReport;
+import com.xhx.ai.model.LabelledQuestion;
+import com.xhx.ai.service.EmbeddingBenchmark;
+import com.xhx.ai.service.EmbeddingDimensionEvaluator;
+import com.xhx.common.exception.ErrorCode;
+import com.xhx.common.exception.LoadingException;
+import com.xhx.common.model.TableMetadata;
+import com.xhx.core.extractor.MetadataExtractorRouter;
+import com.xhx.core.model.vo.SchemaCacheFootprintVO;
+import com.xhx.core.service.management.DataSourcePasswordCipher;
+import com.xhx.core.service.management.DataSourceService;
+import com.xhx.core.service.sql.SchemaDiagnosticsService;
+import com.xhx.dal.config.DynamicDataSourceManager;
+import com.xhx.dal.entity.DataSource;
+import com.xhx.dal.entity.TablePermission;
+import com.xhx.dal.mapper.DataSourceMapper;
+import com.xhx.dal.mapper.TablePermissionMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Schema 诊断与评测实现
+ *
+ * @author master
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SchemaDiagnosticsServiceImpl implements SchemaDiagnosticsService {
+
+    private final DataSourceMapper         dataSourceMapper;
+    private final DataSourceService        dataSourceService;
+    private final DynamicDataSourceManager dataSourceManager;
+    private final MetadataExtractorRouter  metadataExtractorRouter;
+    private final DataSourcePasswordCipher passwordCipher;
+    private final EmbeddingBenchmark       embeddingBenchmark;
+    private final EmbeddingDimensionEvaluator dimensionEvaluator;
+    private final TablePermissionMapper    tablePermissionMapper;
+
+    private static final int BENCHMARK_MAX_TABLES = 500;
+
+    @Override
+    public EmbeddingBenchmarkReport benchmarkEmbedding(Long dataSourceId, List<String> questions, int topK) {
+        if (questions == null || questions.isEmpty()) {
+            throw ErrorCode.INVALID_ARGUMENT.toException("评测问题不能为空");
+        }
+        return embeddingBenchmark.run(loadEvaluationTables(dataSourceId, List.of()), questions, topK);
+    }
+
+    @Override
+    public DimensionEvaluationReport evaluateDimensions(Long dataSourceId, List<LabelledQuestion> questions,
+                                                        List<Integer> dimensions, int topK) {
+        if (questions == null || questions.isEmpty()) {
+            throw ErrorCode.INVALID_ARGUMENT.toException("评测问题不能为空");
+        }
+        // 标注表优先进入评测范围，避免超过表数上限时被截掉
+        Set<String> labelled = new LinkedHashSet<>();
+        questions.forEach(q -> labelled.addAll(q.tables() != null ? q.tables() : List.of()));
+        return dimensionEvaluator.evaluate(loadEvaluationTables(dataSourceId, labelled),
+                questions, dimensions, topK);
+    }
+
+    @Override
+    public SchemaCacheFootprintVO schemaCacheFootprint(Long dataSourceId) {
+        DataSource dsConfig = loadDataSource(dataSourceId);
+        // 与 PermissionLoader 一致：授权表名统一小写，同一角色的用户共用一个授权集合
+        Map<Long, Set<String>> byRole = new HashMap<>();
+        tablePermissionMapper.selectList(new LambdaQueryWrapper<TablePermission>()
+                        .eq(TablePermission::getDataSourceId, dataSourceId))
+                .forEach(p -> byRole.computeIfAbsent(p.getRoleId(), k -> new TreeSet<>())
+                        .add(p.getTableName().toLowerCase()));
+        if (byRole.isEmpty()) {
+            throw ErrorCode.INVALID_ARGUMENT.toException("数据源下没有任何角色授权");
+        }
+        Set<Set<String>> permissionSets = new HashSet<>(byRole.values());
+        Set<String> distinct = new TreeSet<>();
+        permissionSets.forEach(distinct::addAll);
+
+        List<String> tableNames = new ArrayList<>(distinct);
+        List<TableMetadata> metadata = extractMetadata(dsConfig, tableNames);
+        Map<String, TableMetadata> byName = new HashMap<>(tableNames.size());
+        for (int i = 0; i < tableNames.size(); i++) {
+            byName.put(tableNames.get(i), metadata.get(i));
+        }
+
+        long perTableBytes = 0;
+        for (Map.Entry<String, TableMetadata> entry : byName.entrySet()) {
+            perTableBytes += utf8Length(entry.getKey()) + utf8Length(JSON.toJSONString(entry.getValue()));
+        }
+        long perSetBytes = 0;
+        int copies = 0;
+        for (Set<String> set : permissionSets) {
+            perSetBytes += utf8Length(JSON.toJSONString(set.stream().map(byName::get).toList()));
+            copies += set.size();
+        }
+
+        SchemaCacheFootprintVO vo = new SchemaCacheFootprintVO();
+        vo.setDataSourceId(dataSourceId);
+        vo.setRoles(byRole.size());
+        vo.setPermissionSets(permissionSets.size());
+        vo.setTableCopies(copies);
+        vo.setDistinctTables(distinct.size());
+        vo.setPerPermissionSetBytes(perSetBytes);
+        vo.setPerTableBytes(perTableBytes);
+        vo.setRatio(perTableBytes == 0 ? 0 : (double) perSetBytes / perTableBytes);
+        log.info("[SchemaDiagnostics] 数据源 {} Schema 缓存占用：{} 个授权集合 {} 字节，按表 {} 张 {} 字节",
+                dataSourceId, permissionSets.size(), perSetBytes, distinct.size(), perTableBytes);
+        return vo;
+    }
+
+    /**
+     * 评测用表结构：优先包含指定表，其余按表名顺序补足，最多 {@code BENCHMARK_MAX_TABLES} 张
+     */
+    private List<TableMetadata> loadEvaluationTables(Long dataSourceId, Collection<String> preferred) {
+        DataSource dsConfig = loadDataSource(dataSourceId);
+        List<String> tableNames = dataSourceService.getTableNames(dataSourceId);
+        if (tableNames.isEmpty()) {
+            throw ErrorCode.INVALID_ARGUMENT.toException("数据源无表");
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        preferred.stream().filter(tableNames::contains).forEach(selected::add);
+        for (String name : tableNames) {
+            if (selected.size() >= BENCHMARK_MAX_TABLES) {
+                break;
+            }
+            selected.add(name);
+        }
+        return extractMetadata(dsConfig, new ArrayList<>(selected));
+    }
+
+    private DataSource loadDataSource(Long dataSourceId) {
+        DataSource dsConfig = dataSourceMapper.selectById(dataSourceId);
+        if (dsConfig == null) {
+            throw ErrorCode.DATASOURCE_NOT_FOUND.toException();
+        }
+        return dsConfig;
+    }
+
+    private List<TableMetadata> extractMetadata(DataSource dsConfig, List<String> tableNames) {
+        javax.sql.DataSource ds = dataSourceManager.getDataSource(
+                passwordCipher.decryptedCopy(dsConfig));
+        try {
+            return metadataExtractorRouter.extract(dsConfig.getId(), dsConfig.getDbType(), ds, tableNames);
+        } catch (SQLException e) {
+            throw new LoadingException(
+                    "连接数据源 [" + dsConfig.getConnName() + "] 失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static long utf8Length(String s) {
+        return s.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -1,45 +1,73 @@
 package com.xhx.core.service.sql.Impl;
 
+import com.alibaba.fastjson2.JSON;
+import com.google.common.util.concurrent.RateLimiter;
+import com.xhx.ai.model.IndexSyncResult;
 import com.xhx.ai.service.SchemaIndexingService;
+import com.xhx.common.constant.SecurityConstants;
 import com.xhx.common.exception.LoadingException;
 import com.xhx.common.model.TableMetadata;
+import com.xhx.core.config.IndexJobProperties;
 import com.xhx.core.extractor.MetadataExtractorRouter;
+import com.xhx.core.model.vo.IndexJobVO;
+import com.xhx.core.service.cache.CacheService;
 import com.xhx.core.service.management.DataSourcePasswordCipher;
 import com.xhx.core.service.management.DataSourceService;
 import com.xhx.core.service.sql.SchemaIndexingFacade;
 import com.xhx.dal.config.DynamicDataSourceManager;
 import com.xhx.dal.entity.DataSource;
 import com.xhx.dal.mapper.DataSourceMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.sql.Connection;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Schema 向量索引编排器实现
  *
- * <p><b>doRebuild 核心流程：</b>
+ * <p><b>索引任务核心流程：</b>
  * <ol>
  *   <li>查询数据源配置（DataSourceMapper）</li>
  *   <li>获取所有表名（DataSourceService，优先走 Redis 缓存）</li>
- *   <li>连接目标库提取完整元数据（MetadataExtractorRouter）</li>
- *   <li>委托 SchemaIndexingService 向量化并 upsert 到 Qdrant</li>
+ *   <li>删除已不在目标库中的表的向量</li>
+ *   <li>跳过断点中已完成的表，其余按 {@code chunk-size} 分块：
+ *       连接目标库提取元数据（MetadataExtractorRouter）→ 按内容哈希只向量化新增/变化的表 → 写断点</li>
  * </ol>
  *
+ * <p><b>任务模型：</b><br>
+ * 每个数据源同一时刻最多一个任务，在 {@code indexJobExecutor} 中执行，
+ * 多个数据源之间并行（并发数 {@code parallelism}）。
+ * 单个任务的向量化速率由令牌桶限制，避免启动时所有数据源同时打满 Embedding 配额。
+ * 任务状态和断点存 Redis：进程在任务中途退出，下次启动从断点继续；
+ * 任务成功结束后清除断点，下一轮重新比对全部表。
+ *
  * <p><b>容错策略：</b><br>
- * 单个数据源失败时记录日志并继续，不整体中断。<br>
- * 索引失败对用户无感知：VectorSchemaLinker 自动降级 KeywordSchemaLinker。
+ * 单个数据源失败时记录日志并标记任务失败，不影响其他数据源。<br>
+ * 索引未完成对用户无感知：VectorSchemaLinker 检索无命中时自动降级 KeywordSchemaLinker。
+ *
+ * <p><b>多实例：</b><br>
+ * 任务结束时本实例写一次进程内索引快照；任务结束或删除索引后在 {@code channel:vector:changed} 上通知其他实例，
+ * 其他实例收到后在 {@code indexJobExecutor} 中从 Qdrant 重新加载该数据源，同一数据源排队中的重复通知合并为一次。
  *
  * @author master
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class SchemaIndexingFacadeImpl implements SchemaIndexingFacade {
+public class SchemaIndexingFacadeImpl implements SchemaIndexingFacade, MessageListener {
 
     private final DataSourceMapper         dataSourceMapper;
     private final DataSourceService        dataSourceService;
@@ -47,32 +75,84 @@ public class SchemaIndexingFacadeImpl implements SchemaIndexingFacade {
     private final MetadataExtractorRouter  metadataExtractorRouter;
     private final SchemaIndexingService    schemaIndexingService;
     private final DataSourcePasswordCipher passwordCipher;
+    private final CacheService             cacheService;
+    private final IndexJobProperties       properties;
+    private final ExecutorService          indexJobExecutor;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    /** 本实例标识，忽略自己发出的变更通知 */
+    private static final String NODE_ID = UUID.randomUUID().toString();
+
+    /** 数据源 ID → 最近一次任务 */
+    private final ConcurrentMap<Long, IndexJobVO> jobs = new ConcurrentHashMap<>();
+    /** 任务执行期间又收到重建请求的数据源，任务结束后补跑一次 */
+    private final Set<Long> rerunRequested = ConcurrentHashMap.newKeySet();
+    /** 已排队重新加载进程内索引的数据源 */
+    private final Set<Long> reloadQueued = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 向量索引变更通知
+     *
+     * @param origin 发出通知的实例
+     */
+    record IndexChanged(Long dataSourceId, String origin) {}
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(SecurityConstants.VECTOR_INDEX_CHANGED_CHANNEL));
+    }
 
-    @Async("aiExecutor")
     @Override
-    public void rebuildAsync(Long dataSourceId) {
-        log.info("[IndexFacade] 异步重建数据源 {} 向量索引", dataSourceId);
-        try {
-            doRebuild(dataSourceId);
-        } catch (Exception e) {
-            log.error("[IndexFacade] 数据源 {} 索引重建失败，SchemaLinker 将降级关键词匹配: {}",
-                    dataSourceId, e.getMessage());
+    public synchronized IndexJobVO rebuildAsync(Long dataSourceId) {
+        IndexJobVO current = jobs.get(dataSourceId);
+        if (current != null && current.isActive()) {
+            rerunRequested.add(dataSourceId);
+            log.info("[IndexFacade] 数据源 {} 已有索引任务在执行，结束后补跑", dataSourceId);
+            return current;
         }
+
+        // 上一轮任务未正常结束（进程重启 / 失败）时沿用其断点，否则重新开始
+        IndexJobVO previous = current != null ? current : loadPersisted(dataSourceId);
+        boolean resume = previous != null && previous.getStatus() != IndexJobVO.Status.SUCCEEDED;
+
+        IndexJobVO job = IndexJobVO.pending(dataSourceId);
+        jobs.put(dataSourceId, job);
+        persist(job);
+        indexJobExecutor.execute(() -> runJob(job, resume, null));
+        log.info("[IndexFacade] 已提交数据源 {} 索引任务", dataSourceId);
+        return job;
     }
 
     @Override
-    public void rebuildBatch(List<Long> dataSourceIds) {
-        log.info("[IndexFacade] 批量重建，共 {} 个数据源", dataSourceIds.size());
-        int success = 0;
-        for (Long dsId : dataSourceIds) {
-            try {
-                doRebuild(dsId);
-                success++;
-            } catch (Exception e) {
-                log.error("[IndexFacade] 数据源 {} 重建失败，跳过: {}", dsId, e.getMessage());
-            }
+    public synchronized IndexJobVO reindexTablesAsync(Long dataSourceId, Collection<String> tableNames) {
+        // 有任务在执行 / 上一轮未完成（需断点续跑）/ 从未建过索引时，定向同步不足以保证完整，交给全量任务
+        IndexJobVO current = jobs.get(dataSourceId);
+        IndexJobVO previous = current != null ? current : loadPersisted(dataSourceId);
+        if (previous == null || previous.getStatus() != IndexJobVO.Status.SUCCEEDED) {
+            return rebuildAsync(dataSourceId);
         }
-        log.info("[IndexFacade] 批量重建完成：{}/{} 成功", success, dataSourceIds.size());
+
+        Set<String> only = new HashSet<>(tableNames);
+        IndexJobVO job = IndexJobVO.pending(dataSourceId);
+        job.setTargeted(true);
+        jobs.put(dataSourceId, job);
+        persist(job);
+        indexJobExecutor.execute(() -> runJob(job, false, only));
+        log.info("[IndexFacade] 已提交数据源 {} 定向索引任务，变更表 {} 张", dataSourceId, only.size());
+        return job;
+    }
+
+    @Override
+    public List<IndexJobVO> listJobs() {
+        List<IndexJobVO> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparing(IndexJobVO::getDataSourceId));
+        return result;
+    }
+
+    @Override
+    public IndexJobVO getJob(Long dataSourceId) {
+        IndexJobVO job = jobs.get(dataSourceId);
+        return job != null ? job : loadPersisted(dataSourceId);
     }
 
     @Async("aiExecutor")
@@ -80,41 +160,160 @@ public class SchemaIndexingFacadeImpl implements SchemaIndexingFacade {
     public void deleteIndex(Long dataSourceId) {
         log.info("[IndexFacade] 异步删除数据源 {} 向量索引", dataSourceId);
         schemaIndexingService.deleteByDataSource(dataSourceId);
+        cacheService.evictIndexCheckpoint(dataSourceId);
+        publishChanged(dataSourceId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        IndexChanged changed;
+        try {
+            changed = JSON.parseObject(new String(message.getBody(), StandardCharsets.UTF_8), IndexChanged.class);
+        } catch (Exception e) {
+            log.warn("[IndexFacade] 无法解析向量索引变更通知: {}", e.getMessage());
+            return;
+        }
+        Long dataSourceId = changed.dataSourceId();
+        if (dataSourceId == null || NODE_ID.equals(changed.origin()) || !reloadQueued.add(dataSourceId)) {
+            return;
+        }
+        indexJobExecutor.execute(() -> {
+            reloadQueued.remove(dataSourceId);
+            schemaIndexingService.reloadLocalIndex(dataSourceId);
+        });
+    }
+
+    // ==================== 任务执行 ====================
+
+    /**
+     * @param only 只处理这些表（定向同步），为 null 时处理全部表
+     */
+    private void runJob(IndexJobVO job, boolean resume, Set<String> only) {
+        Long dataSourceId = job.getDataSourceId();
+        try {
+            doRebuild(job, resume, only);
+            job.setStatus(IndexJobVO.Status.SUCCEEDED);
+            cacheService.evictIndexCheckpoint(dataSourceId);
+            log.info("[IndexFacade] 数据源 {} 索引任务完成：新增 {}，变化 {}，删除 {}，未变 {}，失败 {}",
+                    dataSourceId, job.getAdded(), job.getChanged(), job.getRemoved(),
+                    job.getUnchanged(), job.getFailed());
+        } catch (Exception e) {
+            job.setStatus(IndexJobVO.Status.FAILED);
+            job.setError(e.getMessage());
+            log.error("[IndexFacade] 数据源 {} 索引任务失败，SchemaLinker 将降级关键词匹配: {}",
+                    dataSourceId, e.getMessage());
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+            persist(job);
+            // 失败的任务也可能已写入部分向量
+            schemaIndexingService.flushLocalIndex(dataSourceId);
+            publishChanged(dataSourceId);
+        }
+
+        if (rerunRequested.remove(dataSourceId)) {
+            rebuildAsync(dataSourceId);
+        }
     }
 
-    // ==================== 核心流程 ====================
+    private void doRebuild(IndexJobVO job, boolean resume, Set<String> only) {
+        Long dataSourceId = job.getDataSourceId();
+        if (!resume) {
+            cacheService.evictIndexCheckpoint(dataSourceId);
+        }
+
+        job.setStatus(IndexJobVO.Status.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        persist(job);
 
-    private void doRebuild(Long dataSourceId) {
         DataSource dsConfig = dataSourceMapper.selectById(dataSourceId);
         if (dsConfig == null) {
             log.warn("[IndexFacade] 数据源 {} 不存在，跳过", dataSourceId);
             return;
         }
+        job.setConnName(dsConfig.getConnName());
 
         // 优先走 Redis 缓存，命中率极高，避免反复连接目标库查表名
         List<String> tableNames = dataSourceService.getTableNames(dataSourceId);
+        job.setTotalTables(tableNames.size());
+        job.setRemoved(schemaIndexingService.removeMissingTables(dataSourceId, tableNames));
         if (tableNames.isEmpty()) {
-            log.warn("[IndexFacade] 数据源 {} [{}] 无表，跳过",
-                    dataSourceId, dsConfig.getConnName());
+            log.warn("[IndexFacade] 数据源 {} [{}] 无表，跳过", dataSourceId, dsConfig.getConnName());
             return;
         }
 
-        log.info("[IndexFacade] 提取数据源 {} [{}] 元数据，共 {} 张表",
-                dataSourceId, dsConfig.getConnName(), tableNames.size());
+        Set<String> done = resume ? cacheService.getIndexCheckpoint(dataSourceId) : Set.of();
+        List<String> pending = tableNames.stream()
+                .filter(t -> !done.contains(t))
+                .filter(t -> only == null || only.contains(t))
+                .toList();
+        job.setResumed(resume && pending.size() < tableNames.size());
+        job.setProcessedTables(tableNames.size() - pending.size());
+        persist(job);
+
+        log.info("[IndexFacade] 开始索引数据源 {} [{}]，共 {} 张表，待处理 {} 张{}",
+                dataSourceId, dsConfig.getConnName(), tableNames.size(), pending.size(),
+                job.isResumed() ? "（断点续跑）" : "");
+
+        RateLimiter limiter = properties.getEmbeddingsPerSecond() > 0
+                ? RateLimiter.create(properties.getEmbeddingsPerSecond()) : null;
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<String> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            List<TableMetadata> metadata = extractMetadata(dsConfig, chunk);
+            IndexSyncResult result = schemaIndexingService.indexChangedTables(dataSourceId, metadata);
+            job.accumulate(result, chunk.size());
+
+            // 有失败的块不写断点，续跑时重新比对（已成功的表哈希一致，不会重复向量化）
+            if (result.failed() == 0) {
+                cacheService.addIndexCheckpoint(dataSourceId, chunk, properties.getStateTtlDays());
+            }
+            persist(job);
 
-        List<TableMetadata> metadata = extractMetadata(dsConfig, tableNames);
-        schemaIndexingService.upsertTables(dataSourceId, metadata);
+            // 令牌按实际向量化的表数扣减，未变化的表不占配额；欠下的令牌由下一块等待偿还
+            int embedded = result.added() + result.changed();
+            if (limiter != null && embedded > 0) {
+                limiter.acquire(embedded);
+            }
+        }
     }
 
     private List<TableMetadata> extractMetadata(DataSource dsConfig,
                                                 List<String> tableNames) {
         javax.sql.DataSource ds = dataSourceManager.getDataSource(
                 passwordCipher.decryptedCopy(dsConfig));
-        try (Connection conn = ds.getConnection()) {
-            return metadataExtractorRouter.extract(dsConfig.getDbType(), conn, tableNames);
+        try {
+            return metadataExtractorRouter.extract(dsConfig.getId(), dsConfig.getDbType(), ds, tableNames);
         } catch (SQLException e) {
             throw new LoadingException(
                     "连接数据源 [" + dsConfig.getConnName() + "] 失败: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    private void publishChanged(Long dataSourceId) {
+        try {
+            cacheService.publish(SecurityConstants.VECTOR_INDEX_CHANGED_CHANNEL,
+                    JSON.toJSONString(new IndexChanged(dataSourceId, NODE_ID)));
+        } catch (Exception e) {
+            log.warn("[IndexFacade] 数据源 {} 向量索引变更通知发送失败，其他实例重启前继续使用旧索引: {}",
+                    dataSourceId, e.getMessage());
+        }
+    }
+
+    private void persist(IndexJobVO job) {
+        try {
+            cacheService.putIndexJob(job.getDataSourceId(), JSON.toJSONString(job), properties.getStateTtlDays());
+        } catch (Exception e) {
+            log.warn("[IndexFacade] 保存数据源 {} 任务状态失败: {}", job.getDataSourceId(), e.getMessage());
+        }
+    }
+
+    private IndexJobVO loadPersisted(Long dataSourceId) {
+        try {
+            String json = cacheService.getIndexJob(dataSourceId);
+            return json == null ? null : JSON.parseObject(json, IndexJobVO.class);
+        } catch (Exception e) {
+            log.warn("[IndexFacade] 读取数据源 {} 任务状态失败: {}", dataSourceId, e.getMessage());
+            return null;
+        }
+    }
+}
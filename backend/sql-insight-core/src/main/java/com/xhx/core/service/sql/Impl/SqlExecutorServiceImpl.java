@@ -12,6 +12,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.Connection;
+import java.sql.Statement;
 import java.util.List;
 import java.util.Map;
 
@@ -27,12 +29,12 @@ public class SqlExecutorServiceImpl implements SqlExecutorService {
     private final DataSourceMapper          dataSourceMapper;
     private final DataSourcePasswordCipher  passwordCipher;
 
+    /** 预检只编译不取数，超时应远小于正式执行 */
+    private static final int PROBE_TIMEOUT_SECONDS = 5;
+
     @Override
     public List<Map<String, Object>> execute(Long dataSourceId, String sql) {
-        DataSource config = dataSourceMapper.selectById(dataSourceId);
-        if (config == null) {
-            throw new NotExistException(404, "数据源不存在");
-        }
+        DataSource config = loadConfig(dataSourceId);
 
         // 从 DB 读出的 password 是密文，建连接前解密
         javax.sql.DataSource ds = dataSourceManager.getDataSource(passwordCipher.decryptedCopy(config));
@@ -48,4 +50,43 @@ public class SqlExecutorServiceImpl implements SqlExecutorService {
             throw new ServiceException(500, "目标库执行异常: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void probe(Long dataSourceId, String sql) {
+        DataSource config = loadConfig(dataSourceId);
+        javax.sql.DataSource ds = dataSourceManager.getDataSource(passwordCipher.decryptedCopy(config));
+        String body = stripTrailingSemicolon(sql);
+
+        try (Connection conn = ds.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.setQueryTimeout(PROBE_TIMEOUT_SECONDS);
+            if ("sqlserver".equalsIgnoreCase(config.getDbType())) {
+                // NOEXEC 是会话级开关，必须在同一连接上关闭，避免污染连接池
+                stmt.execute("SET NOEXEC ON");
+                try {
+                    stmt.execute(body);
+                } finally {
+                    stmt.execute("SET NOEXEC OFF");
+                }
+            } else {
+                stmt.execute("EXPLAIN " + body);
+            }
+        } catch (Exception e) {
+            log.debug("SQL 预检未通过: {}", e.getMessage());
+            throw new ServiceException(500, "目标库预检失败: " + e.getMessage());
+        }
+    }
+
+    private DataSource loadConfig(Long dataSourceId) {
+        DataSource config = dataSourceMapper.selectById(dataSourceId);
+        if (config == null) {
+            throw new NotExistException(404, "数据源不存在");
+        }
+        return config;
+    }
+
+    private String stripTrailingSemicolon(String sql) {
+        String trimmed = sql.trim();
+        return trimmed.endsWith(";") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
@@ -24,6 +24,7 @@ public class SqlGeneratorServiceImpl implements SqlGeneratorService {
     private final PermissionStage    permissionStage;
     private final MetadataStage      metadataStage;
     private final SchemaLinkStage    schemaLinkStage;
+    private final ColumnPruneStage   columnPruneStage;
     private final PromptStage        promptStage;
     private final LlmStage           llmStage;
     private final SqlValidationStage sqlValidationStage;
@@ -50,6 +51,7 @@ public class SqlGeneratorServiceImpl implements SqlGeneratorService {
                 permissionStage,
                 metadataStage,
                 schemaLinkStage,
+                columnPruneStage,
                 promptStage,
                 llmStage,
                 sqlValidationStage
@@ -3,8 +3,11 @@ package com.xhx.core.service.sql.Impl;
 import com.alibaba.fastjson2.JSON;
 import com.xhx.common.exception.ErrorCode;
 import com.xhx.common.exception.ServiceException;
+import com.xhx.common.model.TableMetadata;
 import com.xhx.common.util.CommonUtil;
+import com.xhx.core.config.SqlGenerationProperties;
 import com.xhx.core.service.cache.CacheService;
+import com.xhx.core.service.cache.SchemaCatalog;
 import com.xhx.core.service.sql.SqlSecurityService;
 import com.xhx.dal.entity.DataSource;
 import com.xhx.dal.entity.QueryPolicy;
@@ -18,10 +21,13 @@ import net.sf.jsqlparser.statement.select.ParenthesedSelect;
 import net.sf.jsqlparser.util.TablesNamesFinder;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * SQL 安全校验服务
@@ -34,6 +40,8 @@ public class SqlSecurityServiceImpl implements SqlSecurityService {
 
     private final CacheService cacheService;
     private final DataSourceMapper dataSourceMapper;
+    private final SchemaCatalog schemaCatalog;
+    private final SqlGenerationProperties generationProperties;
 
     private static final Set<String> AGG_FUNCTIONS =
             Set.of("COUNT", "SUM", "AVG", "MAX", "MIN");
@@ -82,6 +90,8 @@ public class SqlSecurityServiceImpl implements SqlSecurityService {
 
             checkPolicy(userId, statement, sql.toUpperCase(), dbType);
 
+            checkLargeTableScan(statement, dsConfig, tableNames);
+
         } catch (ServiceException e) {
             // 业务异常直接抛出
             throw e;
@@ -152,6 +162,58 @@ public class SqlSecurityServiceImpl implements SqlSecurityService {
         }
     }
 
+    /**
+     * 大表全表扫描检查。行数与索引经 SchemaCatalog 取得（未加载时按需加载），各节点判断一致；
+     * 取不到统计信息的表不参与判断。默认只记录告警，开启 largeTableScanReject 后拒绝执行
+     */
+    private void checkLargeTableScan(Statement statement, DataSource dsConfig, List<String> tableNames) {
+        long threshold = generationProperties.getLargeTableRows();
+        if (threshold <= 0 || dsConfig == null) {
+            return;
+        }
+        List<String> names = tableNames.stream()
+                .filter(t -> !SYSTEM_TABLES.contains(t))
+                .map(LargeTableScanDetector::normalize)
+                .distinct()
+                .toList();
+        List<TableMetadata> metadata;
+        try {
+            metadata = schemaCatalog.view(dsConfig, names);
+        } catch (Exception e) {
+            log.warn("[安全审计] dsId: {} 表统计信息加载失败，跳过大表扫描检查: {}", dsConfig.getId(), e.getMessage());
+            return;
+        }
+        Map<String, TableMetadata> largeTables = new HashMap<>();
+        for (TableMetadata table : metadata) {
+            if (table != null && table.getIndexes() != null
+                    && table.getRowCount() != null && table.getRowCount() >= threshold) {
+                largeTables.put(LargeTableScanDetector.normalize(table.getTableName()), table);
+            }
+        }
+        if (largeTables.isEmpty()) {
+            return;
+        }
+
+        LargeTableScanDetector detector = new LargeTableScanDetector(largeTables);
+        detector.getTables(statement);
+        TableMetadata scanned = detector.violation();
+        if (scanned == null) {
+            return;
+        }
+        String leading = scanned.getIndexes().stream()
+                .filter(index -> !index.getColumns().isEmpty())
+                .map(index -> index.getColumns().get(0))
+                .distinct()
+                .collect(Collectors.joining(", "));
+        String message = "表 " + scanned.getTableName() + "（约 " + TableMetadata.formatRowCount(scanned.getRowCount())
+                + " 行）缺少索引列过滤条件，将全表扫描"
+                + (leading.isEmpty() ? "" : "，请在 WHERE 中加入以下字段的条件：" + leading);
+        if (generationProperties.isLargeTableScanReject()) {
+            throw ErrorCode.SQL_NOT_ALLOWED.toException(message);
+        }
+        log.warn("[安全审计] dsId: {}, {}", dsConfig.getId(), message);
+    }
+
     /**
      * 判断 SQL 是否包含行数限制，按数据库方言区分
      */
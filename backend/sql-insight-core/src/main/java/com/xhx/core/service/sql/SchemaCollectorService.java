@@ -12,8 +12,9 @@ import java.util.List;
 public interface SchemaCollectorService {
 
     /**
-     * 获取指定表的结构化元数据列表（带 Redis 缓存）
+     * 获取指定表的结构化元数据列表（进程内快照 + Redis 缓存）
      * SchemaLinker 需要用结构化数据做关键词评分，所以单独暴露此方法
+     * 返回的列表与元素在请求间共享，不可修改
      *
      * @param dsConfig     数据源配置
      * @param allowedTables 当前用户有权限的表名列表
@@ -24,8 +25,9 @@ public interface SchemaCollectorService {
     /**
      * 将元数据列表格式化为 AI Prompt 所需的 Markdown 文本
      *
-     * @param tables 经过 SchemaLinker 过滤后的表元数据
+     * @param dataSourceId 数据源 ID（未裁剪的表复用快照中已格式化的文本）
+     * @param tables       经过 SchemaLinker 过滤后的表元数据
      * @return schema markdown 字符串
      */
-    String format(List<TableMetadata> tables);
+    String format(Long dataSourceId, List<TableMetadata> tables);
 }
\ No newline at end of file
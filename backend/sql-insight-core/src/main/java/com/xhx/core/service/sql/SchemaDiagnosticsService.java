@@ -0,0 +1,49 @@
+package com.xhx.core.service.sql;
+
+import com.xhx.ai.model.DimensionEvaluationReport;
+import com.xhx.ai.model.EmbeddingBenchmarkReport;
+import com.xhx.ai.model.LabelledQuestion;
+import com.xhx.core.model.vo.SchemaCacheFootprintVO;
+
+import java.util.List;
+
+/**
+ * Schema 相关的管理员诊断与评测
+ *
+ * <p>均为同步执行、按需提取目标库元数据的一次性操作，不参与索引任务编排（见 {@link SchemaIndexingFacade}）。
+ *
+ * @author master
+ */
+public interface SchemaDiagnosticsService {
+
+    /**
+     * 用指定数据源的表结构对比各 Embedding 提供方的耗时与召回
+     *
+     * <p>最多取前 500 张表，直接调用模型、不走缓存，会消耗真实配额。
+     *
+     * @param dataSourceId 数据源 ID
+     * @param questions    评测问题
+     * @param topK         召回评估的 K
+     */
+    EmbeddingBenchmarkReport benchmarkEmbedding(Long dataSourceId, List<String> questions, int topK);
+
+    /**
+     * 用带标注的问题评测不同向量维度（Matryoshka 截断 / PCA 投影）下的召回率
+     *
+     * <p>标注表优先纳入评测，总数最多 500 张；直接调用模型、不走缓存。
+     *
+     * @param dataSourceId 数据源 ID
+     * @param questions    带标注的评测问题
+     * @param dimensions   候选维度，如 512 / 256 / 128
+     * @param topK         召回评估的 K
+     */
+    DimensionEvaluationReport evaluateDimensions(Long dataSourceId, List<LabelledQuestion> questions,
+                                                 List<Integer> dimensions, int topK);
+
+    /**
+     * 按当前角色授权计算 Schema 缓存两种存储结构的占用（提取所有被授权的表）
+     *
+     * @param dataSourceId 数据源 ID
+     */
+    SchemaCacheFootprintVO schemaCacheFootprint(Long dataSourceId);
+}
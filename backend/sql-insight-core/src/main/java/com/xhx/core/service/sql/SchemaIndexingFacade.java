@@ -1,7 +1,9 @@
 package com.xhx.core.service.sql;
 
 import com.xhx.ai.service.VectorSchemaLinker;
+import com.xhx.core.model.vo.IndexJobVO;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -16,32 +18,53 @@ import java.util.List;
  * <ul>
  *   <li>{@code DataSourceServiceImpl}  — 新增/刷新表名时调 rebuildAsync</li>
  *   <li>{@code CacheEvictEventListener} — 数据源删除时调 deleteIndex</li>
- *   <li>{@code SchemaIndexingBootstrap} — 应用启动时调 rebuildBatch（同步）</li>
+ *   <li>{@code SchemaIndexingBootstrap} — 应用启动时对所有数据源调 rebuildAsync</li>
+ *   <li>{@code SchemaChangeDetector} — 检测到表结构变更时调 reindexTablesAsync</li>
  * </ul>
  *
+ * <p>每次重建是一个可追踪的后台任务，进度通过 {@link #listJobs()} 查询。
+ *
  * @author master
  */
 public interface SchemaIndexingFacade {
 
     /**
-     * 异步重建指定数据源的向量索引
+     * 提交指定数据源的索引重建任务，立即返回
      *
-     * <p>内部使用 {@code @Async("aiExecutor")}，不阻塞调用方事务。
+     * <p>任务在独立线程池中分块执行，每块完成后写入断点；
+     * 进程重启后对未完成的任务再次提交时，从断点继续，已完成的表不再提取。
+     * 同一数据源已有任务在执行时不重复提交，而是在其结束后再补跑一次。
      * 索引失败只记录日志，不影响主业务（{@link VectorSchemaLinker} 自动降级）。
      *
      * @param dataSourceId 数据源 ID
+     * @return 任务当前状态
      */
-    void rebuildAsync(Long dataSourceId);
+    IndexJobVO rebuildAsync(Long dataSourceId);
 
     /**
-     * 同步批量重建多个数据源的向量索引
+     * 提交只同步指定表的索引任务，立即返回（表结构变更检测调用）
+     *
+     * <p>只提取并比对指定表，同时删除已不在目标库中的表的向量。
+     * 该数据源有任务在执行、上一轮未正常结束或从未建过索引时，改为提交全量任务
+     * （全量任务同样按内容哈希只向量化变化的表）。
      *
-     * <p>仅供应用启动预热使用。同步阻塞直到全部完成，
-     * 保证服务就绪时 Qdrant 已有完整数据，避免冷启动时向量检索全部 miss。
+     * @param dataSourceId 数据源 ID
+     * @param tableNames   新增或结构变化的表，可为空（只处理删除）
+     * @return 任务当前状态
+     */
+    IndexJobVO reindexTablesAsync(Long dataSourceId, Collection<String> tableNames);
+
+    /**
+     * 所有数据源最近一次索引任务的状态（本实例提交的任务）
+     */
+    List<IndexJobVO> listJobs();
+
+    /**
+     * 指定数据源最近一次索引任务的状态，本实例无记录时读取 Redis 中持久化的状态
      *
-     * @param dataSourceIds 数据源 ID 列表
+     * @return 从未执行过时返回 null
      */
-    void rebuildBatch(List<Long> dataSourceIds);
+    IndexJobVO getJob(Long dataSourceId);
 
     /**
      * 异步删除指定数据源的所有向量索引
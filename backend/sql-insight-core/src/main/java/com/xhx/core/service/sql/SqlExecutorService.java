@@ -14,4 +14,17 @@ public interface SqlExecutorService {
      * @return 结果集
      */
     List<Map<String, Object>> execute(Long dataSourceId, String sql);
+
+    /**
+     * 低成本预检：只让目标库编译 / 生成执行计划，不真正取数
+     * <ul>
+     *   <li>MySQL / PostgreSQL → EXPLAIN</li>
+     *   <li>SQL Server         → SET NOEXEC ON</li>
+     * </ul>
+     *
+     * @param dataSourceId 目标数据源 ID
+     * @param sql 经过校验的安全 SQL
+     * @throws com.xhx.common.exception.ServiceException 目标库无法编译该 SQL 时抛出
+     */
+    void probe(Long dataSourceId, String sql);
 }
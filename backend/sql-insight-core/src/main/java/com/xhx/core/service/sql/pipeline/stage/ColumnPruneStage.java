@@ -0,0 +1,172 @@
+package com.xhx.core.service.sql.pipeline.stage;
+
+import com.xhx.common.model.ColumnMetadata;
+import com.xhx.common.model.TableMetadata;
+import com.xhx.core.config.SqlGenerationProperties;
+import com.xhx.core.service.sql.pipeline.GeneratePipelineContext;
+import com.xhx.core.service.sql.pipeline.PipelineStage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Stage 6.5：字段裁剪，只保留与问题相关的字段（generate 流程专用）
+ * <p>
+ * 宽表（字段数超过 {@code column-prune-min-columns}）才裁剪，以下字段无条件保留：
+ *   - 主键、有索引的字段
+ *   - 关联键：以 id 结尾，或与其他已选表同名的字段
+ *   - 字段名 / 字段注释命中问题的字段
+ * 保留数不足 {@code column-prune-keep} 时按原顺序补齐，保证召回。
+ * <p>
+ * correct 流程跳过此 Stage：纠错往往正是因为缺字段，直接回退全量字段。
+ * 裁剪结果是新的 TableMetadata 副本，不修改缓存中的元数据对象。
+ * @author master
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ColumnPruneStage implements PipelineStage {
+
+    private static final String COMMENT_DELIMITER = "[\\s，。、：；！？,.!?_\\-()（）]+";
+    private static final String PLACEHOLDER_COMMENT = "(未命名注释)";
+
+    private final SqlGenerationProperties properties;
+
+    @Override
+    public void process(GeneratePipelineContext ctx) {
+        if (ctx.isCorrectMode() || !properties.isColumnPruneEnabled()) {
+            return;
+        }
+        List<TableMetadata> linked = ctx.getLinkedMetadata();
+        if (linked == null || linked.isEmpty()) {
+            return;
+        }
+
+        String lq = ctx.getQuestion().toLowerCase();
+        Set<String> sharedColumns = sharedColumnNames(linked);
+
+        int before = 0;
+        int after = 0;
+        List<TableMetadata> pruned = new ArrayList<>(linked.size());
+        for (TableMetadata table : linked) {
+            TableMetadata result = prune(table, lq, sharedColumns);
+            before += table.getColumns() == null ? 0 : table.getColumns().size();
+            after += result.getColumns() == null ? 0 : result.getColumns().size();
+            pruned.add(result);
+        }
+        if (after < before) {
+            log.info("字段裁剪：{} 张表共 {} 个字段 → {} 个", linked.size(), before, after);
+        }
+        ctx.setLinkedMetadata(pruned);
+    }
+
+    private TableMetadata prune(TableMetadata table, String lq, Set<String> sharedColumns) {
+        List<ColumnMetadata> columns = table.getColumns();
+        if (columns == null || columns.size() <= properties.getColumnPruneMinColumns()) {
+            return table;
+        }
+
+        boolean[] keep = new boolean[columns.size()];
+        int kept = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnMetadata col = columns.get(i);
+            if (col.isPrimaryKey() || col.isIndexed()
+                    || isJoinKey(col.getName(), sharedColumns)
+                    || relevant(col, lq)) {
+                keep[i] = true;
+                kept++;
+            }
+        }
+        // 召回兜底：按原顺序补齐到最少保留数
+        for (int i = 0; i < columns.size() && kept < properties.getColumnPruneKeep(); i++) {
+            if (!keep[i]) {
+                keep[i] = true;
+                kept++;
+            }
+        }
+        if (kept == columns.size()) {
+            return table;
+        }
+
+        List<ColumnMetadata> retained = new ArrayList<>(kept);
+        for (int i = 0; i < columns.size(); i++) {
+            if (keep[i]) {
+                retained.add(columns.get(i));
+            }
+        }
+        TableMetadata copy = new TableMetadata();
+        copy.setTableName(table.getTableName());
+        copy.setTableComment(table.getTableComment());
+        copy.setColumns(retained);
+        copy.setRowCount(table.getRowCount());
+        copy.setIndexes(table.getIndexes());
+        return copy;
+    }
+
+    /**
+     * 在两张及以上已选表中出现的字段名，视为潜在关联键
+     */
+    private Set<String> sharedColumnNames(List<TableMetadata> tables) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (TableMetadata table : tables) {
+            if (table.getColumns() == null) {
+                continue;
+            }
+            Set<String> names = new HashSet<>();
+            for (ColumnMetadata col : table.getColumns()) {
+                names.add(col.getName().toLowerCase());
+            }
+            names.forEach(n -> counts.merge(n, 1, Integer::sum));
+        }
+        Set<String> shared = new HashSet<>();
+        counts.forEach((name, count) -> {
+            if (count > 1) {
+                shared.add(name);
+            }
+        });
+        return shared;
+    }
+
+    private boolean isJoinKey(String name, Set<String> sharedColumns) {
+        String lower = name.toLowerCase();
+        return lower.endsWith("_id") || lower.equals("id") || sharedColumns.contains(lower);
+    }
+
+    /**
+     * 字段名（整体或下划线分段）或注释（整词或连续汉字二元组）出现在问题中
+     */
+    private boolean relevant(ColumnMetadata col, String lq) {
+        String name = col.getName().toLowerCase();
+        if (name.length() > 2 && lq.contains(name)) {
+            return true;
+        }
+        for (String part : name.split("_")) {
+            if (part.length() > 2 && lq.contains(part)) {
+                return true;
+            }
+        }
+
+        String comment = col.getComment();
+        if (comment == null || comment.isBlank() || PLACEHOLDER_COMMENT.equals(comment)) {
+            return false;
+        }
+        for (String word : comment.toLowerCase().split(COMMENT_DELIMITER)) {
+            if (word.length() > 1 && lq.contains(word)) {
+                return true;
+            }
+            for (int i = 0; i + 2 <= word.length(); i++) {
+                if (isHan(word.charAt(i)) && isHan(word.charAt(i + 1))
+                        && lq.contains(word.substring(i, i + 2))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isHan(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
@@ -2,20 +2,40 @@ package com.xhx.core.service.sql.pipeline.stage;
 
 import com.xhx.ai.model.AiResponse;
 import com.xhx.ai.service.SqlExecutor;
+import com.xhx.core.config.SqlGenerationProperties;
+import com.xhx.core.service.sql.SqlExecutorService;
+import com.xhx.core.service.sql.SqlSecurityService;
 import com.xhx.core.service.sql.pipeline.GeneratePipelineContext;
 import com.xhx.core.service.sql.pipeline.PipelineStage;
+import dev.langchain4j.data.message.ChatMessage;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
 /**
  * Stage 8：调用 LLM 生成或纠正 SQL
+ * <p>
+ * 多候选模式（{@code sql-insight.generation.candidate-count > 1}，仅 generate 流程）：
+ * 并行发出 k 路生成请求，候选按到达顺序依次做安全校验 + 目标库预检，
+ * 第一个通过的候选胜出并写入记忆，其余任务取消。
+ * 超过半数候选返回解释（认为问题无法用 SQL 回答）时直接采用解释，不再等其余候选。
+ * 没有候选通过时优先采用解释，其次是最先到达的 SQL，交由后续 Stage 按原流程报错 / 纠错。
  * @author master
  */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class LlmStage implements PipelineStage {
 
-    private final SqlExecutor sqlExecutor;
+    private final SqlExecutor             sqlExecutor;
+    private final SqlSecurityService      sqlSecurityService;
+    private final SqlExecutorService      sqlExecutorService;
+    private final SqlGenerationProperties properties;
+    private final ExecutorService         llmCandidateExecutor;
 
     @Override
     public void process(GeneratePipelineContext ctx) {
@@ -24,10 +44,119 @@ public class LlmStage implements PipelineStage {
             response = sqlExecutor.executeWithCorrection(
                     ctx.getSessionId(), ctx.getSystemPrompt(),
                     ctx.getErrorMessage(), ctx.getWrongSql());
+        } else if (properties.getCandidateCount() > 1) {
+            response = raceCandidates(ctx);
         } else {
             response = sqlExecutor.execute(
                     ctx.getSessionId(), ctx.getSystemPrompt(), ctx.getQuestion());
         }
         ctx.setAiResponse(response);
     }
+
+    // ==================== 多候选并行生成 ====================
+
+    private AiResponse raceCandidates(GeneratePipelineContext ctx) {
+        List<ChatMessage> history = sqlExecutor.loadHistory(ctx.getSessionId());
+        List<String> prompts = candidatePrompts(ctx.getSystemPrompt());
+
+        CompletionService<Candidate> completion = new ExecutorCompletionService<>(llmCandidateExecutor);
+        List<Future<Candidate>> futures = new ArrayList<>(prompts.size());
+        for (int i = 0; i < prompts.size(); i++) {
+            int index = i;
+            String prompt = prompts.get(i);
+            futures.add(completion.submit(() -> evaluate(index, history, prompt, ctx)));
+        }
+
+        AiResponse winner = null;
+        AiResponse firstExplain = null;
+        AiResponse firstInvalid = null;
+        int explains = 0;
+        long deadline = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(properties.getCandidateTimeoutSeconds());
+        try {
+            for (int received = 0; received < futures.size() && winner == null; received++) {
+                Future<Candidate> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    log.warn("[LlmStage] 多候选等待超时（{}s），已收到 {}/{} 个",
+                            properties.getCandidateTimeoutSeconds(), received, futures.size());
+                    break;
+                }
+                Candidate candidate;
+                try {
+                    candidate = done.get();
+                } catch (ExecutionException e) {
+                    log.warn("[LlmStage] 候选生成异常: {}", e.getCause() != null
+                            ? e.getCause().getMessage() : e.getMessage());
+                    continue;
+                }
+                if (candidate.valid()) {
+                    winner = candidate.response();
+                    log.info("[LlmStage] 候选 #{} 率先通过校验，取消其余 {} 个",
+                            candidate.index(), futures.size() - received - 1);
+                } else if (candidate.response().isExplain()) {
+                    explains++;
+                    if (firstExplain == null) {
+                        firstExplain = candidate.response();
+                    }
+                    if (explains * 2 > futures.size()) {
+                        winner = firstExplain;
+                        log.info("[LlmStage] {}/{} 个候选返回解释，采用解释，取消其余 {} 个",
+                                explains, futures.size(), futures.size() - received - 1);
+                    }
+                } else if (firstInvalid == null) {
+                    firstInvalid = candidate.response();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("[LlmStage] 多候选等待被中断");
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+
+        AiResponse chosen = winner != null ? winner : firstExplain != null ? firstExplain : firstInvalid;
+        if (chosen == null) {
+            // 所有候选都抛异常或超时：退回单次串行生成
+            log.warn("[LlmStage] 无可用候选，退回单次生成");
+            return sqlExecutor.execute(ctx.getSessionId(), ctx.getSystemPrompt(), ctx.getQuestion());
+        }
+        sqlExecutor.remember(ctx.getSessionId(), ctx.getQuestion(), chosen);
+        return chosen;
+    }
+
+    /**
+     * 候选 0 使用原始 prompt，其余候选依次追加差异化提示。
+     * temperature 0 下重复的提示只会产生重复结果，因此候选数不超过 1 + 提示数。
+     */
+    private List<String> candidatePrompts(String systemPrompt) {
+        List<String> hints = properties.getVariantHints();
+        int count = Math.min(properties.getCandidateCount(), 1 + hints.size());
+        List<String> prompts = new ArrayList<>(count);
+        prompts.add(systemPrompt);
+        for (int i = 1; i < count; i++) {
+            prompts.add(systemPrompt + "\n\n" + hints.get(i - 1));
+        }
+        return prompts;
+    }
+
+    private Candidate evaluate(int index, List<ChatMessage> history, String prompt,
+                               GeneratePipelineContext ctx) {
+        AiResponse response = sqlExecutor.generateCandidate(history, prompt, ctx.getQuestion());
+        if (response.isExplain()) {
+            return new Candidate(index, response, false);
+        }
+        Long dataSourceId = ctx.getSession().getDataSourceId();
+        try {
+            sqlSecurityService.validate(response.cleanSql(), ctx.getUserId(), dataSourceId);
+            if (properties.isProbeEnabled()) {
+                sqlExecutorService.probe(dataSourceId, response.cleanSql());
+            }
+            return new Candidate(index, response, true);
+        } catch (Exception e) {
+            log.debug("[LlmStage] 候选 #{} 未通过: {}", index, e.getMessage());
+            return new Candidate(index, response, false);
+        }
+    }
+
+    private record Candidate(int index, AiResponse response, boolean valid) {}
 }
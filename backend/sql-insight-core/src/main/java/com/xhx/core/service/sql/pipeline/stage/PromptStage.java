@@ -24,7 +24,8 @@ public class PromptStage implements PipelineStage {
 
     @Override
     public void process(GeneratePipelineContext ctx) {
-        String schemaText = schemaCollectorService.format(ctx.getLinkedMetadata());
+        String schemaText = schemaCollectorService.format(
+                ctx.getDataSource().getId(), ctx.getLinkedMetadata());
         String policyJson = permissionLoader.loadPolicy(ctx.getUserId(), ctx.getRoleId());
         QueryPolicy policy = policyJson != null
                 ? JSON.parseObject(policyJson, QueryPolicy.class) : null;
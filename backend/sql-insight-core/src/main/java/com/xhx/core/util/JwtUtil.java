@@ -1,5 +1,7 @@
 package com.xhx.core.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -10,6 +12,7 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author master
@@ -26,6 +29,15 @@ public class JwtUtil {
 
     private SecretKey signingKey;
 
+    /**
+     * 已验签的 Claims：同一 Token 在有效期内每次请求都要验签、解析，结果不会变化。
+     * 登出 / 踢人不在这里处理，由认证过滤器比对 Redis 中的当前 Token 拒绝
+     */
+    private final Cache<String, Claims> verifiedClaims = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .build();
+
     /**
      * 初始化生成密钥
      */
@@ -62,6 +74,21 @@ public class JwtUtil {
                 .getPayload();
     }
 
+    /**
+     * 解析 Token，已验签过且未过期的直接返回缓存的 Claims
+     * @return 如果解析失败或过期，会抛出对应的异常
+     */
+    public Claims parseTokenCached(String token) {
+        Claims claims = verifiedClaims.getIfPresent(token);
+        if (claims != null && claims.getExpiration() != null
+                && claims.getExpiration().getTime() > System.currentTimeMillis()) {
+            return claims;
+        }
+        claims = parseToken(token);
+        verifiedClaims.put(token, claims);
+        return claims;
+    }
+
     /**
      * 基础校验：判断 Token 是否合法
      */
@@ -0,0 +1,66 @@
+package com.xhx.core.service.cache.Impl;
+
+import com.xhx.core.service.cache.AuthSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 认证会话读取：只有 Token 与系统权限都存在的会话才进入近端缓存
+ */
+class CacheServiceImplTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final UserNearCache nearCache = new UserNearCache(redisTemplate, mock(RedisMessageListenerContainer.class));
+    private final CacheServiceImpl cacheService = new CacheServiceImpl(redisTemplate, nearCache);
+
+    @Test
+    void cachesCompleteSession() {
+        pipelineReturns("token", "ROLE_USER", 3600L);
+
+        assertEquals("token", cacheService.getAuthSession(1L).token());
+        assertEquals("ROLE_USER", cacheService.getAuthSession(1L).sysPerm());
+
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        assertNotNull(nearCache.sessions.getIfPresent(1L));
+    }
+
+    @Test
+    void doesNotCacheSessionWithoutToken() {
+        pipelineReturns(null, "ROLE_USER", -2L);
+
+        AuthSession session = cacheService.getAuthSession(1L);
+        assertNull(session.token());
+        assertEquals(-2, session.expireMinutes());
+        cacheService.getAuthSession(1L);
+
+        verify(redisTemplate, times(2)).executePipelined(any(SessionCallback.class));
+        assertNull(nearCache.sessions.getIfPresent(1L));
+    }
+
+    @Test
+    void doesNotCacheSessionWithoutSysPerm() {
+        pipelineReturns("token", null, 3600L);
+
+        AuthSession session = cacheService.getAuthSession(1L);
+        assertEquals("token", session.token());
+        assertNull(session.sysPerm());
+        cacheService.getAuthSession(1L);
+
+        verify(redisTemplate, times(2)).executePipelined(any(SessionCallback.class));
+        assertNull(nearCache.sessions.getIfPresent(1L));
+    }
+
+    /** 管道依次返回 Token、系统权限、Token TTL（秒） */
+    private void pipelineReturns(String token, String sysPerm, Long ttlSeconds) {
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                .thenReturn(Arrays.<Object>asList(token, sysPerm, ttlSeconds));
+    }
+}
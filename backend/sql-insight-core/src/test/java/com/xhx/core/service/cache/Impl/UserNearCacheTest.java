@@ -0,0 +1,77 @@
+package com.xhx.core.service.cache.Impl;
+
+import com.xhx.common.constant.SecurityConstants;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 用户近端缓存：命中、不缓存 null、读 Redis 期间发生失效时不回填
+ */
+class UserNearCacheTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final UserNearCache nearCache = new UserNearCache(redisTemplate, mock(RedisMessageListenerContainer.class));
+
+    @Test
+    void cachesLoadedValue() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(7L, nearCache.get(nearCache.roleIds, 1L, () -> { loads.incrementAndGet(); return 7L; }));
+        assertEquals(7L, nearCache.get(nearCache.roleIds, 1L, () -> { loads.incrementAndGet(); return 8L; }));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void doesNotCacheNull() {
+        assertNull(nearCache.get(nearCache.roleIds, 1L, () -> null));
+        assertNull(nearCache.roleIds.getIfPresent(1L));
+    }
+
+    @Test
+    void invalidationDuringLoadIsNotCached() {
+        // loader 读到旧值之后、写入本地之前，另一个请求改了权限
+        Long stale = nearCache.get(nearCache.roleIds, 1L, () -> {
+            nearCache.invalidateLocal(1L);
+            return 7L;
+        });
+
+        assertEquals(7L, stale);
+        assertNull(nearCache.roleIds.getIfPresent(1L));
+        assertEquals(8L, nearCache.get(nearCache.roleIds, 1L, () -> 8L));
+        assertEquals(8L, nearCache.roleIds.getIfPresent(1L));
+    }
+
+    @Test
+    void invalidateClearsLocalAndNotifiesOtherNodes() {
+        nearCache.get(nearCache.roleIds, 1L, () -> 7L);
+        nearCache.get(nearCache.policies, 1L, () -> "{}");
+
+        nearCache.invalidate(1L);
+
+        assertNull(nearCache.roleIds.getIfPresent(1L));
+        assertNull(nearCache.policies.getIfPresent(1L));
+        verify(redisTemplate).convertAndSend(SecurityConstants.USER_INVALIDATE_CHANNEL, "1");
+    }
+
+    @Test
+    void invalidationMessageClearsLocal() {
+        nearCache.get(nearCache.roleIds, 1L, () -> 7L);
+        nearCache.get(nearCache.roleIds, 2L, () -> 9L);
+
+        nearCache.onMessage(new DefaultMessage(
+                SecurityConstants.USER_INVALIDATE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "1".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertNull(nearCache.roleIds.getIfPresent(1L));
+        assertEquals(9L, nearCache.roleIds.getIfPresent(2L));
+    }
+}
@@ -0,0 +1,136 @@
+package com.xhx.core.service.sql.Impl;
+
+import com.xhx.common.model.IndexMetadata;
+import com.xhx.common.model.TableMetadata;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 大表全表扫描检测：orders 为大表（主键 id，索引 idx_user_time(user_id, created_at)），users 为小表
+ */
+class LargeTableScanDetectorTest {
+
+    private static final TableMetadata ORDERS = orders();
+
+    @Test
+    void flagsUnfilteredScan() throws JSQLParserException {
+        assertScan("SELECT * FROM orders");
+        assertScan("SELECT COUNT(*) FROM orders");
+        assertScan("SELECT status, COUNT(*) FROM orders GROUP BY status LIMIT 10");
+    }
+
+    @Test
+    void acceptsLeadingIndexColumnFilter() throws JSQLParserException {
+        assertNoScan("SELECT * FROM orders WHERE id = 1");
+        assertNoScan("SELECT COUNT(*) FROM orders WHERE user_id = 7 AND created_at > '2024-01-01'");
+        assertNoScan("SELECT * FROM `orders` o WHERE o.user_id IN (1, 2)");
+    }
+
+    @Test
+    void flagsNonLeadingIndexColumnFilter() throws JSQLParserException {
+        assertScan("SELECT * FROM orders WHERE created_at > '2024-01-01'");
+        assertScan("SELECT * FROM orders WHERE status = 'PAID'");
+    }
+
+    @Test
+    void joinConditionOnLeadingColumnCountsAsIndexedAccess() throws JSQLParserException {
+        assertNoScan("SELECT u.name, o.amount FROM users u JOIN orders o ON o.user_id = u.id WHERE u.name = 'a'");
+        assertNoScan("SELECT * FROM users u JOIN orders o USING (user_id)");
+    }
+
+    @Test
+    void flagsJoinConditionOnOtherTableOnly() throws JSQLParserException {
+        assertScan("SELECT * FROM orders o JOIN users u ON u.id = o.amount");
+        assertScan("SELECT * FROM orders o JOIN users u ON u.id = o.amount WHERE u.id = 1");
+    }
+
+    @Test
+    void acceptsLimitThatStopsEarly() throws JSQLParserException {
+        assertNoScan("SELECT * FROM orders LIMIT 100");
+        assertNoScan("SELECT * FROM orders ORDER BY id DESC LIMIT 10");
+        assertNoScan("SELECT * FROM orders o ORDER BY o.user_id LIMIT 10");
+        assertNoScan("SELECT TOP 10 * FROM orders");
+    }
+
+    @Test
+    void flagsLimitThatCannotStopEarly() throws JSQLParserException {
+        assertScan("SELECT * FROM orders ORDER BY amount DESC LIMIT 10");
+        assertScan("SELECT * FROM orders ORDER BY created_at LIMIT 10");
+        assertScan("SELECT DISTINCT status FROM orders LIMIT 10");
+        assertScan("SELECT MAX(amount) FROM orders LIMIT 1");
+    }
+
+    @Test
+    void unqualifiedColumnMayBelongToAnyTable() throws JSQLParserException {
+        assertNoScan("SELECT * FROM orders o JOIN users u ON u.id = o.user_id WHERE id = 1");
+        assertNoScan("SELECT * FROM users u JOIN orders o ON u.id = user_id");
+    }
+
+    @Test
+    void qualifiedColumnOfAnotherTableDoesNotCount() throws JSQLParserException {
+        assertScan("SELECT * FROM orders o JOIN users u ON u.id = o.amount WHERE u.user_id = 1");
+    }
+
+    @Test
+    void inspectsSubqueries() throws JSQLParserException {
+        assertScan("SELECT * FROM users WHERE id IN (SELECT amount FROM orders)");
+        assertNoScan("SELECT * FROM users WHERE id IN (SELECT user_id FROM orders WHERE user_id = 3)");
+    }
+
+    @Test
+    void flagsLargeTableWithoutIndexes() throws JSQLParserException {
+        TableMetadata logs = new TableMetadata();
+        logs.setTableName("access_log");
+        logs.setColumns(List.of());
+        logs.setRowCount(50_000_000L);
+        logs.setIndexes(List.of());
+        Map<String, TableMetadata> large = Map.of("access_log", logs);
+
+        assertEquals("access_log", detect(large, "SELECT * FROM access_log WHERE user_id = 1"));
+        assertEquals("access_log", detect(large, "SELECT * FROM access_log ORDER BY id LIMIT 10"));
+        assertNull(detect(large, "SELECT * FROM access_log LIMIT 10"));
+    }
+
+    @Test
+    void ignoresSmallTables() throws JSQLParserException {
+        assertNoScan("SELECT * FROM users");
+    }
+
+    // ==================== 私有方法 ====================
+
+    private static void assertScan(String sql) throws JSQLParserException {
+        assertEquals("orders", detect(sql), sql);
+    }
+
+    private static void assertNoScan(String sql) throws JSQLParserException {
+        assertNull(detect(sql), sql);
+    }
+
+    private static String detect(String sql) throws JSQLParserException {
+        return detect(Map.of("orders", ORDERS), sql);
+    }
+
+    private static String detect(Map<String, TableMetadata> largeTables, String sql) throws JSQLParserException {
+        LargeTableScanDetector detector = new LargeTableScanDetector(largeTables);
+        detector.getTables(CCJSqlParserUtil.parse(sql));
+        return detector.violation() != null ? detector.violation().getTableName() : null;
+    }
+
+    private static TableMetadata orders() {
+        TableMetadata table = new TableMetadata();
+        table.setTableName("orders");
+        table.setColumns(List.of());
+        table.setRowCount(50_000_000L);
+        table.setIndexes(List.of(
+                new IndexMetadata("PRIMARY", List.of("id"), true, true),
+                new IndexMetadata("idx_user_time", List.of("user_id", "created_at"), false, false)));
+        return table;
+    }
+}
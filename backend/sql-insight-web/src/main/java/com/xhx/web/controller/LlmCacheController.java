@@ -0,0 +1,33 @@
+package com.xhx.web.controller;
+
+import com.xhx.ai.model.LlmCacheStats;
+import com.xhx.ai.service.LlmResponseCache;
+import com.xhx.common.result.Result;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static com.xhx.common.constant.SystemPermissionConstants.ADMIN;
+
+/**
+ * LLM 响应缓存监控
+ * @author master
+ */
+@RestController
+@RequestMapping("/api/llm-cache")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('" + ADMIN + "')")
+public class LlmCacheController {
+
+    private final LlmResponseCache llmResponseCache;
+
+    /**
+     * 当前实例的缓存命中统计
+     */
+    @GetMapping("/admin/stats")
+    public Result<LlmCacheStats> stats() {
+        return Result.success(llmResponseCache.stats());
+    }
+}
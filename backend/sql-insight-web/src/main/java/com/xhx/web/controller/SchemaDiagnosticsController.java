@@ -0,0 +1,58 @@
+package com.xhx.web.controller;
+
+import com.xhx.ai.model.DimensionEvaluationReport;
+import com.xhx.ai.model.EmbeddingBenchmarkReport;
+import com.xhx.ai.model.LabelledQuestion;
+import com.xhx.common.result.Result;
+import com.xhx.core.model.vo.SchemaCacheFootprintVO;
+import com.xhx.core.service.sql.SchemaDiagnosticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static com.xhx.common.constant.SystemPermissionConstants.ADMIN;
+
+/**
+ * Schema 诊断与评测（同步执行，会连接目标库提取元数据）
+ * @author master
+ */
+@RestController
+@RequestMapping("/api/schema-diagnostics")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('" + ADMIN + "')")
+public class SchemaDiagnosticsController {
+
+    private final SchemaDiagnosticsService schemaDiagnosticsService;
+
+    /**
+     * 对比各 Embedding 提供方的耗时与召回（以 dashscope 的 Top-K 为基准）
+     */
+    @PostMapping("/admin/embedding-benchmark/{dataSourceId}")
+    public Result<EmbeddingBenchmarkReport> embeddingBenchmark(@PathVariable Long dataSourceId,
+                                                               @RequestParam(defaultValue = "5") int topK,
+                                                               @RequestBody List<String> questions) {
+        return Result.success(schemaDiagnosticsService.benchmarkEmbedding(dataSourceId, questions, topK));
+    }
+
+    /**
+     * 评测不同向量维度下的召回率，用于选择 truncate-dimension
+     */
+    @PostMapping("/admin/dimension-evaluation/{dataSourceId}")
+    public Result<DimensionEvaluationReport> dimensionEvaluation(
+            @PathVariable Long dataSourceId,
+            @RequestParam(defaultValue = "512,256,128") List<Integer> dimensions,
+            @RequestParam(defaultValue = "5") int topK,
+            @RequestBody List<LabelledQuestion> questions) {
+        return Result.success(schemaDiagnosticsService.evaluateDimensions(dataSourceId, questions, dimensions, topK));
+    }
+
+    /**
+     * 按当前角色授权对比 Schema 缓存按权限组合存储与按表存储的占用（提取所有被授权的表）
+     */
+    @GetMapping("/admin/schema-cache-footprint/{dataSourceId}")
+    public Result<SchemaCacheFootprintVO> schemaCacheFootprint(@PathVariable Long dataSourceId) {
+        return Result.success(schemaDiagnosticsService.schemaCacheFootprint(dataSourceId));
+    }
+}
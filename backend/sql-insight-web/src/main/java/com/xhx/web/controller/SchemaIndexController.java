@@ -0,0 +1,60 @@
+package com.xhx.web.controller;
+
+import com.xhx.ai.model.CircuitBreakerStats;
+import com.xhx.ai.service.QdrantCircuitBreaker;
+import com.xhx.common.result.Result;
+import com.xhx.core.model.vo.IndexJobVO;
+import com.xhx.core.service.sql.SchemaIndexingFacade;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static com.xhx.common.constant.SystemPermissionConstants.ADMIN;
+
+/**
+ * Schema 向量索引任务管理
+ * @author master
+ */
+@RestController
+@RequestMapping("/api/schema-index")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('" + ADMIN + "')")
+public class SchemaIndexController {
+
+    private final SchemaIndexingFacade schemaIndexingFacade;
+    private final QdrantCircuitBreaker qdrantCircuitBreaker;
+
+    /**
+     * 本实例所有索引任务的进度
+     */
+    @GetMapping("/admin/jobs")
+    public Result<List<IndexJobVO>> jobs() {
+        return Result.success(schemaIndexingFacade.listJobs());
+    }
+
+    /**
+     * 指定数据源最近一次索引任务的进度
+     */
+    @GetMapping("/admin/jobs/{dataSourceId}")
+    public Result<IndexJobVO> job(@PathVariable Long dataSourceId) {
+        return Result.success(schemaIndexingFacade.getJob(dataSourceId));
+    }
+
+    /**
+     * 手动触发索引重建（已有任务在执行时，结束后补跑一次）
+     */
+    @PostMapping("/admin/jobs/{dataSourceId}")
+    public Result<IndexJobVO> rebuild(@PathVariable Long dataSourceId) {
+        return Result.success(schemaIndexingFacade.rebuildAsync(dataSourceId));
+    }
+
+    /**
+     * Qdrant 熔断器状态与统计
+     */
+    @GetMapping("/admin/circuit-breaker")
+    public Result<CircuitBreakerStats> circuitBreaker() {
+        return Result.success(qdrantCircuitBreaker.stats());
+    }
+}
@@ -3,6 +3,7 @@ package com.xhx.web.filter;
 import com.xhx.common.IgnoreUrlsConfig;
 import com.xhx.common.constant.SecurityConstants;
 import com.xhx.common.context.UserContext;
+import com.xhx.core.service.cache.AuthSession;
 import com.xhx.core.service.cache.CacheService;
 import com.xhx.core.util.JwtUtil;
 import io.jsonwebtoken.Claims;
@@ -66,12 +67,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = authHeader.substring(TOKEN_PREFIX.length());
 
             try {
-                Claims claims = jwtUtil.parseToken(token);
+                Claims claims = jwtUtil.parseTokenCached(token);
                 Long userId = claims.get("userId", Long.class);
                 String username = claims.getSubject();
 
+                // Token、系统权限、过期时间一次取回（本地近端缓存命中时不访问 Redis）
+                AuthSession session = cacheService.getAuthSession(userId);
+
                 // 校验 Token 是否仍然有效
-                String cachedToken = cacheService.getToken(userId);
+                String cachedToken = session.token();
                 if (!StringUtils.hasText(cachedToken) || !cachedToken.equals(token)) {
                     log.warn("Token 已失效，用户：{}", username);
                     renderError(response, "登录已失效，请重新登录");
@@ -79,7 +83,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
 
                 // 获取实时系统权限快照
-                String latestPerm = cacheService.getUserSysPerm(userId);
+                String latestPerm = session.sysPerm();
                 if (!StringUtils.hasText(latestPerm)) {
                     log.warn("权限快照缺失，用户：{}", username);
                     renderError(response, "权限已变更，请重新登录");
@@ -87,7 +91,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
 
                 // 自动续期
-                renewIfNeeded(userId, username);
+                renewIfNeeded(userId, username, session);
 
                 if (SecurityContextHolder.getContext().getAuthentication() == null) {
                     List<String> roles = Collections.singletonList(latestPerm);
@@ -107,10 +111,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
-    private void renewIfNeeded(Long userId, String username) {
+    private void renewIfNeeded(Long userId, String username, AuthSession session) {
         try {
-            Long expireMinutes = cacheService.getTokenExpireMinutes(userId);
-            if (expireMinutes != null
+            long expireMinutes = session.expireMinutes();
+            if (expireMinutes >= 0
                     && expireMinutes < SecurityConstants.TOKEN_RENEW_THRESHOLD_MINUTES) {
                 cacheService.renewUserSession(userId);
                 log.info("用户 {} Token 自动续期", username);